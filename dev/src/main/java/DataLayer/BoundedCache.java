@@ -0,0 +1,119 @@
+package DataLayer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Least recently used cache of about a given number of entries. Reads don't lock, they only stamp the entry with
+ * the time it was used, and inserts evict the entries with the oldest stamps once the cache is over capacity.
+ * Pinned entries and the entry just inserted are never evicted, so the cache may grow beyond its capacity while
+ * many of its entries are pinned.
+ */
+public class BoundedCache<K, V> {
+    private static final int SLACK_DIVISOR = 16; // large caches evict in batches of about 1/16 of their capacity
+
+    private static final class Node<V> {
+        private final V value;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Node(V value) {
+            this.value = value;
+        }
+    }
+
+    private record Candidate<K, V>(K key, Node<V> node, long lastUsed) {
+    }
+
+    private final int capacity;
+    private final int slack;
+    private final Predicate<V> pinned;
+    private final ConcurrentHashMap<K, Node<V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int capacity, Predicate<V> pinned) {
+        this.capacity = capacity;
+        this.slack = capacity / SLACK_DIVISOR;
+        this.pinned = pinned;
+    }
+
+    public V get(K key) {
+        Node<V> node = entries.get(key);
+        if (node == null)
+            return null;
+        node.lastUsed = System.nanoTime();
+        return node.value;
+    }
+
+    public boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    public V put(K key, V value) {
+        Node<V> previous = entries.put(key, new Node<>(value));
+        evictIfFull(key);
+        return previous == null ? null : previous.value;
+    }
+
+    public V putIfAbsent(K key, V value) {
+        Node<V> previous = entries.putIfAbsent(key, new Node<>(value));
+        if (previous != null)
+            return previous.value;
+        evictIfFull(key);
+        return null;
+    }
+
+    public V remove(K key) {
+        Node<V> removed = entries.remove(key);
+        return removed == null ? null : removed.value;
+    }
+
+    public List<V> values() {
+        List<V> values = new ArrayList<>(entries.size());
+        for (Node<V> node : entries.values())
+            values.add(node.value);
+        return values;
+    }
+
+    public List<K> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // evicts the least recently used entries that aren't pinned, down to the capacity. one thread evicts at a time,
+    // the others skip it since the evicting thread is already making room.
+    private void evictIfFull(K inserted) {
+        if (entries.size() <= capacity + slack || !evictionLock.tryLock())
+            return;
+        try {
+            List<Candidate<K, V>> candidates = new ArrayList<>();
+            for (Map.Entry<K, Node<V>> entry : entries.entrySet()) {
+                Node<V> node = entry.getValue();
+                if (!entry.getKey().equals(inserted) && !pinned.test(node.value))
+                    candidates.add(new Candidate<>(entry.getKey(), node, node.lastUsed));
+            }
+            candidates.sort(Comparator.comparingLong(Candidate::lastUsed));
+            for (int i = 0; i < candidates.size() && entries.size() > capacity; i++) {
+                Candidate<K, V> candidate = candidates.get(i);
+                // an entry used since the scan is kept
+                if (candidate.node().lastUsed == candidate.lastUsed() && entries.remove(candidate.key(), candidate.node()))
+                    evictions.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
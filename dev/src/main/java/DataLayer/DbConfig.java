@@ -1,6 +1,9 @@
 package DataLayer;
 
+import DataLayer.ORM.DataIdSequence;
+import DataLayer.ORM.DataOutboxEntry;
 import DataLayer.ORM.DataPermission;
+import DataLayer.ORM.DataSalesRollup;
 import DataLayer.ORM.DataTransactedProduct;
 import DataLayer.ORM.DataTransaction;
 import DataLayer.Services.NotificationService.ORM.DataNotification;
@@ -40,6 +43,7 @@ public class DbConfig {
         CONF.setProperty("hibernate.connection.password", password);
         CONF.setProperty("hibernate.dialect", DbConfig.DIALECTS.get(dbType));
         CONF.setProperty("hibernate.hbm2ddl.auto", mode);
+        CONF.setProperty("hibernate.default_batch_fetch_size", "32");
 
         CONF.addAnnotatedClass(DataProduct.class);
         CONF.addAnnotatedClass(DataMemberAddress.class);
@@ -73,6 +77,9 @@ public class DbConfig {
         CONF.addAnnotatedClass(DataConditionRule.class);
         CONF.addAnnotatedClass(DataAppointment.class);
         CONF.addAnnotatedClass(DataAppointConsent.class);
+        CONF.addAnnotatedClass(DataOutboxEntry.class);
+        CONF.addAnnotatedClass(DataSalesRollup.class);
+        CONF.addAnnotatedClass(DataIdSequence.class);
 
         setPERSIST(true);
 
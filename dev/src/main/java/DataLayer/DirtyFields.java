@@ -0,0 +1,74 @@
+package DataLayer;
+
+import org.hibernate.query.MutationQuery;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Change tracking for an entity wrapper.
+ * Records the fields that changed since the entity was loaded or stored, so persisting it only
+ * updates those columns, with one update statement and without reading the row first.
+ */
+public class DirtyFields {
+    private final Map<String, Object> changed = new LinkedHashMap<>();
+    private volatile boolean stored = false;
+
+    /**
+     * Marks the entity as having a row in the database, called from its PostLoad/PostPersist callback.
+     */
+    public void stored() {
+        stored = true;
+    }
+
+    public boolean isStored() {
+        return stored;
+    }
+
+    /**
+     * Records a field assignment. Changes made before the entity was stored are written by its insert.
+     */
+    public synchronized void changed(String field, Object oldValue, Object newValue) {
+        if (stored && !Objects.equals(oldValue, newValue))
+            changed.put(field, newValue);
+    }
+
+    /**
+     * Writes the changed fields of the given stored entity.
+     * Nothing is sent if no field changed, or if the entity is managed by the active unit of work,
+     * which flushes it on its own.
+     * @param entity the entity instance
+     * @param idPath the identifier attribute of the entity, compared to the given id
+     * @param id the identifier value of the entity
+     */
+    public void flush(Object entity, String idPath, Object id) {
+        Map<String, Object> toWrite;
+        synchronized (this) {
+            if (changed.isEmpty())
+                return;
+            toWrite = new LinkedHashMap<>(changed);
+            changed.clear();
+        }
+        try {
+            UnitOfWork.executeVoid(session -> {
+                if (session.contains(entity))
+                    return;
+                String assignments = toWrite.keySet().stream()
+                        .map(field -> String.format("e.%s = :%s", field, field))
+                        .collect(Collectors.joining(", "));
+                MutationQuery update = session.createMutationQuery(String.format(
+                        "UPDATE %s e SET %s WHERE e.%s = :entity_id", entity.getClass().getSimpleName(), assignments, idPath));
+                toWrite.forEach(update::setParameter);
+                update.setParameter("entity_id", id);
+                update.executeUpdate();
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                toWrite.forEach(changed::putIfAbsent);
+            }
+            throw e;
+        }
+    }
+}
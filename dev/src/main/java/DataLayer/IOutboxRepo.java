@@ -0,0 +1,42 @@
+package DataLayer;
+
+import DataLayer.ORM.DataOutboxEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface IOutboxRepo {
+  /**
+   * Stores the given entries atomically - either all of them are added or none.
+   * @param entries post-payment work of a single purchase, one entry per store basket.
+   */
+  void addEntries(List<DataOutboxEntry> entries);
+
+  /**
+   * Claims a batch of due entries for this market instance, so no other instance dispatches them until they are
+   * released or their lease runs out. Entries added by other instances are seen as well.
+   * @param now the current time.
+   * @return the claimed entries, which didn't fail permanently and whose next attempt time has come, oldest first.
+   */
+  List<DataOutboxEntry> claimDueEntries(LocalDateTime now);
+
+  /**
+   * Saves the progress of an entry (completed steps, attempts, errors, claim).
+   * @param entry an entry of this repo.
+   * @throws IllegalStateException if another instance claimed the entry since it was claimed by this one.
+   */
+  void update(DataOutboxEntry entry);
+
+  /**
+   * Removes a completed entry.
+   * @param entry an entry of this repo.
+   */
+  void remove(DataOutboxEntry entry);
+
+  /**
+   * @return number of entries that are still waiting to be dispatched.
+   */
+  int getPendingCount();
+
+  void clean();
+}
@@ -4,9 +4,13 @@ import util.Records.Transaction;
 import Domain.User.IStoreBasket;
 import util.Exceptions.NonExistentData;
 import util.Records.DateTimeRange;
+import util.Records.StoreRecords.SalesReport;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ITransactionRepo {
   /**
@@ -18,6 +22,12 @@ public interface ITransactionRepo {
    */
   int addTransaction(IStoreBasket basket, String userName, double price);
 
+  /**
+   * Like {@link #addTransaction(IStoreBasket, String, double)}, for a purchase made at the given time.
+   * @param time time of the purchase.
+   */
+  int addTransaction(IStoreBasket basket, String userName, double price, LocalDateTime time);
+
   /**
    * @return All system transactions. Ever.
    */
@@ -48,6 +58,15 @@ public interface ITransactionRepo {
    */
   List<Transaction> getUserTransactionsInRange(String userName, DateTimeRange range);
 
+  /**
+   * @param userName a user.
+   * @param range DateTime range.
+   * @param first index of the first transaction of the page.
+   * @param max maximal number of transactions in the page.
+   * @return a page of the transactions made by the given user in the given range of time, ordered by time.
+   */
+  List<Transaction> getUserTransactionsPage(String userName, DateTimeRange range, int first, int max);
+
   /**
    * @param storeId ID of a store.
    * @return all transactions made with the given store.
@@ -61,6 +80,47 @@ public interface ITransactionRepo {
    */
   List<Transaction> getStoreTransactionsInRange(int storeId, DateTimeRange range);
 
+  /**
+   * @param storeId ID of a store.
+   * @param range DateTime range.
+   * @param first index of the first transaction of the page.
+   * @param max maximal number of transactions in the page.
+   * @return a page of the transactions made with the given store in the given range of time, ordered by time.
+   */
+  List<Transaction> getStoreTransactionsPage(int storeId, DateTimeRange range, int first, int max);
+
+  /**
+   * Passes the transactions made in the given range of time to the consumer, ordered by time,
+   * without holding them all in memory.
+   * @param range DateTime range.
+   * @param consumer receives the transactions one by one.
+   */
+  void forEachTransaction(DateTimeRange range, Consumer<Transaction> consumer);
+
+  /**
+   * Passes the transactions made with the given store in the given range of time to the consumer, ordered by time,
+   * without holding them all in memory.
+   * @param storeId ID of a store.
+   * @param range DateTime range.
+   * @param consumer receives the transactions one by one.
+   */
+  void forEachStoreTransaction(int storeId, DateTimeRange range, Consumer<Transaction> consumer);
+
+  /**
+   * Answered from the sales counters, which count every committed transaction.
+   * @param storeId ID of a store.
+   * @param from first day of the report, or null.
+   * @param to last day of the report, or null.
+   * @param bestSellers number of best selling products to report.
+   * @return the sales of the given store between the given days, both included.
+   */
+  SalesReport getStoreSales(int storeId, LocalDate from, LocalDate to, int bestSellers);
+
+  /**
+   * Like {@link #getStoreSales}, over the sales of all the stores.
+   */
+  SalesReport getMarketSales(LocalDate from, LocalDate to, int bestSellers);
+
   void clean();
 
   int getTransactionCount();
@@ -0,0 +1,89 @@
+package DataLayer;
+
+import DataLayer.ORM.DataIdSequence;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Hands out the IDs of a named sequence from blocks reserved in the Id_Sequence table (hi/lo), so app instances
+ * sharing a DB never hand out the same ID, and an ID inside a reserved block costs a single atomic increment.
+ * A sequence missing from the table starts after the greatest ID already in use.
+ * When not persisting, IDs are handed out from memory starting at 1.
+ */
+public class IdAllocator {
+    public static final int BLOCK_SIZE = 50;
+    private static final int RESERVE_ATTEMPTS = 3;
+    private static final Map<String, IdAllocator> ALLOCATORS = new ConcurrentHashMap<>();
+
+    // IDs from next up to limit, excluded
+    private record Block(AtomicInteger next, int limit) {
+    }
+
+    private final String sequence;
+    private final Function<Session, Integer> maxId;
+    private volatile Block block = new Block(new AtomicInteger(0), 0);
+
+    private IdAllocator(String sequence, Function<Session, Integer> maxId) {
+        this.sequence = sequence;
+        this.maxId = maxId;
+    }
+
+    /**
+     * Returns the allocator of the sequence, creating it on first use.
+     *
+     * @param maxId reads the greatest ID in use, or null if there is none, to start a sequence that isn't in the table yet.
+     */
+    public static IdAllocator of(String sequence, Function<Session, Integer> maxId) {
+        return ALLOCATORS.computeIfAbsent(sequence, name -> new IdAllocator(name, maxId));
+    }
+
+    public int next() {
+        while (true) {
+            Block current = block;
+            int id = current.next().getAndIncrement();
+            if (id < current.limit())
+                return id;
+            reserve(current);
+        }
+    }
+
+    // only the first thread to find the block exhausted reserves the next one, the others retry on it
+    private synchronized void reserve(Block exhausted) {
+        if (block != exhausted) return;
+
+        if (!DbConfig.shouldPersist()) {
+            block = new Block(new AtomicInteger(Math.max(exhausted.limit(), 1)), Integer.MAX_VALUE);
+            return;
+        }
+        int start = reserveInDb();
+        block = new Block(new AtomicInteger(start), start + BLOCK_SIZE);
+    }
+
+    // in its own DB transaction, so the block stays reserved even if the caller's unit of work rolls back
+    private int reserveInDb() {
+        for (int attempt = 1; ; attempt++) {
+            try (Session session = DbConfig.getSessionFactory().openSession()) {
+                session.beginTransaction();
+                DataIdSequence row = session.find(DataIdSequence.class, sequence, LockModeType.PESSIMISTIC_WRITE);
+                if (row == null) {
+                    Integer max = maxId.apply(session);
+                    row = new DataIdSequence(sequence, max == null ? 1 : max + 1);
+                    session.persist(row);
+                }
+                int start = row.reserve(BLOCK_SIZE);
+                session.getTransaction().commit();
+                return start;
+            } catch (PersistenceException e) {
+                // another instance started the sequence at the same time, the next attempt reads its row
+                if (attempt == RESERVE_ATTEMPTS)
+                    throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package DataLayer;
+
+import util.Records.LoadStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the loads of a repository from the database and the time they took, and the requests that
+ * joined a load that was already in flight instead of starting their own.
+ */
+public class LoadMetrics {
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder sharedLoads = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final AtomicLong maxLoadNanos = new AtomicLong(0);
+
+    public void loaded(long nanos) {
+        loads.increment();
+        totalLoadNanos.add(nanos);
+        maxLoadNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void shared() {
+        sharedLoads.increment();
+    }
+
+    public LoadStats getStats() {
+        return new LoadStats(loads.sum(), sharedLoads.sum(), totalLoadNanos.sum(), maxLoadNanos.get());
+    }
+}
@@ -0,0 +1,161 @@
+package DataLayer;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Answers lookups of keys that don't exist without going to the database. A Bloom filter of all the existing keys,
+ * seeded from the database and updated on every add, tells keys that surely don't exist. Keys it can't rule out
+ * that were looked up and missed are remembered for a short time.
+ * Other instances may add keys to the database, so the filter is trusted only for a short time after seeding and is
+ * then seeded again, sized for the keys that exist by then. Callers that must not miss a key, like a check for a
+ * duplicate before adding it, go to the database instead.
+ */
+public class NegativeCache<K> {
+    private static final int HASHES = 7; // about 1% false positives at 10 bits per key
+    private static final int BITS_PER_KEY = 10;
+    private static final int MIN_BITS = 1 << 16;
+    private static final int MAX_MISSES = 10_000;
+
+    private final long missTtlMillis;
+    private final long filterTtlMillis;
+    private final Map<K, Long> misses = new ConcurrentHashMap<>(); // <key, time the miss expires at>
+    private final ReentrantLock seedLock = new ReentrantLock();
+    private final Set<K> addedSinceSeeding = new HashSet<>(); // guarded by this
+    private volatile AtomicLongArray bits = null;
+    private volatile long seededAt = 0;
+    private int capacity = 0; // keys the filter was sized for, guarded by this
+
+    /**
+     * @param missTtlMillis   how long a looked up key that missed is known to be missing
+     * @param filterTtlMillis how long the filter is trusted after it's seeded
+     */
+    public NegativeCache(long missTtlMillis, long filterTtlMillis) {
+        this.missTtlMillis = missTtlMillis;
+        this.filterTtlMillis = filterTtlMillis;
+    }
+
+    public boolean isSeeded() {
+        return bits != null;
+    }
+
+    /**
+     * Seeds the filter with all the existing keys if it wasn't seeded yet, is older than its time to live or holds
+     * more keys than it was sized for. The keys added since the last seeding are added too, since the loader may
+     * not see them yet if they aren't committed. Only the first seeding is waited for, while the filter is seeded
+     * again the other callers go on and their lookups go to the database.
+     */
+    public void seedIfStale(Supplier<Collection<K>> loader) {
+        if (!isStale())
+            return;
+        if (bits == null)
+            seedLock.lock();
+        else if (!seedLock.tryLock())
+            return;
+        try {
+            if (!isStale())
+                return;
+            Collection<K> keys = loader.get();
+            int size = Math.max(MIN_BITS, keys.size() * 2 * BITS_PER_KEY);
+            AtomicLongArray seeded = new AtomicLongArray((size + 63) / 64);
+            for (K key : keys)
+                set(seeded, key);
+            synchronized (this) {
+                for (K key : addedSinceSeeding)
+                    set(seeded, key);
+                addedSinceSeeding.clear();
+                capacity = Math.max(keys.size(), MIN_BITS / (2 * BITS_PER_KEY));
+                bits = seeded;
+                seededAt = System.currentTimeMillis();
+            }
+        } finally {
+            seedLock.unlock();
+        }
+    }
+
+    /**
+     * Returns true if the key surely doesn't exist, or was looked up and missed a short time ago.
+     */
+    public boolean isKnownMissing(K key) {
+        AtomicLongArray current = bits;
+        if (current != null && System.currentTimeMillis() - seededAt < filterTtlMillis && !mightContain(current, key))
+            return true;
+        Long expiry = misses.get(key);
+        if (expiry == null)
+            return false;
+        if (expiry > System.currentTimeMillis())
+            return true;
+        misses.remove(key, expiry);
+        return false;
+    }
+
+    public void missed(K key) {
+        if (misses.size() >= MAX_MISSES) {
+            long now = System.currentTimeMillis();
+            misses.values().removeIf(expiry -> expiry <= now);
+            if (misses.size() >= MAX_MISSES)
+                misses.clear();
+        }
+        misses.put(key, System.currentTimeMillis() + missTtlMillis);
+    }
+
+    public void added(K key) {
+        synchronized (this) {
+            AtomicLongArray current = bits;
+            if (current != null)
+                set(current, key);
+            // a filter holding more keys than it was sized for gives too many false positives, so it's seeded again
+            if (addedSinceSeeding.add(key) && addedSinceSeeding.size() > capacity)
+                seededAt = 0;
+        }
+        misses.remove(key);
+    }
+
+    private boolean isStale() {
+        return bits == null || System.currentTimeMillis() - seededAt >= filterTtlMillis;
+    }
+
+    private void set(AtomicLongArray array, K key) {
+        long hash = hash(key);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = bit(array, hash, i);
+            long mask = 1L << (bit & 63);
+            int word = bit >>> 6;
+            long value;
+            do {
+                value = array.get(word);
+            } while ((value & mask) == 0 && !array.compareAndSet(word, value, value | mask));
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray array, K key) {
+        long hash = hash(key);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = bit(array, hash, i);
+            if ((array.get(bit >>> 6) & (1L << (bit & 63))) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    // the i-th of the bits of the key, by double hashing of the two halves of its mixed hash
+    private static int bit(AtomicLongArray array, long hash, int i) {
+        int combined = (int) hash + i * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % (array.length() * 64);
+    }
+
+    private static long hash(Object key) {
+        long hash = key.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
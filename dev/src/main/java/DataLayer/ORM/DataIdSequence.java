@@ -0,0 +1,39 @@
+package DataLayer.ORM;
+
+import jakarta.persistence.*;
+
+/**
+ * The next unreserved ID of a sequence of {@link DataLayer.IdAllocator}.
+ */
+@Entity
+@Table(name = "Id_Sequence")
+public class DataIdSequence {
+    @Id
+    private String name;
+    private int nextValue;
+
+    public DataIdSequence() {
+    }
+
+    public DataIdSequence(String name, int nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+
+    /**
+     * Reserves the next block of IDs and returns its first ID.
+     */
+    public int reserve(int blockSize) {
+        int start = nextValue;
+        nextValue += blockSize;
+        return start;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getNextValue() {
+        return nextValue;
+    }
+}
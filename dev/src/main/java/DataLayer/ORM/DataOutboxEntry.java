@@ -0,0 +1,239 @@
+package DataLayer.ORM;
+
+import DataLayer.DbConfig;
+import DataLayer.IdAllocator;
+import DataLayer.UnitOfWork;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import jakarta.persistence.*;
+import util.Records.AddressRecord;
+import util.Records.StoreRecords.ProductRecord;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Post-payment work of a single store basket that still has to be done:
+ * notifying the store staff, placing the supply order and recording the transaction.
+ * Every step is checkpointed so a retry (or a restart) never repeats a step that was completed.
+ * A dispatcher claims an entry for a lease before working on it, so other market instances leave it alone
+ * until it is released or the lease runs out.
+ */
+@Entity
+@Table(name = "Outbox")
+public class DataOutboxEntry {
+
+    private static final IdAllocator IDS = IdAllocator.of("outbox", session ->
+            session.createQuery("SELECT MAX(e.id) FROM DataOutboxEntry e", Integer.class).uniqueResult());
+    private static final Gson GSON = new Gson();
+    private static final Type PRODUCTS_TYPE = new TypeToken<Map<Integer, ProductRecord>>(){}.getType();
+
+    @Id
+    @Column(name = "entry_id")
+    private int id;
+    private int storeId;
+    private String username;
+    private double price;
+    @Column(columnDefinition = "TEXT")
+    private String products;
+    @Column(columnDefinition = "TEXT")
+    private String deliveryAddress;
+    @Column(columnDefinition = "TEXT")
+    private String notification;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttempt;
+    private int attempts;
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+    private boolean notified;
+    private boolean ordered;
+    private boolean recorded;
+    private boolean failed;
+    private String claimedBy;
+    private LocalDateTime claimedUntil;
+
+    public DataOutboxEntry() {
+    }
+
+    public DataOutboxEntry(int storeId, String username, double price, Map<Integer, ProductRecord> products,
+                           AddressRecord deliveryAddress, String notification) {
+        this.id = IDS.next();
+        this.storeId = storeId;
+        this.username = username;
+        this.price = price;
+        this.products = GSON.toJson(products, PRODUCTS_TYPE);
+        this.deliveryAddress = GSON.toJson(deliveryAddress);
+        this.notification = notification;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttempt = createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getStoreId() {
+        return storeId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public Map<Integer, ProductRecord> getProducts() {
+        return GSON.fromJson(products, PRODUCTS_TYPE);
+    }
+
+    public AddressRecord getDeliveryAddress() {
+        return GSON.fromJson(deliveryAddress, AddressRecord.class);
+    }
+
+    // the same for every attempt, so the supply system can tell a retried order from a new one
+    public String getOrderKey() {
+        return "outbox-" + id;
+    }
+
+    public String getNotification() {
+        return notification;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getNextAttempt() {
+        return nextAttempt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public boolean isNotified() {
+        return notified;
+    }
+
+    public void setNotified(boolean notified) {
+        this.notified = notified;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public boolean isRecorded() {
+        return recorded;
+    }
+
+    public void setRecorded(boolean recorded) {
+        this.recorded = recorded;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void claim(String owner, LocalDateTime until) {
+        this.claimedBy = owner;
+        this.claimedUntil = until;
+    }
+
+    // the owner is kept so a late write of a dispatcher whose entry was claimed again can still be told apart
+    public void release() {
+        this.claimedUntil = null;
+    }
+
+    public boolean isClaimable(LocalDateTime now) {
+        return isDue(now) && (claimedUntil == null || claimedUntil.isBefore(now));
+    }
+
+    public void attemptFailed(String error, LocalDateTime nextAttempt) {
+        this.attempts++;
+        this.lastError = error;
+        this.nextAttempt = nextAttempt;
+    }
+
+    public boolean isDue(LocalDateTime now) {
+        return !failed && !nextAttempt.isAfter(now);
+    }
+
+    /**
+     * Persists all the given entries in a single DB transaction,
+     * either all of the entries are saved or none of them.
+     */
+    public static void persistAll(Collection<DataOutboxEntry> entries) {
+        if (!DbConfig.shouldPersist()) return;
+
+        UnitOfWork.executeVoid(session -> {
+            for (DataOutboxEntry entry : entries)
+                session.persist(entry);
+        });
+    }
+
+    public DataOutboxEntry persist() {
+        if (!DbConfig.shouldPersist()) return this;
+
+        return UnitOfWork.execute(session -> {
+            DataOutboxEntry updated = session.get(DataOutboxEntry.class, getId());
+            if (updated == null)
+                throw new IllegalStateException(String.format(
+                        "outbox entry %d was already completed by another dispatcher", getId()));
+            checkClaim(updated);
+            updated.setNotified(isNotified());
+            updated.setOrdered(isOrdered());
+            updated.setRecorded(isRecorded());
+            updated.setFailed(isFailed());
+            updated.attempts = getAttempts();
+            updated.lastError = getLastError();
+            updated.nextAttempt = getNextAttempt();
+            updated.claimedUntil = getClaimedUntil();
+            session.persist(updated);
+            return updated;
+        });
+    }
+
+    public void remove() {
+        if (!DbConfig.shouldPersist()) return;
+
+        UnitOfWork.executeVoid(session -> {
+            DataOutboxEntry toRemove = session.get(DataOutboxEntry.class, getId());
+            if (toRemove == null) return;
+            checkClaim(toRemove);
+            session.remove(toRemove);
+        });
+    }
+
+    // a dispatcher whose lease ran out must not overwrite the progress of the one that claimed the entry after it
+    private void checkClaim(DataOutboxEntry stored) {
+        if (!Objects.equals(stored.claimedBy, claimedBy))
+            throw new IllegalStateException(String.format(
+                    "outbox entry %d was claimed by another dispatcher", getId()));
+    }
+}
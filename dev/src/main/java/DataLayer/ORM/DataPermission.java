@@ -1,11 +1,12 @@
 package DataLayer.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import DataLayer.Store.ORM.DataStore;
 import DataLayer.User.ORM.DataBaskedProduct;
 import DataLayer.User.ORM.DataMember;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 import util.Enums.PermissionType;
 import util.Enums.RoleType;
 
@@ -23,6 +24,9 @@ public class DataPermission {
     private RoleType role;
     private Set<PermissionType> permissions;
 
+    @Transient
+    private final DirtyFields dirtyFields = new DirtyFields();
+
     public DataPermission() {
     }
 
@@ -59,6 +63,7 @@ public class DataPermission {
     }
 
     public void setRole(RoleType role) {
+        dirtyFields.changed("role", this.role, role);
         this.role = role;
     }
 
@@ -67,6 +72,7 @@ public class DataPermission {
     }
 
     public void setPermissions(Set<PermissionType> permissions) {
+        dirtyFields.changed("permissions", this.permissions, permissions);
         this.permissions = permissions;
     }
 
@@ -74,31 +80,30 @@ public class DataPermission {
         return key;
     }
 
+    @PostLoad
+    @PostPersist
+    private void stored() {
+        dirtyFields.stored();
+    }
+
     public DataPermission persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
-            DataPermission updated = session.get(DataPermission.class, getId());
-            if (updated == null) updated = this;
-            updated.setRole(getRole());
-            updated.setPermissions(getPermissions());
-            session.persist(updated);
-            session.getTransaction().commit();
-            return updated;
-        }
+        if (dirtyFields.isStored())
+            dirtyFields.flush(this, "key", getId());
+        else
+            UnitOfWork.executeVoid(session -> session.persist(this));
+        return this;
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataPermission toRemove = session.get(DataPermission.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
 
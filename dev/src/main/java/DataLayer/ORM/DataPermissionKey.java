@@ -1,10 +1,10 @@
 package DataLayer.ORM;
 
+import DataLayer.UnitOfWork;
 import DataLayer.DbConfig;
 import DataLayer.Store.ORM.DataStore;
 import DataLayer.User.ORM.DataMember;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 import java.io.Serializable;
 
@@ -32,9 +32,7 @@ public class DataPermissionKey implements Serializable {
 
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()) {
-            this.member = session.get(DataMember.class, member);
-        }
+        this.member = UnitOfWork.execute(session -> session.get(DataMember.class, member));
     }
 
     public DataStore getStore() {
@@ -0,0 +1,80 @@
+package DataLayer.ORM;
+
+import jakarta.persistence.*;
+import org.hibernate.Session;
+
+import java.time.LocalDate;
+
+/**
+ * Persisted sales counters of a store in a day. The row of {@link #STORE_TOTAL} holds the totals of the store,
+ * the other rows the units and revenue of a single product.
+ * Rows are only ever incremented, so market instances counting transactions at the same time add up.
+ */
+@Entity
+@Table(name = "Sales_Rollup")
+public class DataSalesRollup {
+    public static final int STORE_TOTAL = -1;
+
+    @EmbeddedId
+    private DataSalesRollupKey key;
+    private double revenue;
+    private int orders;
+    private int units;
+
+    public DataSalesRollup() {
+    }
+
+    public DataSalesRollup(int storeId, LocalDate day, int productId, double revenue, int orders, int units) {
+        this.key = new DataSalesRollupKey(storeId, day, productId);
+        this.revenue = revenue;
+        this.orders = orders;
+        this.units = units;
+    }
+
+    public int getStoreId() {
+        return key.getStoreId();
+    }
+
+    public LocalDate getDay() {
+        return key.getDay();
+    }
+
+    public int getProductId() {
+        return key.getProductId();
+    }
+
+    public boolean isStoreTotal() {
+        return key.getProductId() == STORE_TOTAL;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public int getOrders() {
+        return orders;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+
+    /**
+     * Adds the counters of this row to the persisted row of the same key, creating it if there is none.
+     * Two sessions creating the same row at once fail one of their DB transactions on its key.
+     */
+    public void addTo(Session session) {
+        int updated = session.createMutationQuery("UPDATE DataSalesRollup r " +
+                        "SET r.revenue = r.revenue + :revenue, r.orders = r.orders + :orders, r.units = r.units + :units " +
+                        "WHERE r.key.storeId = :storeId AND r.key.day = :day AND r.key.productId = :productId")
+                .setParameter("revenue", revenue)
+                .setParameter("orders", orders)
+                .setParameter("units", units)
+                .setParameter("storeId", getStoreId())
+                .setParameter("day", getDay())
+                .setParameter("productId", getProductId())
+                .executeUpdate();
+        if (updated == 0)
+            session.persist(this);
+    }
+}
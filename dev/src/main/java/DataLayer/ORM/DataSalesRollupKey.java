@@ -0,0 +1,51 @@
+package DataLayer.ORM;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Embeddable
+public class DataSalesRollupKey implements Serializable {
+    @Column(name = "store_id")
+    private int storeId;
+    @Column(name = "sales_day")
+    private LocalDate day;
+    @Column(name = "product_id")
+    private int productId;
+
+    public DataSalesRollupKey() {
+    }
+
+    public DataSalesRollupKey(int storeId, LocalDate day, int productId) {
+        this.storeId = storeId;
+        this.day = day;
+        this.productId = productId;
+    }
+
+    public int getStoreId() {
+        return storeId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DataSalesRollupKey that)) return false;
+        return storeId == that.storeId && productId == that.productId && Objects.equals(day, that.day);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(storeId, day, productId);
+    }
+}
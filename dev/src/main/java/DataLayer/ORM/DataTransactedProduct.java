@@ -1,9 +1,9 @@
 package DataLayer.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.UnitOfWork;
 import Domain.Store.Category;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 import util.Records.StoreRecords.ProductRecord;
 
 import java.util.stream.Collectors;
@@ -37,11 +37,7 @@ public class DataTransactedProduct {
         rating = productRecord.productRating();
 
         if (DbConfig.shouldPersist()){
-            try (Session session = DbConfig.getSessionFactory().openSession()){
-                session.beginTransaction();
-                session.persist(this);
-                session.getTransaction().commit();
-            }
+            UnitOfWork.executeVoid(session -> session.persist(this));
         }
     }
 
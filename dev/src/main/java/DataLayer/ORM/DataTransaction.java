@@ -1,27 +1,32 @@
 package DataLayer.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.IdAllocator;
+import DataLayer.UnitOfWork;
 import DataLayer.Store.ORM.DataStore;
 import DataLayer.User.ORM.DataMember;
 import Domain.User.DummyStoreBasket;
 import Domain.User.IStoreBasket;
 import jakarta.persistence.*;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
 import util.Records.StoreRecords.ProductRecord;
 import util.Records.Transaction;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "Transaction")
+@Table(name = "Transaction", indexes = {
+        @Index(name = "transaction_store_time", columnList = "store_id, time"),
+        @Index(name = "transaction_user_time", columnList = "username, time"),
+        @Index(name = "transaction_time", columnList = "time"),
+        @Index(name = "transaction_rolled_up", columnList = "rolled_up")
+})
 public class DataTransaction {
 
-    private static final AtomicInteger ID_COUNTER = new AtomicInteger(0);
+    private static final IdAllocator IDS = IdAllocator.of("transaction", session ->
+            session.createQuery("SELECT MAX(t.id) FROM DataTransaction t", Integer.class).uniqueResult());
 
     @Id
     @Column(name = "transaction_id")
@@ -38,39 +43,28 @@ public class DataTransaction {
     private double price;
     @OneToMany(mappedBy = "key.transaction", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     private Set<DataTransactedProduct> products;
+    // set in the DB transaction that adds it to the sales rollup, so every committed transaction is counted once
+    @Column(name = "rolled_up")
+    private boolean rolledUp;
 
     public DataTransaction(){}
 
     public DataTransaction(IStoreBasket basket, String userName, double price) {
-        if (ID_COUNTER.get() == 0)
-            synchronized (ID_COUNTER) {
-                if (ID_COUNTER.get() == 0) {
-                    if (!DbConfig.shouldPersist())
-                        ID_COUNTER.incrementAndGet();
-                    else
-                        try (Session session = DbConfig.getSessionFactory().openSession()) {
-                            Query<Integer> query = session.createQuery(
-                                    "SELECT MAX(t.id) FROM DataTransaction t",
-                                    Integer.class
-                            );
-                            Integer maxID = query.uniqueResult();
-                            ID_COUNTER.getAndSet(maxID == null ? 1 : maxID + 1);
-                        }
-                }
-            }
-        this.id = ID_COUNTER.getAndIncrement();
+        this(basket, userName, price, LocalDateTime.now());
+    }
+
+    public DataTransaction(IStoreBasket basket, String userName, double price, LocalDateTime time) {
+        this.id = IDS.next();
         storeID = basket.getStoreId();
         username = userName;
-        time = LocalDateTime.now();
+        this.time = time;
         this.price = price;
         if (DbConfig.shouldPersist()){
-            try (Session session = DbConfig.getSessionFactory().openSession()){
-                session.beginTransaction();
+            UnitOfWork.executeVoid(session -> {
                 store = session.get(DataStore.class, basket.getStoreId());
                 member = session.get(DataMember.class, userName);
                 session.persist(this);
-                session.getTransaction().commit();
-            }
+            });
         }
         products = basket.getProductsAsRecords()
                 .values().stream()
@@ -0,0 +1,114 @@
+package DataLayer;
+
+import DataLayer.ORM.DataOutboxEntry;
+import org.hibernate.Session;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The outbox is shared by all market instances through the DB, so due entries are claimed from the DB on every
+ * poll rather than cached. Entries are kept in memory only when nothing is persisted.
+ */
+public class OutboxRepo implements IOutboxRepo {
+    // long enough for a whole batch of supply orders to time out
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(10);
+    private static final int CLAIM_BATCH = 20;
+
+    private final String owner;
+    private final Map<Integer, DataOutboxEntry> entries;
+
+    public OutboxRepo() {
+        this.owner = UUID.randomUUID().toString();
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void addEntries(List<DataOutboxEntry> newEntries) {
+        DataOutboxEntry.persistAll(newEntries);
+        if (DbConfig.shouldPersist()) return;
+        for (DataOutboxEntry entry : newEntries)
+            entries.put(entry.getId(), entry);
+    }
+
+    @Override
+    public List<DataOutboxEntry> claimDueEntries(LocalDateTime now) {
+        LocalDateTime until = now.plus(CLAIM_LEASE);
+        if (!DbConfig.shouldPersist()) {
+            synchronized (entries) {
+                List<DataOutboxEntry> claimed = entries.values().stream()
+                        .filter(e -> e.isClaimable(now))
+                        .sorted(Comparator.comparing(DataOutboxEntry::getCreatedAt).thenComparing(DataOutboxEntry::getId))
+                        .limit(CLAIM_BATCH)
+                        .toList();
+                claimed.forEach(e -> e.claim(owner, until));
+                return claimed;
+            }
+        }
+
+        // the update only takes rows that are still unclaimed once it holds their locks,
+        // so of two instances claiming the same rows only one gets each row
+        return UnitOfWork.execute(session -> {
+            List<Integer> due = session.createQuery("SELECT e.id FROM DataOutboxEntry e " +
+                            "WHERE e.failed = false AND e.nextAttempt <= :now " +
+                            "AND (e.claimedUntil IS NULL OR e.claimedUntil < :now) " +
+                            "ORDER BY e.createdAt, e.id", Integer.class)
+                    .setParameter("now", now)
+                    .setMaxResults(CLAIM_BATCH)
+                    .list();
+            if (due.isEmpty()) return List.of();
+            session.createMutationQuery("UPDATE DataOutboxEntry e SET e.claimedBy = :owner, e.claimedUntil = :until " +
+                            "WHERE e.id IN :ids AND e.failed = false " +
+                            "AND (e.claimedUntil IS NULL OR e.claimedUntil < :now)")
+                    .setParameter("owner", owner)
+                    .setParameter("until", until)
+                    .setParameter("ids", due)
+                    .setParameter("now", now)
+                    .executeUpdate();
+            return session.createQuery("FROM DataOutboxEntry e WHERE e.id IN :ids AND e.claimedBy = :owner " +
+                            "AND e.claimedUntil >= :now ORDER BY e.createdAt, e.id", DataOutboxEntry.class)
+                    .setParameter("ids", due)
+                    .setParameter("owner", owner)
+                    .setParameter("now", now)
+                    .list();
+        });
+    }
+
+    @Override
+    public void update(DataOutboxEntry entry) {
+        entry.persist();
+    }
+
+    @Override
+    public void remove(DataOutboxEntry entry) {
+        entries.remove(entry.getId());
+        entry.remove();
+    }
+
+    @Override
+    public int getPendingCount() {
+        if (!DbConfig.shouldPersist())
+            return (int) entries.values().stream().filter(e -> !e.isFailed()).count();
+
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            return session.createQuery("SELECT COUNT(e) FROM DataOutboxEntry e WHERE e.failed = false", Long.class)
+                    .uniqueResult().intValue();
+        }
+    }
+
+    @Override
+    public void clean() {
+        if (DbConfig.shouldPersist())
+            try (Session session = DbConfig.getSessionFactory().openSession()) {
+                org.hibernate.Transaction transaction = session.beginTransaction();
+                session.createMutationQuery("DELETE FROM DataOutboxEntry").executeUpdate();
+                transaction.commit();
+            }
+        entries.clear();
+    }
+}
@@ -0,0 +1,322 @@
+package DataLayer;
+
+import DataLayer.ORM.DataSalesRollup;
+import DataLayer.ORM.DataTransaction;
+import Domain.MarketLogger;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import util.Records.StoreRecords.DailySales;
+import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.ProductSales;
+import util.Records.StoreRecords.SalesReport;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sales counters of every store per day: revenue, orders and units of the store, and units and revenue of each
+ * product, so sales reports never scan the transactions.
+ * When persisting, the counters live in the DB and are shared by all the market instances. Committed transactions
+ * are rolled up into them periodically, and reports add the few transactions that weren't rolled up yet.
+ */
+public class SalesRollup {
+    private static final long ROLL_UP_INTERVAL_MS = 10_000;
+    private static final int ROLL_UP_BATCH = 500;
+    private static final NavigableMap<LocalDate, DaySales> NO_SALES = Collections.emptyNavigableMap();
+
+    // sales of a store in a day, the product columns are sorted by product ID
+    private static class DaySales {
+        private double revenue;
+        private int orders;
+        private int units;
+        private int[] productIds = new int[4];
+        private int[] productUnits = new int[4];
+        private double[] productRevenue = new double[4];
+        private int products = 0;
+
+        private void addProduct(int productId, int units, double revenue) {
+            int i = Arrays.binarySearch(productIds, 0, products, productId);
+            if (i < 0) {
+                i = -i - 1;
+                if (products == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, products * 2);
+                    productUnits = Arrays.copyOf(productUnits, products * 2);
+                    productRevenue = Arrays.copyOf(productRevenue, products * 2);
+                }
+                System.arraycopy(productIds, i, productIds, i + 1, products - i);
+                System.arraycopy(productUnits, i, productUnits, i + 1, products - i);
+                System.arraycopy(productRevenue, i, productRevenue, i + 1, products - i);
+                productIds[i] = productId;
+                productUnits[i] = 0;
+                productRevenue[i] = 0;
+                products++;
+            }
+            productUnits[i] += units;
+            productRevenue[i] += revenue;
+        }
+
+        private void addRow(DataSalesRollup row) {
+            if (row.isStoreTotal()) {
+                revenue += row.getRevenue();
+                orders += row.getOrders();
+                units += row.getUnits();
+            } else {
+                addProduct(row.getProductId(), row.getUnits(), row.getRevenue());
+            }
+        }
+
+        private List<DataSalesRollup> toRows(int storeId, LocalDate day) {
+            List<DataSalesRollup> rows = new ArrayList<>(products + 1);
+            rows.add(new DataSalesRollup(storeId, day, DataSalesRollup.STORE_TOTAL, revenue, orders, units));
+            for (int i = 0; i < products; i++)
+                rows.add(new DataSalesRollup(storeId, day, productIds[i], productRevenue[i], 0, productUnits[i]));
+            return rows;
+        }
+    }
+
+    // running sums of a report
+    private static class Totals {
+        private double revenue;
+        private int orders;
+        private int units;
+    }
+
+    // the counters when not persisting
+    private final Map<Integer, NavigableMap<LocalDate, DaySales>> stores = new ConcurrentHashMap<>(); // <store ID, sales by day>
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Counts a new transaction. A persisted transaction isn't counted here, since the DB transaction that
+     * creates it may still roll back, it is rolled up from its row once it is committed.
+     *
+     * @param products the lines of the transaction, priced per unit after discounts.
+     */
+    public void added(DataTransaction transaction, Collection<ProductRecord> products) {
+        if (DbConfig.shouldPersist()) {
+            startIfNeeded();
+            return;
+        }
+        count(stores, transaction.getStoreID(), transaction.getTime(), transaction.getPrice(), products);
+    }
+
+    /**
+     * @param from first day of the report, or null.
+     * @param to last day of the report, or null.
+     * @param bestSellers number of best selling products to report.
+     */
+    public SalesReport getStoreReport(int storeId, LocalDate from, LocalDate to, int bestSellers) {
+        if (DbConfig.shouldPersist()) {
+            startIfNeeded();
+            return report(readPersisted(storeId, from, to), from, to, bestSellers);
+        }
+        return report(Map.of(storeId, stores.getOrDefault(storeId, NO_SALES)), from, to, bestSellers);
+    }
+
+    /**
+     * Like {@link #getStoreReport}, over the sales of all the stores.
+     */
+    public SalesReport getMarketReport(LocalDate from, LocalDate to, int bestSellers) {
+        if (DbConfig.shouldPersist()) {
+            startIfNeeded();
+            return report(readPersisted(null, from, to), from, to, bestSellers);
+        }
+        return report(stores, from, to, bestSellers);
+    }
+
+    /**
+     * Rolls up the committed transactions that weren't counted yet, a batch per DB transaction.
+     * The counters are incremented and the transactions marked as counted in the same DB transaction,
+     * and transactions being rolled up by another instance are skipped, so each one is counted exactly once.
+     */
+    public synchronized void flush() {
+        if (!DbConfig.shouldPersist()) return;
+
+        try {
+            int rolledUp;
+            do {
+                rolledUp = rollUpBatch();
+            } while (rolledUp == ROLL_UP_BATCH);
+        } catch (Exception e) {
+            // the failed batch was rolled back and is counted by the next flush
+            MarketLogger.logError("SalesRollup", "flush",
+                    "Error msg: %s. could not roll up the new transactions", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the counters kept when not persisting. The persisted ones are removed by the owner of the table.
+     */
+    public void clear() {
+        stores.clear();
+    }
+
+    private static int rollUpBatch() {
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            session.beginTransaction();
+            try {
+                List<DataTransaction> batch = session.createQuery(
+                                "FROM DataTransaction t WHERE t.rolledUp = false ORDER BY t.id", DataTransaction.class)
+                        .setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED)
+                        .setMaxResults(ROLL_UP_BATCH)
+                        .list();
+                if (batch.isEmpty()) {
+                    session.getTransaction().rollback();
+                    return 0;
+                }
+
+                // rows are incremented in key order, so concurrent roll ups lock them in the same order
+                Map<Integer, NavigableMap<LocalDate, DaySales>> sales = new TreeMap<>();
+                for (DataTransaction transaction : batch)
+                    count(sales, transaction);
+                for (Map.Entry<Integer, NavigableMap<LocalDate, DaySales>> store : sales.entrySet())
+                    for (Map.Entry<LocalDate, DaySales> day : store.getValue().entrySet())
+                        for (DataSalesRollup row : day.getValue().toRows(store.getKey(), day.getKey()))
+                            row.addTo(session);
+                session.createMutationQuery("UPDATE DataTransaction t SET t.rolledUp = true WHERE t.id IN :ids")
+                        .setParameter("ids", batch.stream().map(DataTransaction::getId).toList())
+                        .executeUpdate();
+                session.getTransaction().commit();
+                return batch.size();
+            } catch (RuntimeException e) {
+                if (session.getTransaction().isActive())
+                    session.getTransaction().rollback();
+                throw e;
+            }
+        }
+    }
+
+    // the persisted counters plus the transactions that weren't rolled up yet, read from a single snapshot so a
+    // roll up committing while they are read is seen either entirely or not at all
+    private static Map<Integer, NavigableMap<LocalDate, DaySales>> readPersisted(Integer storeId, LocalDate from, LocalDate to) {
+        Map<Integer, NavigableMap<LocalDate, DaySales>> sales = new HashMap<>();
+        if (from != null && to != null && from.isAfter(to))
+            return sales;
+
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            session.beginTransaction();
+            try {
+                session.createNativeMutationQuery("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ, READ ONLY")
+                        .executeUpdate();
+                Query<DataSalesRollup> rows = session.createQuery("FROM DataSalesRollup r WHERE "
+                        + (storeId == null ? "1 = 1" : "r.key.storeId = :storeId")
+                        + (from == null ? "" : " AND r.key.day >= :from")
+                        + (to == null ? "" : " AND r.key.day <= :to"), DataSalesRollup.class);
+                Query<DataTransaction> pending = session.createQuery("FROM DataTransaction t WHERE t.rolledUp = false"
+                        + (storeId == null ? "" : " AND t.storeID = :storeId")
+                        + (from == null ? "" : " AND t.time >= :from")
+                        + (to == null ? "" : " AND t.time < :to"), DataTransaction.class);
+                if (storeId != null) {
+                    rows.setParameter("storeId", storeId);
+                    pending.setParameter("storeId", storeId);
+                }
+                if (from != null) {
+                    rows.setParameter("from", from);
+                    pending.setParameter("from", from.atStartOfDay());
+                }
+                if (to != null) {
+                    rows.setParameter("to", to);
+                    pending.setParameter("to", to.plusDays(1).atStartOfDay());
+                }
+
+                for (DataSalesRollup row : rows.list())
+                    sales.computeIfAbsent(row.getStoreId(), id -> new TreeMap<>())
+                            .computeIfAbsent(row.getDay(), date -> new DaySales())
+                            .addRow(row);
+                for (DataTransaction transaction : pending.list())
+                    count(sales, transaction);
+            } finally {
+                session.getTransaction().rollback();
+            }
+        }
+        return sales;
+    }
+
+    private static void count(Map<Integer, NavigableMap<LocalDate, DaySales>> sales, DataTransaction transaction) {
+        count(sales, transaction.getStoreID(), transaction.getTime(), transaction.getPrice(),
+                transaction.getAsTransaction().storeBasket().getProductsAsRecords().values());
+    }
+
+    private static void count(Map<Integer, NavigableMap<LocalDate, DaySales>> sales, int storeId, LocalDateTime time,
+                              double price, Collection<ProductRecord> products) {
+        DaySales day = sales.computeIfAbsent(storeId, id -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(time.toLocalDate(), date -> new DaySales());
+        synchronized (day) {
+            day.revenue += price;
+            day.orders++;
+            for (ProductRecord product : products) {
+                day.units += product.quantity();
+                day.addProduct(product.productId(), product.quantity(), product.priceAfterDiscount() * product.quantity());
+            }
+        }
+    }
+
+    private void startIfNeeded() {
+        if (scheduler != null) return;
+        synchronized (this) {
+            if (scheduler != null) return;
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "sales-rollup-final-flush"));
+            ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sales-rollup-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // transactions left from a previous run are rolled up by the first flush
+            started.scheduleWithFixedDelay(this::flush, 0, ROLL_UP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            scheduler = started;
+        }
+    }
+
+    private static SalesReport report(Map<Integer, NavigableMap<LocalDate, DaySales>> selected, LocalDate from, LocalDate to,
+                                      int bestSellers) {
+        Totals total = new Totals();
+        NavigableMap<LocalDate, Totals> days = new TreeMap<>();
+        Map<Long, Totals> products = new HashMap<>(); // <store_id:product_id, sales>
+        if (from == null || to == null || !from.isAfter(to)) {
+            for (Map.Entry<Integer, NavigableMap<LocalDate, DaySales>> store : selected.entrySet()) {
+                NavigableMap<LocalDate, DaySales> storeDays = store.getValue().subMap(
+                        from == null ? LocalDate.MIN : from, true, to == null ? LocalDate.MAX : to, true);
+                for (Map.Entry<LocalDate, DaySales> entry : storeDays.entrySet()) {
+                    DaySales day = entry.getValue();
+                    Totals dayTotal = days.computeIfAbsent(entry.getKey(), date -> new Totals());
+                    synchronized (day) {
+                        dayTotal.revenue += day.revenue;
+                        dayTotal.orders += day.orders;
+                        dayTotal.units += day.units;
+                        for (int i = 0; i < day.products; i++) {
+                            Totals product = products.computeIfAbsent(
+                                    ((long) store.getKey() << 32) | (day.productIds[i] & 0xFFFFFFFFL), key -> new Totals());
+                            product.units += day.productUnits[i];
+                            product.revenue += day.productRevenue[i];
+                        }
+                    }
+                }
+            }
+        }
+
+        List<DailySales> daily = new ArrayList<>(days.size());
+        for (Map.Entry<LocalDate, Totals> day : days.entrySet()) {
+            Totals sums = day.getValue();
+            daily.add(new DailySales(day.getKey(), sums.revenue, sums.orders, sums.units));
+            total.revenue += sums.revenue;
+            total.orders += sums.orders;
+            total.units += sums.units;
+        }
+        List<ProductSales> best = products.entrySet().stream()
+                .map(entry -> new ProductSales((int) (entry.getKey() >>> 32), (int) (long) entry.getKey(),
+                        entry.getValue().units, entry.getValue().revenue))
+                .sorted(Comparator.comparingInt(ProductSales::units).reversed()
+                        .thenComparing(Comparator.comparingDouble(ProductSales::revenue).reversed())
+                        .thenComparingInt(ProductSales::storeId)
+                        .thenComparingInt(ProductSales::productId))
+                .limit(Math.max(bestSellers, 0))
+                .toList();
+        return new SalesReport(from, to, total.revenue, total.orders, total.units, daily, best);
+    }
+}
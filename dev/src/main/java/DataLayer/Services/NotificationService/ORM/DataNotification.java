@@ -1,12 +1,12 @@
 package DataLayer.Services.NotificationService.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.UnitOfWork;
 import DataLayer.ORM.DataPermission;
 import jakarta.persistence.Column;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
-import org.hibernate.Session;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.Type;
 import util.Records.NotificationRecord;
@@ -34,11 +34,7 @@ public class DataNotification implements Comparable<DataNotification>{
         sending_time = notification.sendingTime();
         msg = notification.message();
         if (DbConfig.shouldPersist()) {
-            try (Session session = DbConfig.getSessionFactory().openSession()) {
-                session.beginTransaction();
-                session.persist(this);
-                session.getTransaction().commit();
-            }
+            UnitOfWork.executeVoid(session -> session.persist(this));
         }
     }
 
@@ -73,13 +69,11 @@ public class DataNotification implements Comparable<DataNotification>{
     public NotificationRecord remove() {
         if (!DbConfig.shouldPersist()) return getAsRecord();
 
-        try (Session session = DbConfig.getSessionFactory().openSession()) {
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataNotification toRemove = session.get(DataNotification.class, getId());
-            if (toRemove == null) return getAsRecord();
+            if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
         return getAsRecord();
     }
 
@@ -0,0 +1,50 @@
+package DataLayer;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one load per key at a time. Callers that miss on a key while it is being loaded wait for that
+ * load and share its result, while loads of different keys run in parallel.
+ * The loader should put its result in the cache of the caller, and check it first, since a caller that
+ * missed just before a load completed starts a new one.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LoadMetrics metrics = new LoadMetrics();
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            metrics.shared();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause)
+                    throw cause;
+                throw e;
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+            metrics.loaded(System.nanoTime() - start);
+        }
+    }
+
+    public LoadMetrics getMetrics() {
+        return metrics;
+    }
+}
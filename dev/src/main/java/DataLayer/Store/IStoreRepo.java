@@ -2,6 +2,7 @@ package DataLayer.Store;
 
 import Domain.Store.IStore;
 import util.Exceptions.NonExistentData;
+import util.Records.LoadStats;
 import util.Records.StoreRecords.StoreRecord;
 
 import java.util.List;
@@ -15,6 +16,14 @@ public interface IStoreRepo {
    */
   public List<IStore> getStores();
 
+  /**
+   * Loads all the stores that aren't loaded yet, so requests don't pull them one by one.
+   * Does nothing when the data isn't persisted.
+   *
+   * @return Whether all the stores were loaded. Stores that failed to load are loaded when first requested.
+   */
+  public boolean warmUp();
+
   /**
    * Retrieves a store with the specified ID.
    *
@@ -38,5 +47,11 @@ public interface IStoreRepo {
    */
   public void removeStore(int storeId) throws NonExistentData;
 
+  /**
+   * @return counts and times of the stores loaded from the database, and of the lookups that waited for a load
+   * of the same store instead of starting their own
+   */
+  LoadStats getLoadStats();
+
   Map<Integer, IStore> getStoreMap();
 }
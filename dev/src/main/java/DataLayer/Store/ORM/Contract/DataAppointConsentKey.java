@@ -1,10 +1,10 @@
 package DataLayer.Store.ORM.Contract;
 
+import DataLayer.UnitOfWork;
 import DataLayer.DbConfig;
 import DataLayer.Store.ORM.DataOffer;
 import DataLayer.User.ORM.DataMember;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 import java.io.Serializable;
 
@@ -24,9 +24,7 @@ public class DataAppointConsentKey implements Serializable {
     public DataAppointConsentKey(DataAppointment appointment, String owner) {
         this.appointment = appointment;
         if (DbConfig.shouldPersist()) {
-            try (Session session = DbConfig.getSessionFactory().openSession()){
-                this.owner = session.get(DataMember.class, owner);
-            }
+            this.owner = UnitOfWork.execute(session -> session.get(DataMember.class, owner));
         }
     }
 
@@ -1,6 +1,8 @@
 package DataLayer.Store.ORM.Contract;
 
 import DataLayer.DbConfig;
+import DataLayer.IdAllocator;
+import DataLayer.UnitOfWork;
 import DataLayer.Store.ORM.DataOffer;
 import DataLayer.Store.ORM.DataOfferConsent;
 import DataLayer.Store.ORM.DataProduct;
@@ -8,8 +10,6 @@ import DataLayer.Store.ORM.DataStore;
 import DataLayer.User.ORM.DataMember;
 import Domain.Store.OwnerAppointmentContract;
 import jakarta.persistence.*;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -17,12 +17,12 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Entity
 @Table(name = "Contract")
 public class DataAppointment {
-    private static final AtomicInteger ID_COUNTER = new AtomicInteger(0);
+    private static final IdAllocator IDS = IdAllocator.of("appointment", session ->
+            session.createQuery("SELECT MAX(a.id) FROM DataAppointment a", Integer.class).uniqueResult());
 
     @Id
     private int id;
@@ -45,30 +45,14 @@ public class DataAppointment {
     }
 
     public DataAppointment(int storeId, String assigningOwner, String newOwner, String contract, Set<String> ownersToConsent) {
-        if (ID_COUNTER.get() == 0)
-            synchronized (ID_COUNTER) {
-                if (ID_COUNTER.get() == 0) {
-                    if (!DbConfig.shouldPersist())
-                        ID_COUNTER.incrementAndGet();
-                    else
-                        try (Session session = DbConfig.getSessionFactory().openSession()) {
-                            Query<Integer> query = session.createQuery(
-                                    "SELECT MAX(o.key.id) FROM DataOffer o",
-                                    Integer.class
-                            );
-                            Integer maxID = query.uniqueResult();
-                            ID_COUNTER.getAndSet(maxID == null ? 1 : maxID + 1);
-                        }
-                }
-            }
-        this.id = ID_COUNTER.getAndIncrement();
+        this.id = IDS.next();
         this.contract = contract;
         if (DbConfig.shouldPersist()) {
-            try (Session session = DbConfig.getSessionFactory().openSession()){
+            UnitOfWork.executeVoid(session -> {
                 this.store = session.get(DataStore.class, storeId);
                 this.assigner = session.get(DataMember.class, assigningOwner);
                 this.assignee = session.get(DataMember.class, newOwner);
-            }
+            });
         }
         this.consents = new ConcurrentHashMap<>();
         if (DbConfig.shouldPersist())
@@ -112,27 +96,23 @@ public class DataAppointment {
     public DataAppointment persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        return UnitOfWork.execute(session -> {
             DataAppointment updated = session.get(DataAppointment.class, getId());
             if (updated == null) updated = this;
             updated.setContract(getContract());
             session.persist(updated);
-            session.getTransaction().commit();
             return updated;
-        }
+        });
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataAppointment toRemove = session.get(DataAppointment.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 
     public void updateConsent(String userName, boolean isConsent) {
@@ -1,19 +1,19 @@
 package DataLayer.Store.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.IdAllocator;
+import DataLayer.UnitOfWork;
 import Domain.Store.Category;
 import Domain.Store.Conditions.Condition;
 import jakarta.persistence.*;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
 
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Entity
 @Table(name = "Condition")
 @Inheritance(strategy = InheritanceType.JOINED)
 public abstract class DataCondition {
-    private static final AtomicInteger ID_COUNTER = new AtomicInteger(0);
+    private static final IdAllocator IDS = IdAllocator.of("condition", session ->
+            session.createQuery("SELECT MAX(o.id) FROM DataCondition o", Integer.class).uniqueResult());
 
     @Id
     private int id;
@@ -30,23 +30,7 @@ public abstract class DataCondition {
     }
 
     public DataCondition(Condition.ConditionType conditionType, int quantity, double price, int productID, Category category) {
-        if (ID_COUNTER.get() == 0)
-            synchronized (ID_COUNTER) {
-                if (ID_COUNTER.get() == 0) {
-                    if (!DbConfig.shouldPersist())
-                        ID_COUNTER.incrementAndGet();
-                    else
-                        try (Session session = DbConfig.getSessionFactory().openSession()) {
-                            Query<Integer> query = session.createQuery(
-                                    "SELECT MAX(o.id) FROM DataCondition o",
-                                    Integer.class
-                            );
-                            Integer maxID = query.uniqueResult();
-                            ID_COUNTER.getAndSet(maxID == null ? 1 : maxID + 1);
-                        }
-                }
-            }
-        this.id = ID_COUNTER.getAndIncrement();
+        this.id = IDS.next();
         this.conditionType = conditionType;
         this.quantity = quantity;
         this.price = price;
@@ -81,12 +65,10 @@ public abstract class DataCondition {
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataCondition toRemove = session.get(DataCondition.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
@@ -1,11 +1,11 @@
 package DataLayer.Store.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.UnitOfWork;
 import DataLayer.Store.ORM.Discount.DataDiscount;
 import Domain.Store.Category;
 import Domain.Store.Conditions.Condition;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 @Entity
 @Table(name = "Discount_Condition")
@@ -20,11 +20,7 @@ public class DataConditionDiscount extends DataCondition {
         super(conditionType, quantity, price, productID, category);
         this.discount = discount;
         if (DbConfig.shouldPersist())
-            try (Session session = DbConfig.getSessionFactory().openSession()) {
-                session.beginTransaction();
-                session.persist(this);
-                session.getTransaction().commit();
-            }
+            UnitOfWork.executeVoid(session -> session.persist(this));
     }
 
     public DataDiscount getDiscount() {
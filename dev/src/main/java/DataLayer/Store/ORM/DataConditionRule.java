@@ -1,10 +1,10 @@
 package DataLayer.Store.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.UnitOfWork;
 import Domain.Store.Category;
 import Domain.Store.Conditions.Condition;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 @Entity
 @Table(name = "Rule_Condition")
@@ -20,11 +20,7 @@ public class DataConditionRule extends DataCondition {
         super(conditionType, quantity, price, productID, category);
         this.purchaseRule = purchaseRule;
         if (DbConfig.shouldPersist())
-            try (Session session = DbConfig.getSessionFactory().openSession()) {
-                session.beginTransaction();
-                session.persist(this);
-                session.getTransaction().commit();
-            }
+            UnitOfWork.executeVoid(session -> session.persist(this));
     }
 
     public DataPurchaseRule getPurchaseRule() {
@@ -1,9 +1,10 @@
 package DataLayer.Store.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import DataLayer.User.ORM.DataMember;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 import util.Records.StoreRecords.ProductRecord;
 
 import java.time.LocalDateTime;
@@ -30,6 +31,9 @@ public class DataOffer {
     @MapKey(name = "owner")
     private Map<String, DataOfferConsent> consents; //will be filled only if DbConfig.shouldPersist()
 
+    @Transient
+    private final DirtyFields dirtyFields = new DirtyFields();
+
     public  DataOffer(){
     }
 
@@ -58,6 +62,7 @@ public class DataOffer {
     }
 
     public void setOfferedPrice(double offeredPrice) {
+        dirtyFields.changed("offeredPrice", this.offeredPrice, offeredPrice);
         this.offeredPrice = offeredPrice;
     }
 
@@ -66,6 +71,7 @@ public class DataOffer {
     }
 
     public void setOfferedQuantity(int offeredQuantity) {
+        dirtyFields.changed("offeredQuantity", this.offeredQuantity, offeredQuantity);
         this.offeredQuantity = offeredQuantity;
     }
 
@@ -74,6 +80,7 @@ public class DataOffer {
     }
 
     public void setTimeOfOffer(LocalDateTime timeOfOffer) {
+        dirtyFields.changed("timeOfOffer", this.timeOfOffer, timeOfOffer);
         this.timeOfOffer = timeOfOffer;
     }
 
@@ -85,32 +92,30 @@ public class DataOffer {
         return key;
     }
 
+    @PostLoad
+    @PostPersist
+    private void stored() {
+        dirtyFields.stored();
+    }
+
     public DataOffer persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
-            DataOffer updated = session.get(DataOffer.class, getId());
-            if (updated == null) updated = this;
-            updated.setOfferedPrice(getOfferedPrice());
-            updated.setOfferedQuantity(getOfferedQuantity());
-            updated.setTimeOfOffer(getTimeOfOffer());
-            session.persist(updated);
-            session.getTransaction().commit();
-            return updated;
-        }
+        if (dirtyFields.isStored())
+            dirtyFields.flush(this, "key", getId());
+        else
+            UnitOfWork.executeVoid(session -> session.persist(this));
+        return this;
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataOffer toRemove = session.get(DataOffer.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 
     public void update(double newPrice, int newQuantity) {
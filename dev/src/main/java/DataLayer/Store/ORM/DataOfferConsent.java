@@ -2,11 +2,15 @@ package DataLayer.Store.ORM;
 
 
 import DataLayer.DbConfig;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import jakarta.persistence.Column;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
-import org.hibernate.Session;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
 
 @Entity
 @Table(name = "Offer_Consent")
@@ -20,6 +24,9 @@ public class DataOfferConsent {
     @Column(name = "consent_state")
     private boolean isConsent;
 
+    @Transient
+    private final DirtyFields dirtyFields = new DirtyFields();
+
     public DataOfferConsent() {
     }
 
@@ -42,36 +49,37 @@ public class DataOfferConsent {
     }
 
     public void setConsent(boolean consent) {
-        isConsent = consent;
+        dirtyFields.changed("isConsent", this.isConsent, consent);
+        this.isConsent = consent;
     }
 
     public Object getId(){
         return key;
     }
 
+    @PostLoad
+    @PostPersist
+    private void stored() {
+        dirtyFields.stored();
+    }
+
     public DataOfferConsent persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
-            DataOfferConsent updated = session.get(DataOfferConsent.class, getId());
-            if (updated == null) updated = this;
-            updated.setConsent(isConsent());
-            session.persist(updated);
-            session.getTransaction().commit();
-            return updated;
-        }
+        if (dirtyFields.isStored())
+            dirtyFields.flush(this, "key", getId());
+        else
+            UnitOfWork.executeVoid(session -> session.persist(this));
+        return this;
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataOfferConsent toRemove = session.get(DataOfferConsent.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
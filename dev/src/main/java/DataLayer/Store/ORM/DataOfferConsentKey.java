@@ -1,9 +1,9 @@
 package DataLayer.Store.ORM;
 
+import DataLayer.UnitOfWork;
 import DataLayer.DbConfig;
 import DataLayer.User.ORM.DataMember;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 import java.io.Serializable;
 
@@ -29,9 +29,7 @@ public class DataOfferConsentKey implements Serializable {
     public DataOfferConsentKey(DataOffer dataOffer, String owner) {
         offer = dataOffer;
         if (DbConfig.shouldPersist()) {
-            try (Session session = DbConfig.getSessionFactory().openSession()){
-                this.owner = session.get(DataMember.class, owner);
-            }
+            this.owner = UnitOfWork.execute(session -> session.get(DataMember.class, owner));
         }
     }
 
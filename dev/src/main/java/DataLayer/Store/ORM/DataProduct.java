@@ -1,10 +1,11 @@
 package DataLayer.Store.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import DataLayer.User.ORM.DataBaskedProduct;
 import Domain.Store.Category;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 import java.util.List;
 import java.util.Map;
@@ -18,6 +19,8 @@ public class DataProduct {
     private double price;
     @Enumerated(EnumType.STRING)
     private Category category;
+    // written only by the ProductQuantityFlusher, so flushing a stale entity never overwrites the stock
+    @Column(updatable = false)
     private int quantity;
     private double rating;
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "key.product")
@@ -26,6 +29,9 @@ public class DataProduct {
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "key.product")
     private List<DataBaskedProduct> products;
 
+    @Transient
+    private final DirtyFields dirtyFields = new DirtyFields();
+
     public DataProduct() {
     }
 
@@ -47,6 +53,7 @@ public class DataProduct {
     }
 
     public void setName(String name) {
+        dirtyFields.changed("name", this.name, name);
         this.name = name;
     }
 
@@ -55,6 +62,7 @@ public class DataProduct {
     }
 
     public void setPrice(double price) {
+        dirtyFields.changed("price", this.price, price);
         this.price = price;
     }
 
@@ -63,22 +71,21 @@ public class DataProduct {
     }
 
     public void setCategory(Category category) {
+        dirtyFields.changed("category", this.category, category);
         this.category = category;
     }
 
+    // the quantity when the product was loaded or created, the current stock is kept by the product
     public int getQuantity() {
         return quantity;
     }
 
-    public void setQuantity(int quantity) {
-        this.quantity = quantity;
-    }
-
     public double getRating() {
         return rating;
     }
 
     public void setRating(double rating) {
+        dirtyFields.changed("rating", this.rating, rating);
         this.rating = rating;
     }
 
@@ -90,33 +97,29 @@ public class DataProduct {
         return key;
     }
 
+    @PostLoad
+    @PostPersist
+    private void stored() {
+        dirtyFields.stored();
+    }
+
     public DataProduct persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
-            DataProduct updated = session.get(DataProduct.class, getId());
-            if (updated == null) updated = this;
-            updated.setName(getName());
-            updated.setPrice(getPrice());
-            updated.setCategory(getCategory());
-            updated.setQuantity(getQuantity());
-            updated.setRating(getRating());
-            session.persist(updated);
-            session.getTransaction().commit();
-            return updated;
-        }
+        if (dirtyFields.isStored())
+            dirtyFields.flush(this, "key", getId());
+        else
+            UnitOfWork.executeVoid(session -> session.persist(this));
+        return this;
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataProduct toRemove = session.get(DataProduct.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
@@ -1,19 +1,19 @@
 package DataLayer.Store.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.IdAllocator;
+import DataLayer.UnitOfWork;
 import Domain.Store.Conditions.Condition;
 import Domain.Store.Purchase.PurchaseRule;
 import jakarta.persistence.*;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
 
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Entity
 @Table(name = "Purchase_Rule")
 public class DataPurchaseRule {
-    private static final AtomicInteger ID_COUNTER = new AtomicInteger(0);
+    private static final IdAllocator IDS = IdAllocator.of("purchase_rule", session ->
+            session.createQuery("SELECT MAX(o.id) FROM DataPurchaseRule o", Integer.class).uniqueResult());
 
     @Id
     private int id;
@@ -29,32 +29,12 @@ public class DataPurchaseRule {
     }
 
     public DataPurchaseRule(DataStore store, PurchaseRule.PurchaseType purchaseType) {
-        if (ID_COUNTER.get() == 0)
-            synchronized (ID_COUNTER) {
-                if (ID_COUNTER.get() == 0) {
-                    if (!DbConfig.shouldPersist())
-                        ID_COUNTER.incrementAndGet();
-                    else
-                        try (Session session = DbConfig.getSessionFactory().openSession()) {
-                            Query<Integer> query = session.createQuery(
-                                    "SELECT MAX(o.id) FROM DataPurchaseRule o",
-                                    Integer.class
-                            );
-                            Integer maxID = query.uniqueResult();
-                            ID_COUNTER.getAndSet(maxID == null ? 1 : maxID + 1);
-                        }
-                }
-            }
-        this.id = ID_COUNTER.getAndIncrement();
+        this.id = IDS.next();
         this.purchaseType = purchaseType;
         this.store = store;
 
         if (DbConfig.shouldPersist())
-            try (Session session = DbConfig.getSessionFactory().openSession()) {
-                session.beginTransaction();
-                session.persist(this);
-                session.getTransaction().commit();
-            }
+            UnitOfWork.executeVoid(session -> session.persist(this));
     }
 
     public int getId() {
@@ -76,12 +56,10 @@ public class DataPurchaseRule {
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataPurchaseRule toRemove = session.get(DataPurchaseRule.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
@@ -1,6 +1,9 @@
 package DataLayer.Store.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.IdAllocator;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import DataLayer.ORM.DataPermission;
 import DataLayer.ORM.DataTransaction;
 import DataLayer.Store.ORM.Contract.DataAppointment;
@@ -9,18 +12,16 @@ import DataLayer.User.ORM.DataBasket;
 import DataLayer.User.ORM.DataMember;
 import jakarta.persistence.*;
 import jakarta.persistence.criteria.CriteriaBuilder;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Entity
 @Table(name = "Store")
 public class DataStore {
-    private static final AtomicInteger ID_COUNTER = new AtomicInteger(0);
+    private static final IdAllocator IDS = IdAllocator.of("store", session ->
+            session.createQuery("SELECT MAX(s.id) FROM DataStore s", Integer.class).uniqueResult());
 
     @Id
     private Integer id;
@@ -54,6 +55,9 @@ public class DataStore {
     @MapKey(name = "id")
     private Map<Integer, DataDiscount> discounts;
 
+    @Transient
+    private final DirtyFields dirtyFields = new DirtyFields();
+
     public DataStore(){
     }
 
@@ -62,23 +66,7 @@ public class DataStore {
         this.description = description;
         this.rating = rating;
         this.active_state = active_state;
-        if (ID_COUNTER.get() == 0)
-            synchronized (ID_COUNTER) {
-                if (ID_COUNTER.get() == 0) {
-                    if (!DbConfig.shouldPersist())
-                        ID_COUNTER.incrementAndGet();
-                    else
-                        try (Session session = DbConfig.getSessionFactory().openSession()) {
-                            Query<Integer> query = session.createQuery(
-                                    "SELECT MAX(s.id) FROM DataStore s",
-                                    Integer.class
-                            );
-                            Integer maxID = query.uniqueResult();
-                            ID_COUNTER.getAndSet(maxID == null ? 1 : maxID + 1);
-                        }
-                }
-            }
-        this.id = ID_COUNTER.getAndIncrement();
+        this.id = IDS.next();
     }
 
     public Integer getId() {
@@ -90,6 +78,7 @@ public class DataStore {
     }
 
     public void setName(String name) {
+        dirtyFields.changed("name", this.name, name);
         this.name = name;
     }
 
@@ -98,6 +87,7 @@ public class DataStore {
     }
 
     public void setDescription(String description) {
+        dirtyFields.changed("description", this.description, description);
         this.description = description;
     }
 
@@ -106,6 +96,7 @@ public class DataStore {
     }
 
     public void setRating(double rating) {
+        dirtyFields.changed("rating", this.rating, rating);
         this.rating = rating;
     }
 
@@ -114,6 +105,7 @@ public class DataStore {
     }
 
     public void setActive_state(boolean active_state) {
+        dirtyFields.changed("active_state", this.active_state, active_state);
         this.active_state = active_state;
     }
 
@@ -137,32 +129,29 @@ public class DataStore {
         return discounts;
     }
 
+    @PostLoad
+    @PostPersist
+    private void stored() {
+        dirtyFields.stored();
+    }
+
     public DataStore persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
-            DataStore updated = session.get(DataStore.class, getId());
-            if (updated == null) updated = this;
-            updated.setName(getName());
-            updated.setDescription(getDescription());
-            updated.setRating(getRating());
-            updated.setActive_state(isActive_state());
-            session.persist(updated);
-            session.getTransaction().commit();
-            return updated;
-        }
+        if (dirtyFields.isStored())
+            dirtyFields.flush(this, "id", getId());
+        else
+            UnitOfWork.executeVoid(session -> session.persist(this));
+        return this;
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataStore toRemove = session.get(DataStore.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
@@ -1,22 +1,22 @@
 package DataLayer.Store.ORM.Discount;
 
 import DataLayer.DbConfig;
+import DataLayer.IdAllocator;
+import DataLayer.UnitOfWork;
 import DataLayer.Store.ORM.DataConditionDiscount;
 import DataLayer.Store.ORM.DataStore;
 import Domain.Store.Discount.IDiscount;
 import jakarta.persistence.*;
-import org.hibernate.Session;
-import org.hibernate.query.Query;
 
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Entity
 @Table(name = "Discount")
 @Inheritance(strategy = InheritanceType.JOINED)
 public abstract class DataDiscount {
 
-    private static final AtomicInteger ID_COUNTER = new AtomicInteger(0);
+    private static final IdAllocator IDS = IdAllocator.of("discount", session ->
+            session.createQuery("SELECT MAX(o.id) FROM DataDiscount o", Integer.class).uniqueResult());
 
     @Id
     private int id;
@@ -35,23 +35,7 @@ public abstract class DataDiscount {
     }
 
     public DataDiscount(DataStore store) {
-        if (ID_COUNTER.get() == 0)
-            synchronized (ID_COUNTER) {
-                if (ID_COUNTER.get() == 0) {
-                    if (!DbConfig.shouldPersist())
-                        ID_COUNTER.incrementAndGet();
-                    else
-                        try (Session session = DbConfig.getSessionFactory().openSession()) {
-                            Query<Integer> query = session.createQuery(
-                                    "SELECT MAX(o.id) FROM DataDiscount o",
-                                    Integer.class
-                            );
-                            Integer maxID = query.uniqueResult();
-                            ID_COUNTER.getAndSet(maxID == null ? 1 : maxID + 1);
-                        }
-                }
-            }
-        this.id = ID_COUNTER.getAndIncrement();
+        this.id = IDS.next();
         this.store = store;
     }
 
@@ -82,29 +66,25 @@ public abstract class DataDiscount {
     public DataDiscount persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        return UnitOfWork.execute(session -> {
             DataDiscount updated = session.get(DataDiscount.class, getId());
             if (updated == null) updated = this;
             if (father != null)
                 updated.setFather(session.get(DataCompositeDiscount.class, father.getId()));
             updated.setStore(getStore());
             session.persist(updated);
-            session.getTransaction().commit();
             return updated;
-        }
+        });
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataDiscount toRemove = session.get(DataDiscount.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 
     public abstract IDiscount recover();
@@ -0,0 +1,105 @@
+package DataLayer.Store;
+
+import DataLayer.DbConfig;
+import Domain.MarketLogger;
+import org.hibernate.Session;
+import org.hibernate.query.MutationQuery;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Write-behind for product stock.
+ * Products report a changed quantity with markDirty and the flusher writes the latest quantity of every
+ * dirty product in one DB transaction, so many changes to the same product between two flushes cost a single update.
+ * The quantity is read when the flush runs, so the last flush always writes the most recent value.
+ */
+public class ProductQuantityFlusher {
+    private static final long FLUSH_INTERVAL_MS = 200;
+
+    private final Map<Long, DirtyProduct> dirty = new ConcurrentHashMap<>(); // <store_id:product_id, product>
+    private volatile ScheduledExecutorService scheduler;
+
+    private record DirtyProduct(int storeId, int productId, IntSupplier quantity) {
+    }
+
+    private ProductQuantityFlusher() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "product-quantity-final-flush"));
+    }
+
+    private static class Holder {
+        private static final ProductQuantityFlusher INSTANCE = new ProductQuantityFlusher();
+    }
+
+    public static ProductQuantityFlusher getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Schedules a write of the product's quantity.
+     *
+     * @param quantity supplies the current quantity of the product when the flush runs.
+     */
+    public void markDirty(int storeId, int productId, IntSupplier quantity) {
+        if (!DbConfig.shouldPersist()) return;
+
+        dirty.put(((long) storeId << 32) | (productId & 0xFFFFFFFFL), new DirtyProduct(storeId, productId, quantity));
+        startIfNeeded();
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Writes the quantities of all dirty products.
+     * Products that become dirty while the flush runs are written in the next flush.
+     */
+    public synchronized void flush() {
+        if (dirty.isEmpty() || !DbConfig.shouldPersist()) return;
+
+        Map<Long, DirtyProduct> batch = new HashMap<>();
+        for (Long key : dirty.keySet()) {
+            DirtyProduct product = dirty.remove(key);
+            if (product != null)
+                batch.put(key, product);
+        }
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            session.beginTransaction();
+            MutationQuery update = session.createMutationQuery(
+                    "UPDATE DataProduct p SET p.quantity = :quantity " +
+                            "WHERE p.key.store.id = :store_id AND p.key.id = :product_id");
+            for (DirtyProduct product : batch.values()) {
+                update.setParameter("quantity", product.quantity().getAsInt());
+                update.setParameter("store_id", product.storeId());
+                update.setParameter("product_id", product.productId());
+                update.executeUpdate();
+            }
+            session.getTransaction().commit();
+        } catch (Exception e) {
+            // keep the products dirty so the next flush retries them, unless they changed again meanwhile
+            batch.forEach(dirty::putIfAbsent);
+            MarketLogger.logError("ProductQuantityFlusher", "flush",
+                    "Error msg: %s. could not flush %d product quantities", e.getMessage(), batch.size());
+        }
+    }
+
+    // not synchronized on this, a running flush must not block the products that mark themselves dirty
+    private void startIfNeeded() {
+        if (scheduler != null) return;
+        synchronized (dirty) {
+            if (scheduler != null) return;
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-quantity-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
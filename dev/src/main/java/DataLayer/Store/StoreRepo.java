@@ -1,8 +1,14 @@
 package DataLayer.Store;
 
 import DataLayer.DbConfig;
+import DataLayer.NegativeCache;
+import DataLayer.SingleFlight;
+import DataLayer.Store.ORM.DataProduct;
+import DataLayer.Store.ORM.DataPurchaseRule;
 import DataLayer.Store.ORM.DataStore;
+import DataLayer.Store.ORM.Discount.DataDiscount;
 import Domain.MarketLogger;
+import Domain.Store.CatalogEvents;
 import Domain.Store.IStore;
 import Domain.Store.Store;
 import jakarta.persistence.NoResultException;
@@ -10,20 +16,40 @@ import org.hibernate.Session;
 import org.hibernate.query.Query;
 import util.Enums.ErrorStatus;
 import util.Exceptions.NonExistentData;
+import util.Records.LoadStats;
 import util.Records.StoreRecords.StoreRecord;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class StoreRepo implements IStoreRepo {
+    private static final int WARM_UP_PARTITION_SIZE = 64;
+    private static final long MISS_TTL_MILLIS = 30_000;
+    private static final long FILTER_TTL_MILLIS = 60_000; // stores opened by other instances show up within this time
+    private static final int WARM_UP_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     private final Map<Integer, IStore> stores;
+    private final CatalogEvents catalogEvents;
+    private final SingleFlight<Integer, IStore> loads = new SingleFlight<>();
+    private final NegativeCache<Integer> missingStores = new NegativeCache<>(MISS_TTL_MILLIS, FILTER_TTL_MILLIS);
 
     public StoreRepo() {
+        this(new CatalogEvents());
+    }
+
+    public StoreRepo(CatalogEvents catalogEvents) {
         stores = new ConcurrentHashMap<>();
+        this.catalogEvents = catalogEvents;
     }
 
     @Override
@@ -37,11 +63,91 @@ public class StoreRepo implements IStoreRepo {
             dataStores = query.list();
             for (DataStore dataStore : dataStores)
                 if (!stores.containsKey(dataStore.getId()))
-                    stores.put(dataStore.getId(), new Store(dataStore));
+                    attach(new Store(dataStore));
         }
         return stores.values().stream().toList();
     }
 
+    @Override
+    public boolean warmUp() {
+        if (!DbConfig.shouldPersist())
+            return true;
+
+        long start = System.currentTimeMillis();
+        List<Integer> storeIds;
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            storeIds = session.createQuery("SELECT s.id FROM DataStore s ORDER BY s.id", Integer.class).stream()
+                    .filter(storeId -> !stores.containsKey(storeId))
+                    .toList();
+        }
+        MarketLogger.logEvent("StoreRepo", "warmUp", String.format("Loading %d stores", storeIds.size()));
+
+        AtomicInteger loaded = new AtomicInteger(0);
+        int failed = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(WARM_UP_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "store-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> partitions = new ArrayList<>();
+            for (int from = 0; from < storeIds.size(); from += WARM_UP_PARTITION_SIZE) {
+                List<Integer> partition = storeIds.subList(from, Math.min(from + WARM_UP_PARTITION_SIZE, storeIds.size()));
+                partitions.add(executor.submit(() -> {
+                    int count = loaded.addAndGet(warmUp(partition));
+                    MarketLogger.logEvent("StoreRepo", "warmUp", String.format("Loaded %d/%d stores", count, storeIds.size()));
+                }));
+            }
+            // a failed partition doesn't stop the others, every failure is logged
+            for (int i = 0; i < partitions.size(); i++) {
+                try {
+                    partitions.get(i).get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    List<Integer> partition = storeIds.subList(i * WARM_UP_PARTITION_SIZE,
+                            Math.min((i + 1) * WARM_UP_PARTITION_SIZE, storeIds.size()));
+                    MarketLogger.logError("StoreRepo", "warmUp", "Failed to load stores %d to %d: %s",
+                            partition.get(0), partition.get(partition.size() - 1), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+        MarketLogger.logEvent("StoreRepo", "warmUp", String.format("Loaded %d stores in %d ms, %d partitions failed",
+                loaded.get(), System.currentTimeMillis() - start, failed));
+        return failed == 0;
+    }
+
+    // loads the graphs of the given stores with one fetch joined query per collection and builds their stores
+    private int warmUp(List<Integer> storeIds) {
+        int count = 0;
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            List<DataStore> dataStores = session.createQuery(
+                    "SELECT DISTINCT s FROM DataStore s LEFT JOIN FETCH s.products WHERE s.id IN :ids", DataStore.class)
+                    .setParameter("ids", storeIds).list();
+            for (String collection : List.of("permissions", "contracts", "purchaseRules", "discounts"))
+                session.createQuery("SELECT DISTINCT s FROM DataStore s LEFT JOIN FETCH s." + collection + " WHERE s.id IN :ids", DataStore.class)
+                        .setParameter("ids", storeIds).list();
+            session.createQuery("SELECT DISTINCT p FROM DataProduct p LEFT JOIN FETCH p.offers WHERE p.key.store.id IN :ids", DataProduct.class)
+                    .setParameter("ids", storeIds).list();
+            session.createQuery("SELECT DISTINCT r FROM DataPurchaseRule r LEFT JOIN FETCH r.conditions WHERE r.store.id IN :ids", DataPurchaseRule.class)
+                    .setParameter("ids", storeIds).list();
+            session.createQuery("SELECT DISTINCT d FROM DataDiscount d LEFT JOIN FETCH d.conditions WHERE d.store.id IN :ids", DataDiscount.class)
+                    .setParameter("ids", storeIds).list();
+            for (DataStore dataStore : dataStores) {
+                if (stores.containsKey(dataStore.getId()))
+                    continue;
+                Store store = new Store(dataStore);
+                if (attach(store) == store)
+                    count++;
+            }
+        }
+        return count;
+    }
+
     @Override
     public IStore getStore(int storeId) throws NonExistentData {
         pullDataIfAbsent(storeId);
@@ -55,12 +161,14 @@ public class StoreRepo implements IStoreRepo {
     @Override
     public int openNewStore(String founder, StoreRecord storeDetails) {
         IStore store = new Store(founder, storeDetails);
-        if (stores.containsKey(store.getStoreId())) {
+        if (stores.putIfAbsent(store.getStoreId(), store) != null) {
             MarketLogger.logError("StoreRepo", "openNewStore", "New store got an ID of an existing store");
             store.remove();
             throw new RuntimeException("Couldn't get unique ID of store");
         }
-        stores.put(store.getStoreId(), store);
+        store.publishCatalogTo(catalogEvents);
+        if (DbConfig.shouldPersist())
+            missingStores.added(store.getStoreId());
         return store.getStoreId();
     }
 
@@ -73,6 +181,12 @@ public class StoreRepo implements IStoreRepo {
             throw new NonExistentData("Cannot close store", ErrorStatus.STORE_DOES_NOT_EXIST);
         }
         store.remove();
+        catalogEvents.storeRemoved(storeId);
+    }
+
+    @Override
+    public LoadStats getLoadStats() {
+        return loads.getMetrics().getStats();
     }
 
     //For tests
@@ -89,21 +203,41 @@ public class StoreRepo implements IStoreRepo {
         }
     }
 
+    // only the store that wins the map publishes to the catalog, so a store loaded twice at once never shows up in it
+    private IStore attach(Store store) {
+        IStore existing = stores.putIfAbsent(store.getStoreId(), store);
+        if (existing != null)
+            return existing;
+        store.publishCatalogTo(catalogEvents);
+        return store;
+    }
+
     private void pullDataIfAbsent(int storeId) {
         if (!DbConfig.shouldPersist() || stores.containsKey(storeId)) return;
 
-        synchronized (stores) {
-            if (stores.containsKey(storeId))
-                return;
-            DataStore dataStore;
-            Store store;
+        missingStores.seedIfStale(this::loadStoreIds);
+        if (missingStores.isKnownMissing(storeId))
+            return;
+        IStore loaded = loads.load(storeId, () -> {
+            IStore store = stores.get(storeId);
+            if (store != null)
+                return store;
             try (Session session = DbConfig.getSessionFactory().openSession()) {
-                dataStore = session.get(DataStore.class, storeId);
-                if (dataStore == null) return;;
-                store = new Store(dataStore);
-                stores.put(storeId, store);
+                DataStore dataStore = session.get(DataStore.class, storeId);
+                if (dataStore == null)
+                    return null;
+                return attach(new Store(dataStore));
             } catch (NoResultException ignored) {
+                return null;
             }
+        });
+        if (loaded == null)
+            missingStores.missed(storeId);
+    }
+
+    private List<Integer> loadStoreIds() {
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            return session.createQuery("SELECT s.id FROM DataStore s", Integer.class).list();
         }
     }
 }
@@ -1,21 +1,56 @@
 package DataLayer;
 
 import DataLayer.ORM.DataTransaction;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.query.Query;
 import util.Records.Transaction;
 import Domain.User.IStoreBasket;
 import util.Enums.ErrorStatus;
 import util.Exceptions.NonExistentData;
 import util.Records.DateTimeRange;
+import util.Records.StoreRecords.SalesReport;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class TransactionRepo implements ITransactionRepo {
+    // orders transactions by time, and by ID between transactions of the same time
+    private record TimeKey(LocalDateTime time, int id) implements Comparable<TimeKey> {
+        private static final Comparator<TimeKey> ORDER = Comparator.comparing(TimeKey::time).thenComparingInt(TimeKey::id);
+
+        private static TimeKey of(DataTransaction transaction) {
+            return new TimeKey(transaction.getTime(), transaction.getId());
+        }
+
+        @Override
+        public int compareTo(TimeKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static final NavigableMap<TimeKey, DataTransaction> EMPTY = Collections.emptyNavigableMap();
+    private static final DateTimeRange ALL_TIME = new DateTimeRange(null, null);
+    private static final int SCROLL_FETCH_SIZE = 500;
+
+    // the indexes hold every transaction when not persisting, and are empty otherwise since queries go to the DB
     private final Map<Integer, DataTransaction> transactions;
+    private final NavigableMap<TimeKey, DataTransaction> byTime = new ConcurrentSkipListMap<>();
+    private final Map<Integer, NavigableMap<TimeKey, DataTransaction>> byStore = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<TimeKey, DataTransaction>> byUser = new ConcurrentHashMap<>();
+    private final SalesRollup salesRollup = new SalesRollup();
 
     public TransactionRepo() {
         this.transactions = new ConcurrentHashMap<>();
@@ -23,76 +58,116 @@ public class TransactionRepo implements ITransactionRepo {
 
     @Override
     public int addTransaction(IStoreBasket basket, String userName, double price) {
-        DataTransaction transaction = new DataTransaction(basket, userName, price);
-        transactions.put(transaction.getId(), transaction);
+        return addTransaction(basket, userName, price, LocalDateTime.now());
+    }
+
+    @Override
+    public int addTransaction(IStoreBasket basket, String userName, double price, LocalDateTime time) {
+        DataTransaction transaction = new DataTransaction(basket, userName, price, time);
+        salesRollup.added(transaction, basket.getProductsAsRecords().values());
+        if (!DbConfig.shouldPersist())
+            index(transaction);
         return transaction.getId();
     }
 
     @Override
     public Map<Integer, Transaction> getTransactions() {
-        pullDataIfAbsent();
-
-        return transactions.values().stream()
+        List<DataTransaction> all = DbConfig.shouldPersist()
+                ? query("", Map.of(), ALL_TIME, 0, Integer.MAX_VALUE)
+                : List.copyOf(transactions.values());
+        return all.stream()
                 .map(DataTransaction::getAsTransaction)
                 .collect(Collectors.toMap(Transaction::id, Function.identity()));
     }
 
     @Override
     public List<Transaction> getTransactionsInRange(DateTimeRange range) {
-        pullDataIfAbsent();
-
-        return transactions.values().stream()
-                .map(DataTransaction::getAsTransaction)
-                .filter(t -> range.isInRange(t.timeStamp()))
-                .toList();
+        if (DbConfig.shouldPersist())
+            return materialize(query("", Map.of(), range, 0, Integer.MAX_VALUE));
+        return materialize(inRange(byTime, range).values(), 0, Integer.MAX_VALUE);
     }
 
     @Override
     public Transaction getTransaction(int id) throws NonExistentData {
-        pullDataIfAbsent();
-
-        if (!transactions.containsKey(id))
+        DataTransaction transaction = transactions.get(id);
+        if (DbConfig.shouldPersist())
+            try (Session session = DbConfig.getSessionFactory().openSession()) {
+                transaction = session.get(DataTransaction.class, id);
+            }
+        if (transaction == null)
             throw new NonExistentData(
                     String.format("Transaction with ID '%d' doesn't exist.", id),
                     ErrorStatus.TRANSACTION_DOES_NOT_EXIST
             );
-        return transactions.get(id).getAsTransaction();
+        return transaction.getAsTransaction();
     }
 
     @Override
     public List<Transaction> getUserTransactions(String userName) {
-        return transactions.values().stream()
-                .map(DataTransaction::getAsTransaction)
-                .filter(t -> t.userName().equals(userName))
-                .toList();
+        return getUserTransactionsPage(userName, ALL_TIME, 0, Integer.MAX_VALUE);
     }
 
     @Override
     public List<Transaction> getUserTransactionsInRange(String userName, DateTimeRange range) {
-        return getUserTransactions(userName).stream()
-                .filter(t -> range.isInRange(t.timeStamp()))
-                .toList();
+        return getUserTransactionsPage(userName, range, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Transaction> getUserTransactionsPage(String userName, DateTimeRange range, int first, int max) {
+        if (DbConfig.shouldPersist())
+            return materialize(query("t.username = :userName", Map.of("userName", userName), range, first, max));
+        return materialize(inRange(byUser.getOrDefault(userName, EMPTY), range).values(), first, max);
     }
 
     @Override
     public List<Transaction> getStoreTransactions(int storeId) {
-        return transactions.values().stream()
-                .map(DataTransaction::getAsTransaction)
-                .filter(t -> t.storeId() == storeId)
-                .toList();
+        return getStoreTransactionsPage(storeId, ALL_TIME, 0, Integer.MAX_VALUE);
     }
 
     @Override
     public List<Transaction> getStoreTransactionsInRange(int storeId, DateTimeRange range) {
-        return getStoreTransactions(storeId).stream()
-                .filter(t -> range.isInRange(t.timeStamp()))
-                .toList();
+        return getStoreTransactionsPage(storeId, range, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Transaction> getStoreTransactionsPage(int storeId, DateTimeRange range, int first, int max) {
+        if (DbConfig.shouldPersist())
+            return materialize(query("t.store.id = :storeId", Map.of("storeId", storeId), range, first, max));
+        return materialize(inRange(byStore.getOrDefault(storeId, EMPTY), range).values(), first, max);
+    }
+
+    @Override
+    public void forEachTransaction(DateTimeRange range, Consumer<Transaction> consumer) {
+        if (DbConfig.shouldPersist())
+            scroll("", Map.of(), range, consumer);
+        else
+            inRange(byTime, range).values().forEach(transaction -> consumer.accept(transaction.getAsTransaction()));
+    }
+
+    @Override
+    public void forEachStoreTransaction(int storeId, DateTimeRange range, Consumer<Transaction> consumer) {
+        if (DbConfig.shouldPersist())
+            scroll("t.store.id = :storeId", Map.of("storeId", storeId), range, consumer);
+        else
+            inRange(byStore.getOrDefault(storeId, EMPTY), range).values()
+                    .forEach(transaction -> consumer.accept(transaction.getAsTransaction()));
+    }
+
+    @Override
+    public SalesReport getStoreSales(int storeId, LocalDate from, LocalDate to, int bestSellers) {
+        return salesRollup.getStoreReport(storeId, from, to, bestSellers);
+    }
+
+    @Override
+    public SalesReport getMarketSales(LocalDate from, LocalDate to, int bestSellers) {
+        return salesRollup.getMarketReport(from, to, bestSellers);
     }
 
     @Override
     public void clean() {
         if (!DbConfig.shouldPersist()) {
-            transactions.clear();
+            clearIndexes();
+            salesRollup.clear();
             return;
         }
 
@@ -101,22 +176,103 @@ public class TransactionRepo implements ITransactionRepo {
 
             // Clear the table
             session.createNativeQuery("TRUNCATE Transaction CASCADE").executeUpdate();
+            session.createNativeQuery("TRUNCATE Sales_Rollup").executeUpdate();
 
             transaction.commit();
         }
-        transactions.clear();
+        clearIndexes();
+        salesRollup.clear();
     }
 
     @Override
     public int getTransactionCount() {
-        return transactions.size();
+        if (!DbConfig.shouldPersist())
+            return transactions.size();
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            return session.createQuery("SELECT COUNT(t) FROM DataTransaction t", Long.class).uniqueResult().intValue();
+        }
     }
 
-    private void pullDataIfAbsent() {
-        if (DbConfig.shouldPersist() && transactions.isEmpty())
-            try (Session session = DbConfig.getSessionFactory().openSession()) {
-                for (DataTransaction transaction : session.createQuery("FROM DataTransaction", DataTransaction.class).list())
-                    transactions.putIfAbsent(transaction.getId(), transaction);
+    // the persisted transactions that pass the filter and were made in the range, ordered by time
+    private static List<DataTransaction> query(String filter, Map<String, Object> parameters, DateTimeRange range, int first, int max) {
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            return createQuery(session, filter, parameters, range).setFirstResult(first).setMaxResults(max).list();
+        }
+    }
+
+    // like query, reading the transactions through a cursor and detaching them once consumed
+    private static void scroll(String filter, Map<String, Object> parameters, DateTimeRange range, Consumer<Transaction> consumer) {
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            org.hibernate.Transaction transaction = session.beginTransaction();
+            try (ScrollableResults<DataTransaction> results = createQuery(session, filter, parameters, range)
+                    .setFetchSize(SCROLL_FETCH_SIZE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                int rows = 0;
+                while (results.next()) {
+                    consumer.accept(results.get().getAsTransaction());
+                    if (++rows % SCROLL_FETCH_SIZE == 0)
+                        session.clear();
+                }
+            } finally {
+                transaction.rollback();
             }
+        }
+    }
+
+    private static Query<DataTransaction> createQuery(Session session, String filter, Map<String, Object> parameters, DateTimeRange range) {
+        StringBuilder hql = new StringBuilder("FROM DataTransaction t WHERE 1 = 1");
+        if (!filter.isEmpty())
+            hql.append(" AND ").append(filter);
+        if (range.earliest() != null)
+            hql.append(" AND t.time > :earliest");
+        if (range.latest() != null)
+            hql.append(" AND t.time < :latest");
+        hql.append(" ORDER BY t.time, t.id");
+        Query<DataTransaction> query = session.createQuery(hql.toString(), DataTransaction.class);
+        parameters.forEach(query::setParameter);
+        if (range.earliest() != null)
+            query.setParameter("earliest", range.earliest());
+        if (range.latest() != null)
+            query.setParameter("latest", range.latest());
+        return query;
+    }
+
+    private void index(DataTransaction transaction) {
+        if (transactions.putIfAbsent(transaction.getId(), transaction) != null)
+            return;
+        TimeKey key = TimeKey.of(transaction);
+        byTime.put(key, transaction);
+        byStore.computeIfAbsent(transaction.getStoreID(), storeId -> new ConcurrentSkipListMap<>()).put(key, transaction);
+        if (transaction.getUsername() != null)
+            byUser.computeIfAbsent(transaction.getUsername(), userName -> new ConcurrentSkipListMap<>()).put(key, transaction);
+    }
+
+    private void clearIndexes() {
+        transactions.clear();
+        byTime.clear();
+        byStore.clear();
+        byUser.clear();
+    }
+
+    // the transactions of the index in the range, whose ends are exclusive
+    private static NavigableMap<TimeKey, DataTransaction> inRange(NavigableMap<TimeKey, DataTransaction> index, DateTimeRange range) {
+        NavigableMap<TimeKey, DataTransaction> result = index;
+        if (range.earliest() != null)
+            result = result.tailMap(new TimeKey(range.earliest(), Integer.MAX_VALUE), false);
+        if (range.latest() != null)
+            result = result.headMap(new TimeKey(range.latest(), Integer.MIN_VALUE), false);
+        return result;
+    }
+
+    private static List<Transaction> materialize(Collection<DataTransaction> transactions) {
+        return materialize(transactions, 0, Integer.MAX_VALUE);
+    }
+
+    private static List<Transaction> materialize(Collection<DataTransaction> transactions, int first, int max) {
+        return transactions.stream()
+                .skip(first)
+                .limit(max)
+                .map(DataTransaction::getAsTransaction)
+                .toList();
     }
-}
\ No newline at end of file
+}
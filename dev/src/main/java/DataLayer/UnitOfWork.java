@@ -0,0 +1,96 @@
+package DataLayer;
+
+import org.hibernate.Session;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Request scoped unit of work.
+ * While a unit of work is active on a thread, every entity write made through execute shares its session
+ * and is committed once, when the unit of work ends. Without an active unit of work, execute opens a
+ * session and commits for every call, like the entities always did.
+ */
+public class UnitOfWork {
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    private UnitOfWork() {
+    }
+
+    /**
+     * Runs the given work in a unit of work and commits all of its writes when it returns.
+     * If the work throws, nothing is committed.
+     * Joins the unit of work of the caller if there is one already active.
+     */
+    public static <T> T run(Supplier<T> work) {
+        if (!DbConfig.shouldPersist() || CURRENT.get() != null)
+            return work.get();
+
+        Session session = DbConfig.getSessionFactory().openSession();
+        CURRENT.set(session);
+        try {
+            session.beginTransaction();
+            T result = work.get();
+            session.getTransaction().commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (session.getTransaction().isActive())
+                session.getTransaction().rollback();
+            throw e;
+        } finally {
+            CURRENT.remove();
+            session.close();
+        }
+    }
+
+    /**
+     * Runs a call to an external service outside of the transaction of the active unit of work, so no database
+     * transaction stays open while waiting for it. The writes made so far are committed first, and a new
+     * transaction is started for the rest of the unit of work when the call returns. Writes made by the call
+     * itself are committed on their own.
+     * Runs the call as is when there is no active unit of work.
+     */
+    public static <T> T suspend(Supplier<T> call) {
+        Session session = CURRENT.get();
+        if (session == null)
+            return call.get();
+
+        session.getTransaction().commit();
+        CURRENT.remove();
+        try {
+            return call.get();
+        } finally {
+            CURRENT.set(session);
+            session.beginTransaction();
+        }
+    }
+
+    /**
+     * Runs the given work with the session of the active unit of work,
+     * or with a new session in its own transaction if there is no active unit of work.
+     */
+    public static <T> T execute(Function<Session, T> work) {
+        Session current = CURRENT.get();
+        if (current != null)
+            return work.apply(current);
+
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            session.beginTransaction();
+            T result = work.apply(session);
+            session.getTransaction().commit();
+            return result;
+        }
+    }
+
+    public static void executeVoid(Consumer<Session> work) {
+        execute(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+}
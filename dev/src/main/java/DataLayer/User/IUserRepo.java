@@ -6,6 +6,8 @@ package DataLayer.User;
 import Domain.User.Member;
 import util.Exceptions.DataExistentError;
 import util.Exceptions.NonExistentData;
+import util.Records.LoadStats;
+import util.Records.UserRecords.MemberPage;
 import util.Records.UserRecords.UserRecord;
 
 import java.util.Set;
@@ -47,4 +49,19 @@ public interface IUserRepo {
    */
   void removeMember(String userName);
 
+  /**
+   * @return counts and times of the members loaded from the database, and of the lookups that waited for a load
+   * of the same member instead of starting their own
+   */
+  LoadStats getLoadStats();
+
+  /**
+   * Retrieves a page of the members ordered by username, without loading the members.
+   *
+   * @param after    the username the page starts after, or null for the first page
+   * @param pageSize the maximal number of members in the page
+   * @return the page, whose next cursor is the last username in it
+   */
+  MemberPage getMemberSummaries(String after, int pageSize);
+
 }
\ No newline at end of file
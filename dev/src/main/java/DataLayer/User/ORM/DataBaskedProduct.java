@@ -1,12 +1,16 @@
 package DataLayer.User.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import DataLayer.Store.ORM.DataProduct;
 import jakarta.persistence.Column;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
-import org.hibernate.Session;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
 import util.Records.StoreRecords.ProductRecord;
 
 @Entity
@@ -20,6 +24,9 @@ public class DataBaskedProduct {
     private double priceAfterDiscount;
     private int quantity;
 
+    @Transient
+    private final DirtyFields dirtyFields = new DirtyFields();
+
     public DataBaskedProduct(){}
 
     public DataBaskedProduct(DataProduct product, DataBasket basket, int quantity){
@@ -49,6 +56,7 @@ public class DataBaskedProduct {
     }
 
     public void setQuantity(int quantity) {
+        dirtyFields.changed("quantity", this.quantity, quantity);
         this.quantity = quantity;
     }
 
@@ -57,6 +65,7 @@ public class DataBaskedProduct {
     }
 
     public void setPriceAfterDiscount(double priceAfterDiscount) {
+        dirtyFields.changed("priceAfterDiscount", this.priceAfterDiscount, priceAfterDiscount);
         this.priceAfterDiscount = priceAfterDiscount;
     }
 
@@ -64,30 +73,29 @@ public class DataBaskedProduct {
         return key;
     }
 
+    @PostLoad
+    @PostPersist
+    private void stored() {
+        dirtyFields.stored();
+    }
+
     public DataBaskedProduct persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
-            DataBaskedProduct updated = session.get(DataBaskedProduct.class, getId());
-            if (updated == null) updated = this;
-            updated.setQuantity(getQuantity());
-            updated.setPriceAfterDiscount(getPriceAfterDiscount());
-            session.persist(updated);
-            session.getTransaction().commit();
-            return updated;
-        }
+        if (dirtyFields.isStored())
+            dirtyFields.flush(this, "key", getId());
+        else
+            UnitOfWork.executeVoid(session -> session.persist(this));
+        return this;
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataBaskedProduct toRemove = session.get(DataBaskedProduct.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
@@ -1,10 +1,10 @@
 package DataLayer.User.ORM;
 
+import DataLayer.UnitOfWork;
 import DataLayer.DbConfig;
 import DataLayer.Store.ORM.DataProduct;
 import DataLayer.Store.ORM.DataStore;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 import org.hibernate.query.Query;
 import util.Records.StoreRecords.ProductRecord;
 
@@ -39,12 +39,12 @@ public class DataBaskedProductKey implements Serializable {
 
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
+        UnitOfWork.executeVoid(session -> {
             Query<DataProduct> query = session.createQuery("FROM DataProduct p WHERE p.key.store.id = :store_id AND p.key.id = :product_id", DataProduct.class);
             query.setParameter("store_id", product.storeId());
             query.setParameter("product_id", product.productId());
             this.product = query.getSingleResult();
-        }
+        });
     }
 
     public DataProduct getProduct() {
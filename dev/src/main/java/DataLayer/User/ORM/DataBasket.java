@@ -1,10 +1,10 @@
 package DataLayer.User.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.UnitOfWork;
 import DataLayer.Store.ORM.DataProduct;
 import DataLayer.Store.ORM.DataStore;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 import java.util.Map;
 
@@ -54,25 +54,21 @@ public class DataBasket {
     public DataBasket persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        return UnitOfWork.execute(session -> {
             DataBasket updated = session.get(DataBasket.class, getId());
             if (updated == null) updated = this;
             session.persist(updated);
-            session.getTransaction().commit();
             return updated;
-        }
+        });
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataBasket toRemove = session.get(DataBasket.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
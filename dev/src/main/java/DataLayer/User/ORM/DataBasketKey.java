@@ -1,9 +1,9 @@
 package DataLayer.User.ORM;
 
+import DataLayer.UnitOfWork;
 import DataLayer.DbConfig;
 import DataLayer.Store.ORM.DataStore;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 import java.io.Serializable;
 
@@ -30,9 +30,7 @@ public class DataBasketKey implements Serializable {
 
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            this.store = session.get(DataStore.class, storeId);
-        }
+        this.store = UnitOfWork.execute(session -> session.get(DataStore.class, storeId));
     }
 
     public DataStore getStore() {
@@ -1,9 +1,9 @@
 package DataLayer.User.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.UnitOfWork;
 import DataLayer.Store.ORM.DataStore;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -42,25 +42,21 @@ public class DataCart {
     public DataCart persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        return UnitOfWork.execute(session -> {
             DataCart updated = session.get(DataCart.class, getId());
             if (updated == null) updated = this;
             session.persist(updated);
-            session.getTransaction().commit();
             return updated;
-        }
+        });
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataCart toRemove = session.get(DataCart.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
@@ -1,6 +1,8 @@
 package DataLayer.User.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import DataLayer.ORM.DataPermission;
 import DataLayer.ORM.DataTransaction;
 import DataLayer.Services.NotificationService.ORM.DataNotification;
@@ -9,7 +11,6 @@ import DataLayer.Store.ORM.Contract.DataAppointment;
 import DataLayer.Store.ORM.DataOffer;
 import DataLayer.Store.ORM.DataOfferConsent;
 import jakarta.persistence.*;
-import org.hibernate.Session;
 import util.Records.UserRecords.UserRecord;
 
 import java.time.LocalDate;
@@ -50,6 +51,9 @@ public class DataMember {
     @OneToMany(mappedBy = "key.owner", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<DataAppointConsent> appointConsents;
 
+    @Transient
+    private final DirtyFields dirtyFields = new DirtyFields();
+
     public DataMember() {
     }
 
@@ -78,6 +82,7 @@ public class DataMember {
     }
 
     public void setPassword(String password) {
+        dirtyFields.changed("password", this.password, password);
         this.password = password;
     }
 
@@ -86,6 +91,7 @@ public class DataMember {
     }
 
     public void setEmail(String email) {
+        dirtyFields.changed("email", this.email, email);
         this.email = email;
     }
 
@@ -94,6 +100,7 @@ public class DataMember {
     }
 
     public void setPhone_no(String phone_no) {
+        dirtyFields.changed("phone_no", this.phone_no, phone_no);
         this.phone_no = phone_no;
     }
 
@@ -102,6 +109,7 @@ public class DataMember {
     }
 
     public void setBirthday(LocalDate birthday) {
+        dirtyFields.changed("birthday", this.birthday, birthday);
         this.birthday = birthday;
     }
 
@@ -128,33 +136,30 @@ public class DataMember {
                 '}';
     }
 
-    public DataMember persist() {
+    @PostLoad
+    @PostPersist
+    private void stored() {
+        dirtyFields.stored();
+    }
+
+    public DataMember persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()) {
-            session.beginTransaction();
-            DataMember updated = session.get(DataMember.class, getId());
-            if (updated == null) updated = this;
-            updated.setPassword(getPassword());
-            updated.setEmail(getEmail());
-            updated.setPhone_no(getPhone_no());
-            updated.setBirthday(getBirthday());
-            session.persist(updated);
-            session.getTransaction().commit();
-            return updated;
-        }
+        if (dirtyFields.isStored())
+            dirtyFields.flush(this, "username", getId());
+        else
+            UnitOfWork.executeVoid(session -> session.persist(this));
+        return this;
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()) {
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataMember toRemove = session.get(DataMember.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 
     public DataMember cleanCart() {
@@ -163,17 +168,15 @@ public class DataMember {
             return this;
         }
 
-        try (Session session = DbConfig.getSessionFactory().openSession()) {
-            session.beginTransaction();
+        return UnitOfWork.execute(session -> {
             DataMember clean = session.get(DataMember.class, getId());
             DataCart toRemove = clean.getCart();
             clean.setCart(null);
             session.remove(toRemove);
             DataCart newCart = new DataCart(clean);
             session.persist(newCart);
-            session.getTransaction().commit();
             clean.setCart(newCart);
             return clean;
-        }
+        });
     }
 }
@@ -1,10 +1,14 @@
 package DataLayer.User.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
-import org.hibernate.Session;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
 import util.Records.AddressRecord;
 
 @Entity
@@ -20,15 +24,18 @@ public class DataMemberAddress {
         private String phoneNumber;
         private boolean isPrimary;
 
+        @Transient
+        private final DirtyFields dirtyFields = new DirtyFields();
+
         public DataMemberAddress(){}
 
         public DataMemberAddress(DataMember member, AddressRecord addressData, boolean primary) {
                 this.key = new DataMemberAddressKey(member);
-                this.fullName = addressData.fullName();
-                this.street = addressData.street();
-                this.city = addressData.city();
-                this.country = addressData.country();
-                this.zip = addressData.zip();
+                setFullName(addressData.fullName());
+                setStreet(addressData.street());
+                setCity(addressData.city());
+                setCountry(addressData.country());
+                setZip(addressData.zip());
                 this.phoneNumber = addressData.phoneNumber();
                 this.isPrimary = primary;
         }
@@ -42,6 +49,7 @@ public class DataMemberAddress {
         }
 
         public void setFullName(String fullName) {
+                dirtyFields.changed("fullName", this.fullName, fullName);
                 this.fullName = fullName;
         }
 
@@ -50,6 +58,7 @@ public class DataMemberAddress {
         }
 
         public void setStreet(String street) {
+                dirtyFields.changed("street", this.street, street);
                 this.street = street;
         }
 
@@ -58,6 +67,7 @@ public class DataMemberAddress {
         }
 
         public void setCity(String city) {
+                dirtyFields.changed("city", this.city, city);
                 this.city = city;
         }
 
@@ -66,6 +76,7 @@ public class DataMemberAddress {
         }
 
         public void setCountry(String country) {
+                dirtyFields.changed("country", this.country, country);
                 this.country = country;
         }
 
@@ -74,6 +85,7 @@ public class DataMemberAddress {
         }
 
         public void setZip(String zip) {
+                dirtyFields.changed("zip", this.zip, zip);
                 this.zip = zip;
         }
 
@@ -82,6 +94,7 @@ public class DataMemberAddress {
         }
 
         public void setPhoneNumber(String phoneNumber) {
+                dirtyFields.changed("phoneNumber", this.phoneNumber, phoneNumber);
                 this.phoneNumber = phoneNumber;
         }
 
@@ -90,7 +103,8 @@ public class DataMemberAddress {
         }
 
         public void setPrimary(boolean primary) {
-                isPrimary = primary;
+                dirtyFields.changed("isPrimary", this.isPrimary, primary);
+                this.isPrimary = primary;
         }
 
         public Object getId(){
@@ -98,43 +112,37 @@ public class DataMemberAddress {
         }
 
         public void update(AddressRecord addressData) {
-                this.fullName = addressData.fullName();
-                this.street = addressData.street();
-                this.city = addressData.city();
-                this.country = addressData.country();
-                this.zip = addressData.zip();
-                this.phoneNumber = addressData.phoneNumber();
+                setFullName(addressData.fullName());
+                setStreet(addressData.street());
+                setCity(addressData.city());
+                setCountry(addressData.country());
+                setZip(addressData.zip());
+                setPhoneNumber(addressData.phoneNumber());
+        }
+
+        @PostLoad
+        @PostPersist
+        private void stored() {
+                dirtyFields.stored();
         }
 
         public DataMemberAddress persist(){
                 if (!DbConfig.shouldPersist()) return this;
 
-                try (Session session = DbConfig.getSessionFactory().openSession()){
-                        session.beginTransaction();
-                        DataMemberAddress updated = session.get(DataMemberAddress.class, getId());
-                        if (updated == null) updated = this;
-                        updated.setFullName(getFullName());
-                        updated.setStreet(getStreet());
-                        updated.setCity(getCity());
-                        updated.setCountry(getCountry());
-                        updated.setZip(getZip());
-                        updated.setPhoneNumber(getPhoneNumber());
-                        updated.setPrimary(isPrimary());
-                        session.persist(updated);
-                        session.getTransaction().commit();
-                        return updated;
-                }
+                if (dirtyFields.isStored())
+                        dirtyFields.flush(this, "key", getId());
+                else
+                        UnitOfWork.executeVoid(session -> session.persist(this));
+                return this;
         }
 
         public void remove() {
                 if (!DbConfig.shouldPersist()) return;
 
-                try (Session session = DbConfig.getSessionFactory().openSession()){
-                        session.beginTransaction();
+                UnitOfWork.executeVoid(session -> {
                         DataMemberAddress toRemove = session.get(DataMemberAddress.class, getId());
                         if (toRemove == null) return;
                         session.remove(toRemove);
-                        session.getTransaction().commit();
-                }
+                });
         }
 }
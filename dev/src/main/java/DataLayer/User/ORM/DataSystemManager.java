@@ -1,10 +1,14 @@
 package DataLayer.User.ORM;
 
 import DataLayer.DbConfig;
+import DataLayer.DirtyFields;
+import DataLayer.UnitOfWork;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
-import org.hibernate.Session;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
 
 import java.time.LocalDate;
 
@@ -15,6 +19,9 @@ public class DataSystemManager {
     private String username;
     private String password;
 
+    @Transient
+    private final DirtyFields dirtyFields = new DirtyFields();
+
     public DataSystemManager() {
     }
 
@@ -32,35 +39,36 @@ public class DataSystemManager {
     }
 
     public void setPassword(String password) {
+        dirtyFields.changed("password", this.password, password);
         this.password = password;
     }
 
     public Object getId(){
         return username;
     }
+    @PostLoad
+    @PostPersist
+    private void stored() {
+        dirtyFields.stored();
+    }
+
     public DataSystemManager persist(){
         if (!DbConfig.shouldPersist()) return this;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
-            DataSystemManager updated = session.get(DataSystemManager.class, getId());
-            if (updated == null) updated = this;
-            updated.setPassword(getPassword());
-            session.persist(updated);
-            session.getTransaction().commit();
-            return updated;
-        }
+        if (dirtyFields.isStored())
+            dirtyFields.flush(this, "username", getId());
+        else
+            UnitOfWork.executeVoid(session -> session.persist(this));
+        return this;
     }
 
     public void remove() {
         if (!DbConfig.shouldPersist()) return;
 
-        try (Session session = DbConfig.getSessionFactory().openSession()){
-            session.beginTransaction();
+        UnitOfWork.executeVoid(session -> {
             DataSystemManager toRemove = session.get(DataSystemManager.class, getId());
             if (toRemove == null) return;
             session.remove(toRemove);
-            session.getTransaction().commit();
-        }
+        });
     }
 }
@@ -1,6 +1,9 @@
 package DataLayer.User;
 
+import DataLayer.BoundedCache;
 import DataLayer.DbConfig;
+import DataLayer.NegativeCache;
+import DataLayer.SingleFlight;
 import DataLayer.User.ORM.DataMember;
 import Domain.User.Member;
 import jakarta.persistence.NoResultException;
@@ -9,37 +12,61 @@ import org.hibernate.query.Query;
 import util.Enums.ErrorStatus;
 import util.Exceptions.DataExistentError;
 import util.Exceptions.NonExistentData;
+import util.Records.LoadStats;
+import util.Records.UserRecords.MemberPage;
+import util.Records.UserRecords.MemberSummary;
 import util.Records.UserRecords.UserRecord;
 
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
 
 public class UserRepo implements IUserRepo {
-    private final Map<String, Member> members;
+    private static final long MISS_TTL_MILLIS = 30_000;
+    private static final long FILTER_TTL_MILLIS = 60_000; // members registered on other instances show up within this time
+    private static final int MAX_CACHED_MEMBERS = 10_000;
+
+    private final BoundedCache<String, Member> members;
+    private final NavigableSet<String> usernames = new ConcurrentSkipListSet<>(); // all the members, when not persisting
+    private final NegativeCache<String> missingMembers = new NegativeCache<>(MISS_TTL_MILLIS, FILTER_TTL_MILLIS);
+    private final SingleFlight<String, Member> loads = new SingleFlight<>();
 
     public UserRepo() {
-        this.members = new ConcurrentHashMap<>();
+        this(MAX_CACHED_MEMBERS);
+    }
+
+    /**
+     * @param capacity the number of members kept in memory when persisting, beyond the logged in ones
+     */
+    public UserRepo(int capacity) {
+        // members are evicted only when they can be recovered from the database, and never while logged in
+        this.members = new BoundedCache<>(capacity, member -> !DbConfig.shouldPersist() || member.isLoggedIn());
     }
 
     @Override
     public Member getMember(String userName) throws NonExistentData {
-        pullDataIfAbsent(userName);
-        if (members.containsKey(userName)) {
-            return members.get(userName);
+        Member member = pullDataIfAbsent(userName);
+        if (member != null) {
+            return member;
         }
         throw new NonExistentData("user doesn't exists", ErrorStatus.USERNAME_DOES_NOT_EXIST);
     }
 
     @Override
     public void addMember(String sessionID, UserRecord userData, String password) throws DataExistentError {
-        if (isMemberExists(userData.username()))
+        // another instance may have registered the name since the filter was seeded, so only the database rules it out
+        if (pullDataIfAbsent(userData.username(), false) != null)
             throw new DataExistentError("user name is already exists!", ErrorStatus.USERNAME_EXISTS);
         if(members.put(userData.username(), new Member(sessionID, userData, password)) != null){
             throw new DataExistentError("user name is already exists!", ErrorStatus.USERNAME_EXISTS);
         }
+        if (DbConfig.shouldPersist())
+            missingMembers.added(userData.username());
+        else
+            usernames.add(userData.username());
     }
 
     @Override
@@ -59,41 +86,92 @@ public class UserRepo implements IUserRepo {
                     .map(Member::getUserName)
                     .collect(Collectors.toSet());
 
-        try (Session session = DbConfig.getSessionFactory().openSession()) {
-            Query<DataMember> query = session.createQuery("FROM DataMember", DataMember.class);
-            for (DataMember dataMember : query.list())
-                if (!members.containsKey(dataMember.getUsername()))
-                    members.put(dataMember.getUsername(), new Member(dataMember));
-        }
-        return members.values().stream()
-                .map(Member::getUserName)
-                .collect(Collectors.toSet());
+        Set<String> userNames = new HashSet<>(loadUsernames());
+        userNames.addAll(members.keys());
+        return userNames;
     }
 
     @Override
     public void removeMember(String userName) {
-        pullDataIfAbsent(userName);
+        if (pullDataIfAbsent(userName) == null) return;
         Member toRemove = members.remove(userName);
+        usernames.remove(userName);
         if (toRemove != null) toRemove.remove();
     }
 
-    private void pullDataIfAbsent(String userName) {
-        if (!DbConfig.shouldPersist() || members.containsKey(userName)) return;
+    @Override
+    public MemberPage getMemberSummaries(String after, int pageSize) {
+        List<String> page;
+        if (!DbConfig.shouldPersist()) {
+            page = (after == null ? usernames : usernames.tailSet(after, false)).stream()
+                    .limit(pageSize + 1)
+                    .toList();
+        } else {
+            try (Session session = DbConfig.getSessionFactory().openSession()) {
+                Query<String> query = session.createQuery(after == null
+                        ? "SELECT m.username FROM DataMember m ORDER BY m.username"
+                        : "SELECT m.username FROM DataMember m WHERE m.username > :after ORDER BY m.username", String.class);
+                if (after != null)
+                    query.setParameter("after", after);
+                page = query.setMaxResults(pageSize + 1).list();
+            }
+        }
+        boolean hasNext = page.size() > pageSize;
+        if (hasNext)
+            page = page.subList(0, pageSize);
+        // logged in members are always cached, so the members that aren't cached are offline
+        List<MemberSummary> summaries = page.stream()
+                .map(userName -> {
+                    Member member = members.get(userName);
+                    return new MemberSummary(userName, member != null && member.isLoggedIn());
+                })
+                .toList();
+        return new MemberPage(summaries, hasNext ? page.get(page.size() - 1) : null);
+    }
+
+    @Override
+    public LoadStats getLoadStats() {
+        return loads.getMetrics().getStats();
+    }
+
+    private Member pullDataIfAbsent(String userName) {
+        return pullDataIfAbsent(userName, true);
+    }
+
+    /**
+     * @param trustMisses whether a name known to be missing can be answered without the database
+     */
+    private Member pullDataIfAbsent(String userName, boolean trustMisses) {
+        Member cached = members.get(userName);
+        if (!DbConfig.shouldPersist() || cached != null) return cached;
 
-        synchronized (members) {
-            if (members.containsKey(userName))
-                return;
-            DataMember dataMember;
-            Member member;
+        if (trustMisses) {
+            missingMembers.seedIfStale(this::loadUsernames);
+            if (missingMembers.isKnownMissing(userName))
+                return null;
+        }
+        Member loaded = loads.load(userName, () -> {
+            Member member = members.get(userName);
+            if (member != null)
+                return member;
             try (Session session = DbConfig.getSessionFactory().openSession()) {
                 Query<DataMember> query = session.createQuery("From DataMember m WHERE m.username = :username", DataMember.class);
                 query.setParameter("username", userName);
-                dataMember = query.getSingleResult();
-                member = new Member(dataMember);
-                members.put(userName, member);
+                member = new Member(query.getSingleResult());
+                Member existing = members.putIfAbsent(userName, member);
+                return existing == null ? member : existing;
             } catch (NoResultException ignored) {
-                return;
+                return null;
             }
+        });
+        if (loaded == null)
+            missingMembers.missed(userName);
+        return loaded;
+    }
+
+    private List<String> loadUsernames() {
+        try (Session session = DbConfig.getSessionFactory().openSession()) {
+            return session.createQuery("SELECT m.username FROM DataMember m", String.class).list();
         }
     }
 }
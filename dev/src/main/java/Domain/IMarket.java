@@ -3,6 +3,7 @@ package Domain;
 import DataLayer.ITransactionRepo;
 import util.Records.PaymentDetails;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.Transaction;
 import Domain.Services.NotificationService.INotificationService;
 import Domain.Services.PaymentService.IPaymentService;
@@ -13,13 +14,16 @@ import Domain.User.IStoreBasket;
 import Domain.User.IUser;
 import Domain.User.IUserCart;
 import Domain.User.IUserController;
+import util.Enums.CheckoutMode;
 import util.Exceptions.*;
 import util.Records.AddressRecord;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * The IMarket interface represents the interactions between the market system
@@ -53,6 +57,14 @@ public interface IMarket {
 
   void updateTransactionRepo(ITransactionRepo transactionRepo);
 
+  /**
+   * Sets how the per-basket work after a successful payment is executed.
+   *
+   * @param checkoutMode SERIAL to handle the baskets one by one,
+   *                     CONCURRENT to handle all the baskets in parallel
+   */
+  void setCheckoutMode(CheckoutMode checkoutMode);
+
   /**
    * Processes a purchase by the user for it's current cart.
    * Calculates user's cart price and tries to charge for calculated amount.
@@ -133,6 +145,57 @@ public interface IMarket {
   getStoreTransactionsBetween(int storeId, LocalDateTime startDateTime,
                               LocalDateTime endDateTime);
 
+  /**
+   * Passes the store transactions that occurred between the specified start
+   * and end date times to the consumer, one by one and ordered by time.
+   *
+   * @param storeId        The store ID whose transactions are to be exported.
+   * @param startDateTime  The starting date and time, or null for no start.
+   * @param endDateTime    The ending date and time, or null for no end.
+   * @param consumer       Receives the transactions.
+   * @throws DataError if the start date time is after the end date time.
+   */
+  void exportStoreTransactions(int storeId, LocalDateTime startDateTime,
+                               LocalDateTime endDateTime,
+                               Consumer<Transaction> consumer) throws DataError;
+
+  /**
+   * Passes all the transactions that occurred between the specified start
+   * and end date times to the consumer, one by one and ordered by time.
+   *
+   * @param startDateTime  The starting date and time, or null for no start.
+   * @param endDateTime    The ending date and time, or null for no end.
+   * @param consumer       Receives the transactions.
+   * @throws DataError if the start date time is after the end date time.
+   */
+  void exportTransactions(LocalDateTime startDateTime,
+                          LocalDateTime endDateTime,
+                          Consumer<Transaction> consumer) throws DataError;
+
+  /**
+   * Reports the sales of a store between two days, read from the sales
+   * counters instead of the transactions.
+   *
+   * @param storeId      The store ID whose sales are reported.
+   * @param from         The first day of the report, or null for no start.
+   * @param to           The last day of the report, or null for no end.
+   * @param bestSellers  The number of best selling products to report.
+   * @return the revenue, orders and units of the store per day and in total,
+   *     and its best selling products.
+   */
+  SalesReport getStoreSales(int storeId, LocalDate from, LocalDate to,
+                            int bestSellers);
+
+  /**
+   * Like {@link #getStoreSales}, over the sales of all the stores.
+   *
+   * @param from         The first day of the report, or null for no start.
+   * @param to           The last day of the report, or null for no end.
+   * @param bestSellers  The number of best selling products to report.
+   * @return the sales of the market between the given days.
+   */
+  SalesReport getMarketSales(LocalDate from, LocalDate to, int bestSellers);
+
   /**
    * Adds a new transaction to the market.
    *
@@ -142,6 +205,17 @@ public interface IMarket {
    */
   void addTransaction(IStoreBasket basket, String userName, double price);
 
+  /**
+   * Adds a new transaction to the market, for a purchase made at the given time.
+   *
+   * @param basket the user cart involved in the transaction
+   * @param userName the username of the user who made the transaction
+   * @param price the total price of the transaction
+   * @param time the time of the purchase
+   */
+  void addTransaction(IStoreBasket basket, String userName, double price,
+                      LocalDateTime time);
+
   /**
    * Initializes the user and store controllers used by the market.
    *
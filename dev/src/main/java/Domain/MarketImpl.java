@@ -1,7 +1,11 @@
 package Domain;
 
+import DataLayer.IOutboxRepo;
 import DataLayer.ITransactionRepo;
+import DataLayer.ORM.DataOutboxEntry;
+import DataLayer.OutboxRepo;
 import DataLayer.TransactionRepo;
+import DataLayer.UnitOfWork;
 import util.Records.Transaction;
 import Domain.Services.NotificationService.INotificationService;
 import Domain.Services.PaymentService.IPaymentService;
@@ -11,19 +15,29 @@ import util.Exceptions.PurchaseLimitation;
 import Domain.Store.IStore;
 import Domain.Store.IStoreController;
 import Domain.Store.Offer;
+import Domain.Store.Reservation;
 import Domain.User.*;
+import util.Enums.CheckoutMode;
 import util.Exceptions.*;
 import util.Records.AddressRecord;
 import util.Records.DateTimeRange;
 import util.Records.PaymentDetails;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -37,9 +51,19 @@ public class MarketImpl implements IMarket {
   private IUserController userController;
   private IStoreController storeController;
   private ITransactionRepo transactionRepo;
+  private IOutboxRepo outboxRepo;
+  private OutboxDispatcher outboxDispatcher;
 
   private AtomicLong paymentID = new AtomicLong(0);
 
+  private static final int CHECKOUT_THREADS = 16;
+  private volatile CheckoutMode checkoutMode = CheckoutMode.SERIAL;
+  private final ExecutorService checkoutExecutor = Executors.newFixedThreadPool(CHECKOUT_THREADS, runnable -> {
+    Thread thread = new Thread(runnable, "market-checkout");
+    thread.setDaemon(true);
+    return thread;
+  });
+
   // TODO: find better lock name
   private ReadWriteLock marketOperationLock = new ReentrantReadWriteLock();
   public IPaymentService getPaymentService() { return paymentService; }
@@ -65,6 +89,11 @@ public class MarketImpl implements IMarket {
     this.storeController = storeController;
     this.userController = userController;
     this.transactionRepo = new TransactionRepo();
+    if (outboxDispatcher != null)
+      outboxDispatcher.stop();
+    this.outboxRepo = new OutboxRepo();
+    this.outboxDispatcher = new OutboxDispatcher(this, outboxRepo);
+    outboxDispatcher.start();
   }
 
   @Override
@@ -109,35 +138,174 @@ public class MarketImpl implements IMarket {
      String sessionId = user.getSessionId();
      String name = userController.isUserIsMember(sessionId) ? user.getUserName() : sessionId;
     double price = calculateCartPrice(cart);
+    List<Reservation> reservations;
     try {
-      storeController.removeCartQuantity(cart);
+      reservations = storeController.reserveCartQuantity(cart);
     } catch (Exception e) {
       MarketLogger.logError("MarketImpl", "purchase",String.format(
-          "Error msg: %s. could not remove %s user cart quantities ",
+          "Error msg: %s. could not reserve %s user cart quantities ",
+          e.getMessage(), name));
+      throw e;
+    }
+    // the holds are pinned so they can't expire while the buyer is charged, and are committed only once the
+    // payment went through. A buyer is never charged for products that are gone, and a declined payment
+    // only releases the holds.
+    try {
+      storeController.pinCartReservations(reservations);
+    } catch (Exception e) {
+      MarketLogger.logError("MarketImpl", "purchase", String.format(
+          "Error msg: %s. could not pin %s user cart reservations",
           e.getMessage(), name));
       throw e;
     }
     paymentDetails = paymentDetails.setID(paymentID.getAndIncrement());
-    Response res = paymentService.processPayment(paymentDetails.setPrice(price));
+    Response res;
+    try {
+      PaymentDetails charge = paymentDetails.setPrice(price);
+      res = UnitOfWork.suspend(() -> paymentService.processPayment(charge));
+    } catch (RuntimeException e) {
+      storeController.releaseCartReservations(reservations);
+      throw e;
+    }
 
     if (res.isErrorOccurred()) {
       MarketLogger.logError("MarketImpl", "purchase", String.format(
           "Error msg: %s. could not process payment for user: %s.",
           res.getMessage(), name));
-      storeController.addCartQuantity(cart);
+      storeController.releaseCartReservations(reservations);
       throw new PurchaseError(res.getMessage(), PAYMENT_PROCESS_FAILED);
     }
-
-    for (IStoreBasket basket : cart.getStoreBaskets()) {
-      IStore store = storeController.getStore(basket.getStoreId());
-      notificationService.broadcastMessage(store.getStoreRoles("System").keySet().stream().toList(),
-              "System notification:\nThe user: "+name + " bought "+basket.getBasketPriceAfterDiscount()+
-                      "$ from the store", "System notification from "+store.getStoreName());
-      supplyService.placeOrder(store, deliveryAddress, basket.getProductsAsRecords());
-      transactionRepo.addTransaction(basket, name, storeController.calculateBasketPrice(basket));
+    try {
+      storeController.commitCartReservations(reservations);
+    } catch (NonExistentData | RuntimeException e) {
+      // pinned holds don't expire, so this happens only if a store was removed meanwhile
+      MarketLogger.logError("MarketImpl", "purchase", String.format(
+          "Error msg: %s. could not commit %s user cart reservations, refunding the payment",
+          e.getMessage(), name));
+      String paymentId = String.valueOf(res.getStatus());
+      UnitOfWork.suspend(() -> paymentService.refundPayment(paymentId));
+      throw e;
     }
 
+    long checkoutStart = System.nanoTime();
+    if (checkoutMode == CheckoutMode.OUTBOX) {
+      List<DataOutboxEntry> entries = new ArrayList<>();
+      for (IStoreBasket basket : cart.getStoreBaskets())
+        entries.add(new DataOutboxEntry(basket.getStoreId(), name, storeController.calculateBasketPrice(basket),
+                basket.getProductsAsRecords(), deliveryAddress,
+                purchaseNotification(name, basket.getBasketPriceAfterDiscount())));
+      outboxRepo.addEntries(entries);
+      user.removeUserCart();
+      logCheckoutTime(name, checkoutStart);
+      return;
+    }
+    // the cart is paid for, so it is removed before the baskets are completed. The supply calls commit the unit
+    // of work before they start, so the removal and the recorded transactions stay if a basket fails.
+    List<IStoreBasket> baskets = cart.getStoreBaskets();
     user.removeUserCart();
+    List<String> failures = checkoutMode == CheckoutMode.CONCURRENT
+            ? UnitOfWork.suspend(() -> checkoutBasketsConcurrently(baskets, name, deliveryAddress))
+            : checkoutBasketsSerially(baskets, name, deliveryAddress);
+    logCheckoutTime(name, checkoutStart);
+    if (!failures.isEmpty())
+      throw new PurchaseError(String.format(
+              "Payment was processed but %d store baskets failed to complete: %s",
+              failures.size(), String.join("; ", failures)),
+              BASKET_CHECKOUT_FAILED);
+  }
+
+  // fails if the supply order of the basket failed
+  private void checkoutBasket(IStoreBasket basket, String name, AddressRecord deliveryAddress)
+          throws NonExistentData, PermissionError {
+    IStore store = storeController.getStore(basket.getStoreId());
+    notificationService.broadcastMessage(store.getStoreRoles("System").keySet().stream().toList(),
+            purchaseNotification(name, basket.getBasketPriceAfterDiscount()),
+            "System notification from "+store.getStoreName());
+    transactionRepo.addTransaction(basket, name, storeController.calculateBasketPrice(basket));
+    Response<?> order = UnitOfWork.suspend(() -> supplyService.placeOrder(store, deliveryAddress, basket.getProductsAsRecords()));
+    if (order != null && Boolean.TRUE.equals(order.isErrorOccurred()))
+      throw new IllegalStateException("supply order failed - " + order.getMessage());
+  }
+
+  /**
+   * Runs checkoutBasket for every basket in order. A failing basket doesn't stop the others.
+   *
+   * @return a description for every basket that failed, empty if all of them completed
+   */
+  private List<String> checkoutBasketsSerially(List<IStoreBasket> baskets, String name,
+                                               AddressRecord deliveryAddress) {
+    List<String> failures = new ArrayList<>();
+    for (IStoreBasket basket : baskets) {
+      try {
+        checkoutBasket(basket, name, deliveryAddress);
+      } catch (Exception e) {
+        basketFailed(failures, basket.getStoreId(), name, e);
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * Runs checkoutBasket for every basket on the checkout executor and waits for all of them.
+   * A failing basket doesn't stop the others.
+   *
+   * @return a description for every basket that failed, empty if all of them completed
+   */
+  private List<String> checkoutBasketsConcurrently(List<IStoreBasket> baskets, String name,
+                                                   AddressRecord deliveryAddress) {
+    Map<Integer, Future<?>> tasks = new HashMap<>();
+    for (IStoreBasket basket : baskets)
+      tasks.put(basket.getStoreId(), checkoutExecutor.submit(() -> {
+        checkoutBasket(basket, name, deliveryAddress);
+        return null;
+      }));
+
+    List<String> failures = new ArrayList<>();
+    for (Map.Entry<Integer, Future<?>> task : tasks.entrySet()) {
+      try {
+        task.getValue().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failures.add(String.format("store %d: interrupted while waiting for checkout", task.getKey()));
+      } catch (ExecutionException e) {
+        basketFailed(failures, task.getKey(), name, e.getCause() == null ? e : e.getCause());
+      }
+    }
+    return failures;
+  }
+
+  private void basketFailed(List<String> failures, int storeId, String name, Throwable cause) {
+    MarketLogger.logError("MarketImpl", "purchase", String.format(
+            "Error msg: %s. could not complete basket of store %d for user: %s.",
+            cause.getMessage(), storeId, name));
+    failures.add(String.format("store %d: %s", storeId, cause.getMessage()));
+  }
+
+  private String purchaseNotification(String name, double price) {
+    return "System notification:\nThe user: "+name + " bought "+price+"$ from the store";
+  }
+
+  private void logCheckoutTime(String name, long checkoutStart) {
+    MarketLogger.logDebug("MarketImpl", "purchase", String.format(
+            "%s checkout for %s took %d ms", checkoutMode, name,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkoutStart)));
+  }
+
+  @Override
+  public void setCheckoutMode(CheckoutMode checkoutMode) {
+    this.checkoutMode = checkoutMode;
+  }
+
+  public CheckoutMode getCheckoutMode() {
+    return checkoutMode;
+  }
+
+  public OutboxDispatcher getOutboxDispatcher() {
+    return outboxDispatcher;
+  }
+
+  public int getPendingOutboxCount() {
+    return outboxRepo.getPendingCount();
   }
 
   @Override
@@ -214,6 +382,74 @@ public class MarketImpl implements IMarket {
     }
   }
 
+  @Override
+  public void exportStoreTransactions(int storeId, LocalDateTime startDateTime,
+                                      LocalDateTime endDateTime,
+                                      Consumer<Transaction> consumer) throws DataError {
+    DateTimeRange range = exportRange(startDateTime, endDateTime);
+    try {
+      transactionRepo.forEachStoreTransaction(
+              storeId,
+              range,
+              consumer
+      );
+    } catch (Exception e) {
+      MarketLogger.logError("MarketImpl", "exportStoreTransactions", String.format(
+              "Error msg: %s. could not export %s store transactions",
+              e.getMessage(), storeId));
+      throw e;
+    }
+  }
+
+  @Override
+  public void exportTransactions(LocalDateTime startDateTime,
+                                 LocalDateTime endDateTime,
+                                 Consumer<Transaction> consumer) throws DataError {
+    DateTimeRange range = exportRange(startDateTime, endDateTime);
+    try {
+      transactionRepo.forEachTransaction(
+              range,
+              consumer
+      );
+    } catch (Exception e) {
+      MarketLogger.logError("MarketImpl", "exportTransactions", String.format(
+              "Error msg: %s. could not export transactions", e.getMessage()));
+      throw e;
+    }
+  }
+
+  // the range comes straight from the request, so a reversed one is the caller's error
+  private static DateTimeRange exportRange(LocalDateTime startDateTime, LocalDateTime endDateTime) throws DataError {
+    if (startDateTime != null && endDateTime != null && startDateTime.isAfter(endDateTime))
+      throw new DataError("The start of the range is after its end", INVALID_DATE_RANGE);
+    return new DateTimeRange(startDateTime, endDateTime);
+  }
+
+  @Override
+  public SalesReport getStoreSales(int storeId, LocalDate from, LocalDate to,
+                                   int bestSellers) {
+    try {
+      return transactionRepo.getStoreSales(storeId, from, to, bestSellers);
+    } catch (Exception e) {
+      MarketLogger.logError("MarketImpl", "getStoreSales", String.format(
+              "Error msg: %s. could not report %s store sales",
+              e.getMessage(), storeId));
+      throw e;
+    }
+  }
+
+  @Override
+  public SalesReport getMarketSales(LocalDate from, LocalDate to,
+                                    int bestSellers) {
+    try {
+      return transactionRepo.getMarketSales(from, to, bestSellers);
+    } catch (Exception e) {
+      MarketLogger.logError("MarketImpl", "getMarketSales", String.format(
+              "Error msg: %s. could not report the market sales", e.getMessage()));
+      throw e;
+    }
+  }
+
   public List<Transaction>
   getUserTransactions(String userName, LocalDateTime optionalStartDateTime,
                              LocalDateTime optionalEndDateTime) {
@@ -250,8 +486,14 @@ public class MarketImpl implements IMarket {
   @Override
   public void addTransaction(IStoreBasket basket, String userName,
                              double price) {
+    addTransaction(basket, userName, price, LocalDateTime.now());
+  }
+
+  @Override
+  public void addTransaction(IStoreBasket basket, String userName,
+                             double price, LocalDateTime time) {
     try {
-      transactionRepo.addTransaction(basket, userName, price);
+      transactionRepo.addTransaction(basket, userName, price, time);
     } catch (Exception e) {
       MarketLogger.logError("MarketImpl", "addTransaction", String.format(
           "Error msg: %s. could not add transaction", e.getMessage()));
@@ -305,7 +547,8 @@ public class MarketImpl implements IMarket {
     //calculate the offer price
     double price = offer.getOfferedPrice() * offer.getOfferedQuantity();
     //process payment
-    Response res = paymentService.processPayment(paymentDetails.setPrice(price));
+    PaymentDetails charge = paymentDetails.setPrice(price);
+    Response res = UnitOfWork.suspend(() -> paymentService.processPayment(charge));
 
     if (res.isErrorOccurred()) {
       MarketLogger.logError("MarketImpl", "purchase", String.format(
@@ -318,19 +561,24 @@ public class MarketImpl implements IMarket {
       );
     }
 
-    //supply the purchase
     Map<Integer, ProductRecord> products = new HashMap<>();
     products.put(productID, offer.getProduct());
-    supplyService.placeOrder(store, deliveryAddress, products);
-
-    //notify to store manager for purchase
-    notificationService.broadcastMessage(store.getStoreRoles("System").keySet().stream().toList(),
-            "System notification:\nThe user: "+offeringMember + " bought "+ price+
-                    "$ from the store", "System notification from "+store.getStoreName());
+    if (checkoutMode == CheckoutMode.OUTBOX) {
+      //supply, notify and add to history later
+      outboxRepo.addEntries(List.of(new DataOutboxEntry(storeID, offeringMember, price, products, deliveryAddress,
+              purchaseNotification(offeringMember, price))));
+    } else {
+      //supply the purchase
+      UnitOfWork.suspend(() -> supplyService.placeOrder(store, deliveryAddress, products));
+
+      //notify to store manager for purchase
+      notificationService.broadcastMessage(store.getStoreRoles("System").keySet().stream().toList(),
+              purchaseNotification(offeringMember, price), "System notification from "+store.getStoreName());
 
-    //add transaction to history
-    IStoreBasket basket = new DummyStoreBasket(storeID, LocalDate.now(), products.values());
-    transactionRepo.addTransaction(basket, offeringMember, price);
+      //add transaction to history
+      IStoreBasket basket = new DummyStoreBasket(storeID, LocalDate.now(), products.values());
+      transactionRepo.addTransaction(basket, offeringMember, price);
+    }
     store.removeOffer("System", offerID);
     userController.getMember(offeringMember).removeOffer(offerID);
   }
@@ -20,6 +20,20 @@ public class MarketLogger {
     logger.log(record);
   }
 
+  // debug events are dropped unless the level of the logger is lowered to FINE
+  public static void logDebug(String className, String functionName, String msg) {
+    if (!init)
+      init();
+    if (!logger.isLoggable(Level.FINE))
+      return;
+
+    LogRecord record = new LogRecord(Level.FINE, msg);
+    record.setLoggerName("Market Event Logger");
+    record.setSourceClassName(className);
+    record.setSourceMethodName(functionName);
+    logger.log(record);
+  }
+
   public static void logError(String className, String functionName, String errorMsg, Object... params) {
     if (!init)
       init();
@@ -33,7 +47,7 @@ public class MarketLogger {
 
   private static void init() {
     try {
-      logger.setLevel(Level.ALL);
+      logger.setLevel(Level.INFO);
       Handler fh = new FileHandler("./log.txt", true);
       fh.setLevel(Level.ALL);
       Formatter formatter = new SimpleFormatter();
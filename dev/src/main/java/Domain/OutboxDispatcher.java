@@ -0,0 +1,133 @@
+package Domain;
+
+import DataLayer.IOutboxRepo;
+import DataLayer.ORM.DataOutboxEntry;
+import DataLayer.UnitOfWork;
+import Domain.Services.Response;
+import Domain.Store.IStore;
+import Domain.User.DummyStoreBasket;
+import util.Records.StoreRecords.ProductRecord;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the purchase outbox in the background.
+ * Every entry is done step by step (notify, supply order, transaction) and every completed step is
+ * saved on the entry, so a failed entry is retried from the step that failed, with an exponential backoff.
+ * The supply order is placed with the key of the entry, so an order that went through before its step was saved
+ * isn't placed again by the retry.
+ * Entries that keep failing are marked as failed after MAX_ATTEMPTS and left in the outbox for inspection.
+ */
+public class OutboxDispatcher {
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long POLL_INTERVAL_MS = 500;
+    private static final long MAX_BACKOFF_SECONDS = 300;
+
+    private final MarketImpl market;
+    private final IOutboxRepo outboxRepo;
+    private ScheduledExecutorService scheduler;
+
+    public OutboxDispatcher(MarketImpl market, IOutboxRepo outboxRepo) {
+        this.market = market;
+        this.outboxRepo = outboxRepo;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "market-outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::dispatchDue, POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    public void dispatchDue() {
+        try {
+            dispatchDue(LocalDateTime.now());
+        } catch (Exception e) {
+            // the scheduler drops the task if it throws
+            MarketLogger.logError("OutboxDispatcher", "dispatchDue", String.format(
+                    "Error msg: %s. could not drain the outbox", e.getMessage()));
+        }
+    }
+
+    /**
+     * Claims the entries that are due at the given time and dispatches them.
+     * Only one drain runs at a time in an instance, and the claims keep the other instances off the entries,
+     * so an entry is never dispatched twice in parallel.
+     */
+    public synchronized void dispatchDue(LocalDateTime now) {
+        for (DataOutboxEntry entry : outboxRepo.claimDueEntries(now))
+            dispatch(entry, now);
+    }
+
+    private void dispatch(DataOutboxEntry entry, LocalDateTime now) {
+        try {
+            IStore store = market.getStoreController().getStore(entry.getStoreId());
+            Map<Integer, ProductRecord> products = entry.getProducts();
+
+            if (!entry.isNotified()) {
+                market.getNotificationService().broadcastMessage(
+                        store.getStoreRoles("System").keySet().stream().toList(),
+                        entry.getNotification(), "System notification from " + store.getStoreName());
+                entry.setNotified(true);
+                outboxRepo.update(entry);
+            }
+            if (!entry.isOrdered()) {
+                Response<?> order = market.getSupplyService().placeOrder(store, entry.getDeliveryAddress(), products,
+                        entry.getOrderKey());
+                if (order != null && Boolean.TRUE.equals(order.isErrorOccurred()))
+                    throw new IllegalStateException("supply order failed - " + order.getMessage());
+                entry.setOrdered(true);
+                outboxRepo.update(entry);
+            }
+            if (!entry.isRecorded())
+                record(entry, products);
+            outboxRepo.remove(entry);
+        } catch (Exception e) {
+            entry.release();
+            long backoff = Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(entry.getAttempts(), 16));
+            entry.attemptFailed(e.getMessage(), now.plusSeconds(backoff));
+            if (entry.getAttempts() >= MAX_ATTEMPTS)
+                entry.setFailed(true);
+            MarketLogger.logError("OutboxDispatcher", "dispatch", String.format(
+                    "Error msg: %s. outbox entry %d of store %d failed (attempt %d%s)",
+                    e.getMessage(), entry.getId(), entry.getStoreId(), entry.getAttempts(),
+                    entry.isFailed() ? ", giving up" : ""));
+            try {
+                outboxRepo.update(entry);
+            } catch (RuntimeException lost) {
+                // the lease ran out and another instance is retrying the entry
+                MarketLogger.logError("OutboxDispatcher", "dispatch", String.format(
+                        "Error msg: %s. could not reschedule outbox entry %d", lost.getMessage(), entry.getId()));
+            }
+        }
+    }
+
+    // the transaction and the recorded step are committed together, so a retry never records it twice
+    private void record(DataOutboxEntry entry, Map<Integer, ProductRecord> products) {
+        try {
+            UnitOfWork.run(() -> {
+                market.addTransaction(new DummyStoreBasket(entry.getStoreId(), null, products.values()),
+                        entry.getUsername(), entry.getPrice(), entry.getCreatedAt());
+                entry.setRecorded(true);
+                outboxRepo.update(entry);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            entry.setRecorded(false);
+            throw e;
+        }
+    }
+}
@@ -18,9 +18,25 @@ public interface ISupplyService {
    * @param products the list of products to order
    * @return the order that was placed
    */
+  public default Response<Order>
+  placeOrder(@NonNull IStore store, @NonNull AddressRecord deliveryAddress,
+             @NonNull Map<Integer, ProductRecord> products) { // Map<prodID, quantity>
+    return placeOrder(store, deliveryAddress, products, null);
+  }
+
+  /**
+   * Places an order like {@link #placeOrder(IStore, AddressRecord, Map)}, at most once per idempotency key.
+   * An order placed again with the key of an order that was already placed returns the first order.
+   *
+   * @param store the store to order from
+   * @param deliveryAddress the user address who is placing the order
+   * @param products the list of products to order
+   * @param idempotencyKey identifies the order across retries, or null if the order may be placed again
+   * @return the order that was placed
+   */
   public Response<Order>
   placeOrder(@NonNull IStore store, @NonNull AddressRecord deliveryAddress,
-             @NonNull Map<Integer, ProductRecord> products); // Map<prodID, quantity>
+             @NonNull Map<Integer, ProductRecord> products, String idempotencyKey);
 
   /**
    * Cancels the specified order.
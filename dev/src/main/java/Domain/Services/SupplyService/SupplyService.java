@@ -6,6 +6,10 @@ import java.util.HashMap;
 import java.util.Map;
 public class SupplyService {
 
+  public int deliverOrder(String name, String address, String city, String country, String zip) throws IOException {
+    return deliverOrder(name, address, city, country, zip, null);
+  }
+
   /**
    * This action type is used for dispatching a delivery to a costumer
    * @param name
@@ -13,11 +17,13 @@ public class SupplyService {
    * @param city
    * @param country
    * @param zip
+   * @param idempotencyKey - sent with the request when not null, so a retried delivery can be recognized
    * @return transaction id - an integer in the range [10000, 100000] which indicates a
    * transaction number if the transaction succeeds or -1 if the transaction has failed
    * @throws IOException
    */
-  public int deliverOrder(String name, String address, String city, String country, String zip) throws IOException {
+  public int deliverOrder(String name, String address, String city, String country, String zip,
+                          String idempotencyKey) throws IOException {
     handshake();
     Map<String, String> body = new HashMap<>();
     body.put("action_type", "supply");
@@ -26,6 +32,8 @@ public class SupplyService {
     body.put("city", city);
     body.put("country", country);
     body.put("zip", zip);
+    if (idempotencyKey != null)
+      body.put("idempotency_key", idempotencyKey);
     return Integer.valueOf(HttpRequestSender.sendPostRequest("https://external-systems.000webhostapp.com/", body));
   }
 
@@ -1,5 +1,6 @@
 package Domain.Services.SupplyService;
 
+import DataLayer.BoundedCache;
 import Domain.Services.Response;
 import Domain.Store.IStore;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -10,9 +11,12 @@ import java.util.Map;
 import java.util.concurrent.*;
 
 public class SupplyServiceAdapter implements ISupplyService {
+    private static final int PLACED_ORDERS_CAPACITY = 4096;
 
     private SupplyService supplyService;
     private ExecutorService executor;
+    // orders placed with an idempotency key, a retry of one of them is answered without ordering again
+    private final BoundedCache<String, Response> placedOrders = new BoundedCache<>(PLACED_ORDERS_CAPACITY, r -> false);
 
     public SupplyServiceAdapter(SupplyService supplyService) {
         this.supplyService = supplyService;
@@ -22,7 +26,13 @@ public class SupplyServiceAdapter implements ISupplyService {
     @Override
     public Response<Order> placeOrder(@NonNull IStore store,
                                       @NonNull AddressRecord deliveryAddress,
-                                      @NonNull Map<Integer, ProductRecord> products) {
+                                      @NonNull Map<Integer, ProductRecord> products,
+                                      String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Response placed = placedOrders.get(idempotencyKey);
+            if (placed != null)
+                return placed;
+        }
         Order order = new Order(store, deliveryAddress, products);
         Response response = new Response<>("", false, 200);
         try {
@@ -31,7 +41,8 @@ public class SupplyServiceAdapter implements ISupplyService {
                     deliveryAddress.street(),
                     deliveryAddress.city(),
                     deliveryAddress.country(),
-                    deliveryAddress.zip()
+                    deliveryAddress.zip(),
+                    idempotencyKey
             ));
 
             int answer = future.get(10, TimeUnit.SECONDS); // Set the timeout to 10 seconds
@@ -50,6 +61,8 @@ public class SupplyServiceAdapter implements ISupplyService {
             response.setMessage(e.getMessage());
             response.setStatus(400);
         }
+        if (idempotencyKey != null && !response.isErrorOccurred())
+            placedOrders.put(idempotencyKey, response);
         return response;
     }
 
@@ -26,8 +26,9 @@ public class SupplyServiceProxy implements ISupplyService {
   @Override
   public Response<Order> placeOrder(@NonNull IStore store,
                                     @NonNull AddressRecord deliveryAddress,
-                                    @NonNull Map<Integer, ProductRecord> products) {
-    Response res =  supplyServiceAdapter.placeOrder(store, deliveryAddress, products);
+                                    @NonNull Map<Integer, ProductRecord> products,
+                                    String idempotencyKey) {
+    Response res =  supplyServiceAdapter.placeOrder(store, deliveryAddress, products, idempotencyKey);
     if(res.isErrorOccurred())
       MarketLogger.logError("SupplyServiceProxy", "placeOrder", res.getMessage(),
               store.toString(), deliveryAddress.toString(), products.toString());
@@ -0,0 +1,190 @@
+package Domain.Store;
+
+import util.Records.StoreRecords.AutocompleteSuggestion;
+import util.Records.StoreRecords.AutocompleteSuggestion.Type;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefix trie over the names of the products and the active stores attached to it. A name is reachable
+ * from the start of each of its words, and every node keeps the best rated suggestions under it, so a
+ * lookup is a walk down the prefix. Writers are serialized, readers don't lock.
+ */
+public class AutocompleteIndex implements CatalogListener {
+    public static final int TOP_N = 10;
+    private static final Comparator<AutocompleteSuggestion> BEST_FIRST =
+            Comparator.comparingDouble(AutocompleteSuggestion::rating).reversed()
+                    .thenComparing(AutocompleteSuggestion::text)
+                    .thenComparingInt(AutocompleteSuggestion::storeId)
+                    .thenComparingInt(AutocompleteSuggestion::productId);
+
+    private static class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>();
+        private final Map<String, AutocompleteSuggestion> terminals = new HashMap<>(); // <entry key, suggestion ending here>
+        private volatile List<AutocompleteSuggestion> top = List.of(); // best first, at most TOP_N
+    }
+
+    private final Node root = new Node();
+    private final Map<String, AutocompleteSuggestion> entries = new HashMap<>(); // <entry key, suggestion>
+    private final Map<Integer, Set<String>> storeProducts = new HashMap<>(); // <store ID, entry keys of its products>
+    private final Set<Integer> inactiveStores = new HashSet<>();
+
+    /**
+     * Returns the best rated suggestions that have a word starting with the prefix, best first.
+     */
+    public List<AutocompleteSuggestion> complete(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0)
+            return List.of();
+        Node node = root;
+        for (int i = 0; i < normalized.length() && node != null; i++)
+            node = node.children.get(normalized.charAt(i));
+        if (node == null)
+            return List.of();
+        List<AutocompleteSuggestion> top = node.top;
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    @Override
+    public synchronized void storeAttached(IStore store) {
+        storeChanged(store);
+    }
+
+    @Override
+    public synchronized void storeChanged(IStore store) {
+        int storeId = store.getStoreId();
+        remove(storeKey(storeId));
+        if (store.isActive()) {
+            inactiveStores.remove(storeId);
+            insert(storeKey(storeId), new AutocompleteSuggestion(store.getStoreName(), Type.STORE, storeId, -1, store.getStoreRating()));
+        } else {
+            inactiveStores.add(storeId);
+            removeProductsOf(storeId);
+        }
+    }
+
+    @Override
+    public synchronized void productAdded(IProduct product) {
+        if (inactiveStores.contains(product.getStoreId()))
+            return;
+        String key = productKey(product.getStoreId(), product.getProductId());
+        AutocompleteSuggestion suggestion = new AutocompleteSuggestion(product.getProductName(), Type.PRODUCT,
+                product.getStoreId(), product.getProductId(), product.getProductRating());
+        if (suggestion.equals(entries.get(key)))
+            return;
+        remove(key);
+        insert(key, suggestion);
+        storeProducts.computeIfAbsent(product.getStoreId(), storeId -> new HashSet<>()).add(key);
+    }
+
+    @Override
+    public synchronized void productUpdated(IProduct product) {
+        productAdded(product);
+    }
+
+    @Override
+    public synchronized void productRemoved(IProduct product) {
+        String key = productKey(product.getStoreId(), product.getProductId());
+        remove(key);
+        Set<String> keys = storeProducts.get(product.getStoreId());
+        if (keys != null)
+            keys.remove(key);
+    }
+
+    @Override
+    public synchronized void storeRemoved(int storeId) {
+        remove(storeKey(storeId));
+        removeProductsOf(storeId);
+        inactiveStores.remove(storeId);
+    }
+
+    private void removeProductsOf(int storeId) {
+        Set<String> keys = storeProducts.remove(storeId);
+        if (keys != null)
+            for (String key : keys)
+                remove(key);
+    }
+
+    private void insert(String key, AutocompleteSuggestion suggestion) {
+        entries.put(key, suggestion);
+        for (String suffix : wordSuffixes(suggestion.text())) {
+            Node node = root;
+            for (int i = 0; i < suffix.length(); i++) {
+                node = node.children.computeIfAbsent(suffix.charAt(i), c -> new Node());
+                node.top = withSuggestion(node.top, suggestion);
+            }
+            node.terminals.put(key, suggestion);
+        }
+    }
+
+    private void remove(String key) {
+        AutocompleteSuggestion suggestion = entries.remove(key);
+        if (suggestion == null)
+            return;
+        for (String suffix : wordSuffixes(suggestion.text())) {
+            Node[] path = new Node[suffix.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < suffix.length() && path[i] != null; i++)
+                path[i + 1] = path[i].children.get(suffix.charAt(i));
+            if (path[suffix.length()] == null)
+                continue;
+            path[suffix.length()].terminals.remove(key);
+            // rebuild the lists that held the suggestion bottom up, and drop the nodes left empty
+            for (int i = suffix.length(); i > 0; i--) {
+                Node node = path[i];
+                if (node.terminals.isEmpty() && node.children.isEmpty()) {
+                    path[i - 1].children.remove(suffix.charAt(i - 1));
+                    continue;
+                }
+                if (node.top.contains(suggestion))
+                    node.top = recompute(node);
+            }
+        }
+    }
+
+    private static List<AutocompleteSuggestion> withSuggestion(List<AutocompleteSuggestion> top, AutocompleteSuggestion suggestion) {
+        if (top.contains(suggestion))
+            return top;
+        if (top.size() >= TOP_N && BEST_FIRST.compare(suggestion, top.get(top.size() - 1)) > 0)
+            return top;
+        List<AutocompleteSuggestion> result = new ArrayList<>(top);
+        int position = Collections.binarySearch(result, suggestion, BEST_FIRST);
+        result.add(position < 0 ? -position - 1 : position, suggestion);
+        if (result.size() > TOP_N)
+            result.remove(result.size() - 1);
+        return List.copyOf(result);
+    }
+
+    private static List<AutocompleteSuggestion> recompute(Node node) {
+        Set<AutocompleteSuggestion> candidates = new HashSet<>(node.terminals.values());
+        for (Node child : node.children.values())
+            candidates.addAll(child.top);
+        return candidates.stream().sorted(BEST_FIRST).limit(TOP_N).toList();
+    }
+
+    // the normalized name from the start of each of its words
+    private static Set<String> wordSuffixes(String text) {
+        String normalized = normalize(text);
+        Set<String> suffixes = new LinkedHashSet<>();
+        if (normalized.isEmpty())
+            return suffixes;
+        suffixes.add(normalized);
+        for (int i = 0; i < normalized.length(); i++)
+            if (normalized.charAt(i) == ' ')
+                suffixes.add(normalized.substring(i + 1));
+        return suffixes;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private static String storeKey(int storeId) {
+        return "s" + storeId;
+    }
+
+    private static String productKey(int storeId, int productId) {
+        return "p" + storeId + ":" + productId;
+    }
+}
@@ -0,0 +1,55 @@
+package Domain.Store;
+
+import Domain.User.IStoreBasket;
+import util.Records.StoreRecords.PriceCacheStats;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last calculated price of each basket of a store, valid while the basket, the store catalog and the store
+ * discounts are at the versions it was calculated at. Baskets are held weakly.
+ */
+public class BasketPriceCache {
+    private record Entry(long basketVersion, int catalogVersion, int discountsVersion, double price) {
+    }
+
+    private final Map<IStoreBasket, Entry> entries = Collections.synchronizedMap(new WeakHashMap<>());
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    public OptionalDouble get(IStoreBasket basket, int catalogVersion, int discountsVersion) {
+        Entry entry = entries.get(basket);
+        if (entry != null
+                && entry.basketVersion() == basket.getVersion()
+                && entry.catalogVersion() == catalogVersion
+                && entry.discountsVersion() == discountsVersion) {
+            hits.incrementAndGet();
+            return OptionalDouble.of(entry.price());
+        }
+        misses.incrementAndGet();
+        return OptionalDouble.empty();
+    }
+
+    /**
+     * Returns true if the basket was last priced at the given catalog and discounts versions,
+     * so only the lines it changed since then need a new price.
+     */
+    public boolean isPricedAt(IStoreBasket basket, int catalogVersion, int discountsVersion) {
+        Entry entry = entries.get(basket);
+        return entry != null
+                && entry.catalogVersion() == catalogVersion
+                && entry.discountsVersion() == discountsVersion;
+    }
+
+    public void put(IStoreBasket basket, long basketVersion, int catalogVersion, int discountsVersion, double price) {
+        entries.put(basket, new Entry(basketVersion, catalogVersion, discountsVersion, price));
+    }
+
+    public PriceCacheStats getStats() {
+        return new PriceCacheStats(hits.get(), misses.get());
+    }
+}
@@ -0,0 +1,54 @@
+package Domain.Store;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Publishes the catalog changes of the stores to the subscribed listeners.
+ */
+public class CatalogEvents {
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void subscribe(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void storeAttached(IStore store) {
+        for (CatalogListener listener : listeners)
+            listener.storeAttached(store);
+    }
+
+    public void storeChanged(IStore store) {
+        for (CatalogListener listener : listeners)
+            listener.storeChanged(store);
+    }
+
+    public void productAdded(IProduct product) {
+        for (CatalogListener listener : listeners)
+            listener.productAdded(product);
+    }
+
+    public void productUpdated(IProduct product) {
+        for (CatalogListener listener : listeners)
+            listener.productUpdated(product);
+    }
+
+    public void stockChanged(IProduct product) {
+        for (CatalogListener listener : listeners)
+            listener.stockChanged(product);
+    }
+
+    public void productRemoved(IProduct product) {
+        for (CatalogListener listener : listeners)
+            listener.productRemoved(product);
+    }
+
+    public void storeRemoved(int storeId) {
+        for (CatalogListener listener : listeners)
+            listener.storeRemoved(storeId);
+    }
+}
@@ -0,0 +1,34 @@
+package Domain.Store;
+
+/**
+ * Receives the changes to the products of the stores it was subscribed to through {@link CatalogEvents}.
+ */
+public interface CatalogListener {
+
+    /**
+     * Called when a store starts publishing its catalog, right before its current products are published as added.
+     */
+    default void storeAttached(IStore store) {
+    }
+
+    /**
+     * Called when the name, description or state of a store changes.
+     */
+    default void storeChanged(IStore store) {
+    }
+
+    void productAdded(IProduct product);
+
+    void productUpdated(IProduct product);
+
+    void productRemoved(IProduct product);
+
+    /**
+     * Called when only the quantity of a product changes, on every reservation and purchase.
+     */
+    default void stockChanged(IProduct product) {
+    }
+
+    default void storeRemoved(int storeId) {
+    }
+}
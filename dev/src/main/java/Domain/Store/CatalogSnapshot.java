@@ -0,0 +1,189 @@
+package Domain.Store;
+
+import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.StoreRecord;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of the stores and their products, for the browsing reads.
+ * Every change builds a new snapshot that copies only the trie nodes on the path to the change and shares the rest.
+ * Stock isn't part of the snapshot, the quantity of a product is read from the product when it is returned.
+ * Reads return read-only views over the snapshot, so they don't lock or copy.
+ */
+public class CatalogSnapshot {
+    public static final CatalogSnapshot EMPTY =
+            new CatalogSnapshot(PersistentIntMap.empty(), PersistentIntMap.empty(), List.of());
+
+    // a product as it was last published, and the product itself for its current stock
+    private record Listing(ProductRecord record, IProduct product) {
+        private ProductRecord current() {
+            int quantity = product.getProductQuantity();
+            return quantity == record.quantity() ? record : record.updateQuantity(quantity);
+        }
+    }
+
+    // the products of a store as a read-only map of their current records
+    private static final class StoreProducts extends AbstractMap<Integer, ProductRecord> {
+        private final PersistentIntMap<Listing> listings; // <product ID, product>
+
+        private StoreProducts(PersistentIntMap<Listing> listings) {
+            this.listings = listings;
+        }
+
+        @Override
+        public ProductRecord get(Object key) {
+            Listing listing = key instanceof Integer productId ? listings.get(productId) : null;
+            return listing == null ? null : listing.current();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer productId && listings.get(productId) != null;
+        }
+
+        @Override
+        public int size() {
+            return listings.size();
+        }
+
+        @Override
+        public Set<Entry<Integer, ProductRecord>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, ProductRecord>> iterator() {
+                    Iterator<Entry<Integer, Listing>> entries = listings.asMap().entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Integer, ProductRecord> next() {
+                            Entry<Integer, Listing> entry = entries.next();
+                            return Map.entry(entry.getKey(), entry.getValue().current());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return listings.size();
+                }
+            };
+        }
+    }
+
+    private final PersistentIntMap<StoreRecord> stores; // <store ID, store>
+    private final PersistentIntMap<StoreProducts> products; // <store ID, products>
+    private final List<StoreRecord> activeStores;
+    private final Map<Integer, Map<Integer, ProductRecord>> activeStoresProducts = new AbstractMap<>() {
+        @Override
+        public Map<Integer, ProductRecord> get(Object key) {
+            StoreRecord store = key instanceof Integer storeId ? stores.get(storeId) : null;
+            return store == null || !store.isActive() ? null : getProducts(store.storeId());
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return activeStores.size();
+        }
+
+        @Override
+        public Set<Entry<Integer, Map<Integer, ProductRecord>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, Map<Integer, ProductRecord>>> iterator() {
+                    Iterator<StoreRecord> active = activeStores.iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return active.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Integer, Map<Integer, ProductRecord>> next() {
+                            int storeId = active.next().storeId();
+                            return Map.entry(storeId, getProducts(storeId));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return activeStores.size();
+                }
+            };
+        }
+    };
+
+    private CatalogSnapshot(PersistentIntMap<StoreRecord> stores, PersistentIntMap<StoreProducts> products,
+                            List<StoreRecord> activeStores) {
+        this.stores = stores;
+        this.products = products;
+        this.activeStores = activeStores;
+    }
+
+    public StoreRecord getStore(int storeId) {
+        return stores.get(storeId);
+    }
+
+    public List<StoreRecord> getActiveStores() {
+        return activeStores;
+    }
+
+    public Map<Integer, ProductRecord> getProducts(int storeId) {
+        StoreProducts storeProducts = products.get(storeId);
+        return storeProducts == null ? Map.of() : storeProducts;
+    }
+
+    /**
+     * Returns the products of the active stores by store ID.
+     */
+    public Map<Integer, Map<Integer, ProductRecord>> getActiveStoresProducts() {
+        return activeStoresProducts;
+    }
+
+    public CatalogSnapshot withStore(StoreRecord store) {
+        return withStores(stores.with(store.storeId(), store), products);
+    }
+
+    public CatalogSnapshot withoutStore(int storeId) {
+        return withStores(stores.without(storeId), products.without(storeId));
+    }
+
+    public CatalogSnapshot withProduct(IProduct product) {
+        StoreProducts storeProducts = products.get(product.getStoreId());
+        PersistentIntMap<Listing> listings = storeProducts == null ? PersistentIntMap.empty() : storeProducts.listings;
+        listings = listings.with(product.getProductId(), new Listing(new ProductRecord(product), product));
+        return new CatalogSnapshot(stores, products.with(product.getStoreId(), new StoreProducts(listings)), activeStores);
+    }
+
+    public CatalogSnapshot withoutProduct(int storeId, int productId) {
+        StoreProducts storeProducts = products.get(storeId);
+        if (storeProducts == null || storeProducts.listings.get(productId) == null)
+            return this;
+        PersistentIntMap<Listing> listings = storeProducts.listings.without(productId);
+        return new CatalogSnapshot(stores,
+                listings.size() == 0 ? products.without(storeId) : products.with(storeId, new StoreProducts(listings)),
+                activeStores);
+    }
+
+    // the active stores only change with the stores, so product changes keep the list
+    private static CatalogSnapshot withStores(PersistentIntMap<StoreRecord> stores,
+                                              PersistentIntMap<StoreProducts> products) {
+        return new CatalogSnapshot(stores, products,
+                stores.asMap().values().stream().filter(StoreRecord::isActive).toList());
+    }
+}
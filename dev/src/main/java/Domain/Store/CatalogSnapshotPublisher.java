@@ -0,0 +1,46 @@
+package Domain.Store;
+
+import util.Records.StoreRecords.StoreRecord;
+
+/**
+ * Keeps the current {@link CatalogSnapshot} of the stores attached to it. Writers are serialized and swap in
+ * a new snapshot, readers take the current one without locking. Stock changes aren't published, the snapshot
+ * reads the stock from the products.
+ */
+public class CatalogSnapshotPublisher implements CatalogListener {
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public synchronized void storeAttached(IStore store) {
+        snapshot = snapshot.withStore(new StoreRecord(store));
+    }
+
+    @Override
+    public synchronized void storeChanged(IStore store) {
+        snapshot = snapshot.withStore(new StoreRecord(store));
+    }
+
+    @Override
+    public synchronized void productAdded(IProduct product) {
+        snapshot = snapshot.withProduct(product);
+    }
+
+    @Override
+    public synchronized void productUpdated(IProduct product) {
+        snapshot = snapshot.withProduct(product);
+    }
+
+    @Override
+    public synchronized void productRemoved(IProduct product) {
+        snapshot = snapshot.withoutProduct(product.getStoreId(), product.getProductId());
+    }
+
+    @Override
+    public synchronized void storeRemoved(int storeId) {
+        snapshot = snapshot.withoutStore(storeId);
+    }
+}
@@ -3,7 +3,7 @@ package Domain.Store.Conditions;
 import DataLayer.Store.ORM.DataCondition;
 import Domain.Store.Category;
 import Domain.User.IStoreBasket;
-import util.Records.StoreRecords.ProductRecord;
+import Domain.Store.Discount.Plan.CompiledCondition;
 
 public class CategoryLimit extends Condition {
 
@@ -35,10 +35,12 @@ public class CategoryLimit extends Condition {
 
     @Override
     public boolean checkCondition(IStoreBasket basket) {
-        return basket.getProductsAsRecords().values().stream()
-                .filter(record -> record.productCategory() == category)
-                .mapToInt(ProductRecord::quantity)
-                .sum() <= quantity;
+        return basket.getAggregates().getCategoryQuantity(category) <= quantity;
+    }
+
+    @Override
+    public CompiledCondition compile() {
+        return prices -> prices.categoryQuantity(category) <= quantity;
     }
 
     @Override
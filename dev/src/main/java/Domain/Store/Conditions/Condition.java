@@ -3,6 +3,7 @@ package Domain.Store.Conditions;
 import DataLayer.Store.ORM.*;
 import DataLayer.Store.ORM.Discount.DataDiscount;
 import Domain.Store.Category;
+import Domain.Store.Discount.Plan.CompiledCondition;
 import Domain.User.IStoreBasket;
 
 import java.util.Map;
@@ -45,6 +46,13 @@ public abstract class Condition {
 
     public abstract boolean checkCondition(IStoreBasket basket);
 
+    public abstract CompiledCondition compile();
+
+    // true if the result may change with the clock for the same basket
+    public boolean isTimeDependent() {
+        return false;
+    }
+
     public int getQuantity() {
         return 0;
     }
@@ -2,7 +2,7 @@ package Domain.Store.Conditions;
 
 import DataLayer.Store.ORM.DataCondition;
 import Domain.User.IStoreBasket;
-import util.Records.StoreRecords.ProductRecord;
+import Domain.Store.Discount.Plan.CompiledCondition;
 
 public class LimitQuantity extends Condition{
 
@@ -26,9 +26,12 @@ public class LimitQuantity extends Condition{
 
     @Override
     public boolean checkCondition(IStoreBasket basket) {
-        return basket.getProductsAsRecords().values().stream()
-                .mapToInt(ProductRecord::quantity)
-                .sum() <= quantity;
+        return basket.getAggregates().getTotalQuantity() <= quantity;
+    }
+
+    @Override
+    public CompiledCondition compile() {
+        return prices -> prices.totalQuantity() <= quantity;
     }
 
     @Override
@@ -2,6 +2,7 @@ package Domain.Store.Conditions;
 
 import DataLayer.Store.ORM.DataCondition;
 import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledCondition;
 
 public class MinBasketPrice extends Condition{
     private final double price;
@@ -27,6 +28,11 @@ public class MinBasketPrice extends Condition{
         return basket.getBasketPriceAfterDiscount() >= price;
     }
 
+    @Override
+    public CompiledCondition compile() {
+        return prices -> prices.total() >= price;
+    }
+
     @Override
     public String toString(){
         return String.format("MinBasketPrice(%f)", getPrice());
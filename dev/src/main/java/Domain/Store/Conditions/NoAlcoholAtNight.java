@@ -3,6 +3,7 @@ package Domain.Store.Conditions;
 import DataLayer.Store.ORM.DataCondition;
 import Domain.Store.Category;
 import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledCondition;
 import java.time.LocalTime;
 
 public class NoAlcoholAtNight extends Condition{
@@ -22,9 +23,21 @@ public class NoAlcoholAtNight extends Condition{
     public boolean checkCondition(IStoreBasket basket) {
         LocalTime currentTime = LocalTime.now();
         return ((currentTime.isAfter(START_TIME) && currentTime.isBefore(END_TIME)) ||
-                basket.getProductsAsRecords()
-                        .values().stream()
-                        .noneMatch(record -> record.productCategory() == Category.ALCOHOL));
+                !basket.getAggregates().containsCategory(Category.ALCOHOL));
+    }
+
+    @Override
+    public CompiledCondition compile() {
+        return prices -> {
+            LocalTime currentTime = LocalTime.now();
+            return (currentTime.isAfter(START_TIME) && currentTime.isBefore(END_TIME)) ||
+                    !prices.containsCategory(Category.ALCOHOL);
+        };
+    }
+
+    @Override
+    public boolean isTimeDependent() {
+        return true;
     }
 
     @Override
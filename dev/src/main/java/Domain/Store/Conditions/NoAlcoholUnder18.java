@@ -3,6 +3,7 @@ package Domain.Store.Conditions;
 import DataLayer.Store.ORM.DataCondition;
 import Domain.Store.Category;
 import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledCondition;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -25,12 +26,26 @@ public class NoAlcoholUnder18 extends Condition {
         calendar.add(Calendar.YEAR, -18);
         LocalDate date18YearsAgo = calendar.getTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
         return (basket.getUserAge().isBefore(date18YearsAgo) ||
-                basket.getProductsAsRecords()
-                        .values().stream()
-                        .noneMatch(record -> record.productCategory() == Category.ALCOHOL));
+                !basket.getAggregates().containsCategory(Category.ALCOHOL));
 
     }
 
+    @Override
+    public CompiledCondition compile() {
+        return prices -> {
+            Calendar calendar = Calendar.getInstance();
+            calendar.add(Calendar.YEAR, -18);
+            LocalDate date18YearsAgo = calendar.getTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            return prices.getUserAge().isBefore(date18YearsAgo) ||
+                    !prices.containsCategory(Category.ALCOHOL);
+        };
+    }
+
+    @Override
+    public boolean isTimeDependent() {
+        return true;
+    }
+
     @Override
     public String toString(){
         return "NoAlcoholUnder18()";
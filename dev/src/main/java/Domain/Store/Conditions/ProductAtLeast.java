@@ -2,7 +2,7 @@ package Domain.Store.Conditions;
 
 import DataLayer.Store.ORM.DataCondition;
 import Domain.User.IStoreBasket;
-import util.Records.StoreRecords.ProductRecord;
+import Domain.Store.Discount.Plan.CompiledCondition;
 
 public class ProductAtLeast extends Condition {
 
@@ -34,10 +34,12 @@ public class ProductAtLeast extends Condition {
 
     @Override
     public boolean checkCondition(IStoreBasket basket) {
-        return basket.getProductsAsRecords().values().stream()
-                .filter(record -> record.productId() == productId)
-                .mapToInt(ProductRecord::quantity)
-                .sum() >= quantity;
+        return basket.getAggregates().getProductQuantity(productId) >= quantity;
+    }
+
+    @Override
+    public CompiledCondition compile() {
+        return prices -> prices.productQuantity(productId) >= quantity;
     }
 
     @Override
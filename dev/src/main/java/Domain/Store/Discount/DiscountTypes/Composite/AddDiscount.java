@@ -7,8 +7,8 @@ import Domain.Store.Discount.DiscountTypes.Simple.CategoryDiscount;
 import Domain.Store.Discount.DiscountTypes.Simple.ProductDiscount;
 import Domain.Store.Discount.DiscountTypes.Simple.StoreDiscount;
 import Domain.Store.Discount.IDiscount;
-import Domain.User.IStoreBasket;
-import util.Records.StoreRecords.ProductRecord;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountCompiler;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -55,20 +55,27 @@ public class AddDiscount extends CompositeDiscount {
     }
 
     @Override
-    public void applyDiscountOnBasket(IStoreBasket basket) {
-        Double baseDiscount = 1.;
+    public CompiledDiscount compile() {
+        double baseDiscount = 1.;
         for (StoreDiscount disc : storeDiscounts)
             baseDiscount -= (1 - disc.getPercentage());
-        for (ProductRecord product : basket.getProductsAsRecords().values()){
-            Double discount = baseDiscount;
-            if (productDiscounts.containsKey(product.productId()))
-                discount -= (1 - productDiscounts.get(product.productId()).getPercentage());
-            if (categoryDiscounts.containsKey(product.productCategory()))
-                discount -= (1 - categoryDiscounts.get(product.productCategory()).getPercentage());
-            double discountedPrice = discount * product.priceAfterDiscount();
-            ProductRecord newProduct = product.updatePriceAfterDiscount(discountedPrice);
-            basket.updateProductRecord(newProduct);
-        }
+        Map<Integer, Double> productCuts = new HashMap<>();
+        for (Map.Entry<Integer, ProductDiscount> entry : productDiscounts.entrySet())
+            productCuts.put(entry.getKey(), 1 - entry.getValue().getPercentage());
+        Map<Category, Double> categoryCuts = new HashMap<>();
+        for (Map.Entry<Category, CategoryDiscount> entry : categoryDiscounts.entrySet())
+            categoryCuts.put(entry.getKey(), 1 - entry.getValue().getPercentage());
+        return DiscountCompiler.additive(baseDiscount, productCuts, categoryCuts);
+    }
+
+    @Override
+    public boolean isLineLocal() {
+        return true;
+    }
+
+    @Override
+    public boolean appliesTo(int productId, Category category) {
+        return !storeDiscounts.isEmpty() || productDiscounts.containsKey(productId) || categoryDiscounts.containsKey(category);
     }
 
     @Override
@@ -5,6 +5,8 @@ import Domain.Store.Conditions.Condition;
 import Domain.Store.Discount.DiscountTypes.CompositeDiscount;
 import Domain.Store.Discount.IDiscount;
 import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountCompiler;
 import util.Enums.ErrorStatus;
 import util.Exceptions.DataError;
 
@@ -38,9 +40,9 @@ public class AndDiscount extends CompositeDiscount {
         return true;
     }
 
-    public void applyDiscountOnBasket(IStoreBasket basket) {
-        if(checkCondition(basket))
-            discount.applyDiscountOnBasket(basket);
+    @Override
+    public CompiledDiscount compile() {
+        return DiscountCompiler.when(DiscountCompiler.all(conditions), discount.compile());
     }
 
     @Override
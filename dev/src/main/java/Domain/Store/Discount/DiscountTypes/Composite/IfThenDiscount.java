@@ -4,7 +4,8 @@ import DataLayer.Store.ORM.Discount.DataIfThenDiscount;
 import Domain.Store.Conditions.Condition;
 import Domain.Store.Discount.DiscountTypes.CompositeDiscount;
 import Domain.Store.Discount.IDiscount;
-import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountCompiler;
 
 import java.util.Set;
 
@@ -29,9 +30,9 @@ public class IfThenDiscount extends CompositeDiscount {
         discount = discounts.stream().findFirst().get();
     }
 
-    public void applyDiscountOnBasket(IStoreBasket basket) {
-        if(condition.checkCondition(basket))
-            discount.applyDiscountOnBasket(basket);
+    @Override
+    public CompiledDiscount compile() {
+        return DiscountCompiler.when(condition.compile(), discount.compile());
     }
 
     @Override
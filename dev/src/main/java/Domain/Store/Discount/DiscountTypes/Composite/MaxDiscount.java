@@ -3,7 +3,8 @@ package Domain.Store.Discount.DiscountTypes.Composite;
 import DataLayer.Store.ORM.Discount.DataMaxDiscount;
 import Domain.Store.Discount.DiscountTypes.CompositeDiscount;
 import Domain.Store.Discount.IDiscount;
-import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountCompiler;
 import util.Enums.ErrorStatus;
 import util.Exceptions.DataError;
 
@@ -26,18 +27,8 @@ public class MaxDiscount extends CompositeDiscount {
     }
 
     @Override
-    public void applyDiscountOnBasket(IStoreBasket basket) {
-        IDiscount maxDiscount = null;
-        double basketPriceAfterDiscount = Double.MAX_VALUE;
-        for(IDiscount discount : discounts){
-            IStoreBasket clonedBasket = basket.clone();
-            discount.applyDiscountOnBasket(clonedBasket);
-            if(basketPriceAfterDiscount > clonedBasket.getBasketPriceAfterDiscount()){
-                basketPriceAfterDiscount = clonedBasket.getBasketPriceAfterDiscount();
-                maxDiscount = discount;
-            }
-        }
-        if (maxDiscount != null) maxDiscount.applyDiscountOnBasket(basket);
+    public CompiledDiscount compile() {
+        return DiscountCompiler.cheapest(discounts.stream().map(IDiscount::compile).toArray(CompiledDiscount[]::new));
     }
 
     @Override
@@ -3,7 +3,8 @@ package Domain.Store.Discount.DiscountTypes.Composite;
 import DataLayer.Store.ORM.Discount.DataXorDiscount;
 import Domain.Store.Discount.DiscountTypes.CompositeDiscount;
 import Domain.Store.Discount.IDiscount;
-import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountCompiler;
 
 import java.util.List;
 import java.util.Set;
@@ -30,15 +31,8 @@ public class XorDiscount extends CompositeDiscount {
     }
 
     @Override
-    public void applyDiscountOnBasket(IStoreBasket basket) {
-        IStoreBasket basketByDiscount1 = basket.clone();
-        IStoreBasket basketByDiscount2 = basket.clone();
-        discount1.applyDiscountOnBasket(basketByDiscount1);
-        discount2.applyDiscountOnBasket(basketByDiscount2);
-        if(basketByDiscount1.getBasketPriceAfterDiscount() <= basketByDiscount2.getBasketPriceAfterDiscount())
-            discount1.applyDiscountOnBasket(basket);
-        else
-            discount2.applyDiscountOnBasket(basket);
+    public CompiledDiscount compile() {
+        return DiscountCompiler.cheapest(discount1.compile(), discount2.compile());
     }
 
 
@@ -5,6 +5,7 @@ import DataLayer.Store.ORM.DataCondition;
 import DataLayer.Store.ORM.DataStore;
 import DataLayer.Store.ORM.Discount.DataCompositeDiscount;
 import DataLayer.Store.ORM.Discount.DataDiscount;
+import Domain.Store.Category;
 import Domain.Store.Conditions.Condition;
 import Domain.Store.Conditions.ConditionFactory;
 import Domain.Store.Discount.DiscountFactory;
@@ -104,4 +105,28 @@ public abstract class CompositeDiscount implements IDiscount {
         }
         return ids;
     }
+
+    @Override
+    public boolean isTimeDependent() {
+        for (Condition condition : conditions)
+            if (condition.isTimeDependent())
+                return true;
+        for (IDiscount discount : discounts)
+            if (discount.isTimeDependent())
+                return true;
+        return false;
+    }
+
+    @Override
+    public boolean isLineLocal() {
+        return false;
+    }
+
+    @Override
+    public boolean appliesTo(int productId, Category category) {
+        for (IDiscount discount : discounts)
+            if (discount.appliesTo(productId, category))
+                return true;
+        return false;
+    }
 }
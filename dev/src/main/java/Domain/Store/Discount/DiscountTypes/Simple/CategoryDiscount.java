@@ -3,9 +3,9 @@ package Domain.Store.Discount.DiscountTypes.Simple;
 import DataLayer.Store.ORM.Discount.DataCategoryDiscount;
 import Domain.Store.Category;
 import Domain.Store.Discount.DiscountTypes.SimpleDiscount;
-import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountCompiler;
 import util.Exceptions.DataError;
-import util.Records.StoreRecords.ProductRecord;
 
 import java.util.Objects;
 
@@ -20,21 +20,13 @@ public class CategoryDiscount extends SimpleDiscount {
     }
 
     @Override
-    public void applyDiscountOnBasket(IStoreBasket basket) {
-        try {
-            for (ProductRecord record : basket.getProductsAsRecords().values()) {
-                if (record.productCategory() == getCategory()) {
-                    ProductRecord discountRecord =
-                            record.updatePriceAfterDiscount(
-                                    (1-getPercentage()) * record.priceAfterDiscount()
-                            );
-                    basket.updateProductRecord(discountRecord);
-                }
-            }
-        }
-        catch (Exception e){
-            throw new RuntimeException(e.getMessage());
-        }
+    public CompiledDiscount compile() {
+        return DiscountCompiler.scaleCategory(getCategory(), 1 - getPercentage());
+    }
+
+    @Override
+    public boolean appliesTo(int productId, Category category) {
+        return category == getCategory();
     }
 
     public Category getCategory() {
@@ -2,10 +2,11 @@ package Domain.Store.Discount.DiscountTypes.Simple;
 
 import DataLayer.Store.ORM.Discount.DataProductDiscount;
 import DataLayer.Store.ORM.Discount.DataSimpleDiscount;
+import Domain.Store.Category;
 import Domain.Store.Discount.DiscountTypes.SimpleDiscount;
-import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountCompiler;
 import util.Exceptions.DataError;
-import util.Records.StoreRecords.ProductRecord;
 
 import java.util.Objects;
 import java.util.Set;
@@ -22,21 +23,8 @@ public class ProductDiscount extends SimpleDiscount {
     }
 
     @Override
-    public void applyDiscountOnBasket(IStoreBasket basket) {
-        try {
-            for (ProductRecord record : basket.getProductsAsRecords().values()) {
-                if (record.productId() == getProductId()) {
-                    ProductRecord discountRecord =
-                            record.updatePriceAfterDiscount(
-                                    (1-getPercentage()) * record.priceAfterDiscount()
-                            );
-                    basket.updateProductRecord(discountRecord);
-                }
-            }
-        }
-        catch (Exception e){
-            throw new RuntimeException(e.getMessage());
-        }
+    public CompiledDiscount compile() {
+        return DiscountCompiler.scaleProduct(getProductId(), 1 - getPercentage());
     }
 
     public int getProductId() {
@@ -63,6 +51,11 @@ public class ProductDiscount extends SimpleDiscount {
         return Objects.hash(getDiscountId(), getPercentage(), getProductId());
     }
 
+    @Override
+    public boolean appliesTo(int productId, Category category) {
+        return isDependentOnProduct(productId);
+    }
+
     @Override
     public boolean isDependentOnProduct(int productID) {
         return getProductId() == productID;
@@ -2,10 +2,11 @@ package Domain.Store.Discount.DiscountTypes.Simple;
 
 import DataLayer.Store.ORM.Discount.DataSimpleDiscount;
 import DataLayer.Store.ORM.Discount.DataStoreDiscount;
+import Domain.Store.Category;
 import Domain.Store.Discount.DiscountTypes.SimpleDiscount;
-import Domain.User.IStoreBasket;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountCompiler;
 import util.Exceptions.DataError;
-import util.Records.StoreRecords.ProductRecord;
 
 import java.util.Objects;
 
@@ -20,14 +21,13 @@ public class StoreDiscount extends SimpleDiscount {
     }
 
     @Override
-    public void applyDiscountOnBasket(IStoreBasket basket) {
-        for (ProductRecord record : basket.getProductsAsRecords().values()) {
-            ProductRecord discountRecord =
-                    record.updatePriceAfterDiscount(
-                            (1-getPercentage()) * record.priceAfterDiscount()
-                    );
-            basket.updateProductRecord(discountRecord);
-        }
+    public CompiledDiscount compile() {
+        return DiscountCompiler.scaleAll(1 - getPercentage());
+    }
+
+    @Override
+    public boolean appliesTo(int productId, Category category) {
+        return true;
     }
 
     @Override
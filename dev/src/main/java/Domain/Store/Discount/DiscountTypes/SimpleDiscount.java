@@ -69,4 +69,14 @@ public abstract class SimpleDiscount implements IDiscount {
     public Set<Integer> getChildDiscountIds() {
         return Set.of();
     }
+
+    @Override
+    public boolean isTimeDependent() {
+        return false;
+    }
+
+    @Override
+    public boolean isLineLocal() {
+        return true;
+    }
 }
@@ -1,13 +1,26 @@
 package Domain.Store.Discount;
 
 import DataLayer.Store.ORM.DataStore;
+import Domain.Store.Category;
 import Domain.Store.Discount.DiscountTypes.CompositeDiscount;
+import Domain.Store.Discount.Plan.CompiledDiscount;
+import Domain.Store.Discount.Plan.DiscountPlan;
 import Domain.User.IStoreBasket;
 
 import java.util.Set;
 
 public interface IDiscount {
-    void applyDiscountOnBasket(IStoreBasket basket);
+    default void applyDiscountOnBasket(IStoreBasket basket) {
+        DiscountPlan.of(this).applyOn(basket);
+    }
+
+    CompiledDiscount compile(); //flat evaluation step, see DiscountPlan
+
+    boolean isTimeDependent(); //true if any of the conditions depends on the clock
+
+    boolean isLineLocal(); //true if the discount of each line depends only on that line
+
+    boolean appliesTo(int productId, Category category); //may change the price of such a line
 
     int getDiscountId();
 
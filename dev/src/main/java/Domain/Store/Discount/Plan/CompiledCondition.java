@@ -0,0 +1,9 @@
+package Domain.Store.Discount.Plan;
+
+/**
+ * A discount condition compiled to a test over a price vector.
+ */
+@FunctionalInterface
+public interface CompiledCondition {
+    boolean test(PriceVector prices);
+}
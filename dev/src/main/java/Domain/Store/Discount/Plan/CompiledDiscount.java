@@ -0,0 +1,9 @@
+package Domain.Store.Discount.Plan;
+
+/**
+ * A discount compiled to a single step over a price vector.
+ */
+@FunctionalInterface
+public interface CompiledDiscount {
+    void apply(PriceVector prices);
+}
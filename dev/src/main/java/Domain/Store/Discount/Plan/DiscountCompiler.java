@@ -0,0 +1,127 @@
+package Domain.Store.Discount.Plan;
+
+import Domain.Store.Category;
+import Domain.Store.Conditions.Condition;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Building blocks the discount and condition types compile themselves into.
+ */
+public class DiscountCompiler {
+
+    private DiscountCompiler() {
+    }
+
+    public static CompiledDiscount scaleAll(double factor) {
+        return prices -> {
+            for (int i = 0; i < prices.size(); i++)
+                prices.scale(i, factor);
+        };
+    }
+
+    public static CompiledDiscount scaleProduct(int productId, double factor) {
+        return prices -> {
+            for (int i = 0; i < prices.size(); i++)
+                if (prices.productId(i) == productId)
+                    prices.scale(i, factor);
+        };
+    }
+
+    public static CompiledDiscount scaleCategory(Category category, double factor) {
+        return prices -> {
+            for (int i = 0; i < prices.size(); i++)
+                if (prices.category(i) == category)
+                    prices.scale(i, factor);
+        };
+    }
+
+    /**
+     * Scales every line by the base factor, reduced by the cut of its product and the cut of its category.
+     */
+    public static CompiledDiscount additive(double baseFactor, Map<Integer, Double> productCuts, Map<Category, Double> categoryCuts) {
+        int[] productIds = productCuts.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        double[] cutByProduct = Arrays.stream(productIds).mapToDouble(productCuts::get).toArray();
+        double[] cutByCategory = new double[Category.values().length];
+        boolean[] hasCategoryCut = new boolean[cutByCategory.length];
+        for (Map.Entry<Category, Double> entry : categoryCuts.entrySet()) {
+            cutByCategory[entry.getKey().ordinal()] = entry.getValue();
+            hasCategoryCut[entry.getKey().ordinal()] = true;
+        }
+        return prices -> {
+            for (int i = 0; i < prices.size(); i++) {
+                double factor = baseFactor;
+                int index = Arrays.binarySearch(productIds, prices.productId(i));
+                if (index >= 0)
+                    factor -= cutByProduct[index];
+                Category category = prices.category(i);
+                if (category != null && hasCategoryCut[category.ordinal()])
+                    factor -= cutByCategory[category.ordinal()];
+                prices.scale(i, factor);
+            }
+        };
+    }
+
+    public static CompiledDiscount when(CompiledCondition condition, CompiledDiscount then) {
+        return prices -> {
+            if (condition.test(prices))
+                then.apply(prices);
+        };
+    }
+
+    /**
+     * Applies the option that leaves the lowest total, the first one on a tie.
+     * Alternatives are tried on reusable buffers of the vector instead of copies of the basket.
+     */
+    public static CompiledDiscount cheapest(CompiledDiscount... options) {
+        return prices -> {
+            int level = prices.enterLevel();
+            try {
+                double[] original = prices.buffer(level, 0);
+                double[] best = prices.buffer(level, 1);
+                prices.saveTo(original);
+                double bestTotal = Double.MAX_VALUE;
+                boolean found = false;
+                for (CompiledDiscount option : options) {
+                    prices.restoreFrom(original);
+                    option.apply(prices);
+                    double total = prices.total();
+                    if (bestTotal > total) {
+                        bestTotal = total;
+                        prices.saveTo(best);
+                        found = true;
+                    }
+                }
+                prices.restoreFrom(found ? best : original);
+            } finally {
+                prices.exitLevel();
+            }
+        };
+    }
+
+    public static CompiledCondition all(Collection<Condition> conditions) {
+        CompiledCondition[] compiled = compile(conditions);
+        return prices -> {
+            for (CompiledCondition condition : compiled)
+                if (!condition.test(prices))
+                    return false;
+            return true;
+        };
+    }
+
+    public static CompiledCondition any(Collection<Condition> conditions) {
+        CompiledCondition[] compiled = compile(conditions);
+        return prices -> {
+            for (CompiledCondition condition : compiled)
+                if (condition.test(prices))
+                    return true;
+            return false;
+        };
+    }
+
+    private static CompiledCondition[] compile(Collection<Condition> conditions) {
+        return conditions.stream().map(Condition::compile).toArray(CompiledCondition[]::new);
+    }
+}
@@ -0,0 +1,90 @@
+package Domain.Store.Discount.Plan;
+
+import Domain.Store.Discount.IDiscount;
+import Domain.User.IStoreBasket;
+import util.Records.StoreRecords.ProductRecord;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The discounts of a store compiled to a flat list of steps over a price vector.
+ * A plan is immutable and is shared by all the threads pricing baskets of the store.
+ */
+public class DiscountPlan {
+    private final int version;
+    private final IDiscount[] discounts;
+    private final CompiledDiscount[] steps; // <step of the discount at the same index>
+    private final boolean timeDependent;
+    private final boolean lineLocal;
+
+    private DiscountPlan(int version, IDiscount[] discounts) {
+        this.version = version;
+        this.discounts = discounts;
+        steps = new CompiledDiscount[discounts.length];
+        boolean timeDependent = false;
+        boolean lineLocal = true;
+        for (int i = 0; i < discounts.length; i++) {
+            steps[i] = discounts[i].compile();
+            timeDependent |= discounts[i].isTimeDependent();
+            lineLocal &= discounts[i].isLineLocal();
+        }
+        this.timeDependent = timeDependent;
+        this.lineLocal = lineLocal;
+    }
+
+    /**
+     * Compiles the given discounts, tagged with the version of the discounts they were read at.
+     */
+    public static DiscountPlan compile(int version, Collection<IDiscount> discounts) {
+        return new DiscountPlan(version, discounts.toArray(new IDiscount[0]));
+    }
+
+    public static DiscountPlan of(IDiscount discount) {
+        return compile(0, List.of(discount));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns true if the plan may price the same basket differently over time, so its results can't be cached.
+     */
+    public boolean isTimeDependent() {
+        return timeDependent;
+    }
+
+    /**
+     * Returns true if every discount of the plan prices a line regardless of the other lines of the basket.
+     */
+    public boolean isLineLocal() {
+        return lineLocal;
+    }
+
+    public void applyOn(IStoreBasket basket) {
+        PriceVector prices = new PriceVector(basket.getProductsAsRecords().values(), basket.getUserAge());
+        for (CompiledDiscount step : steps)
+            step.apply(prices);
+        prices.writeBack(basket);
+    }
+
+    /**
+     * Prices only the given lines of the basket, with only the discounts that apply to them.
+     * Valid for line local plans, where the other lines keep their price.
+     */
+    public void applyOnLines(IStoreBasket basket, Collection<ProductRecord> lines) {
+        PriceVector prices = new PriceVector(lines, basket.getUserAge());
+        for (int i = 0; i < steps.length; i++)
+            if (appliesToAny(discounts[i], prices))
+                steps[i].apply(prices);
+        prices.writeBack(basket);
+    }
+
+    private static boolean appliesToAny(IDiscount discount, PriceVector prices) {
+        for (int line = 0; line < prices.size(); line++)
+            if (discount.appliesTo(prices.productId(line), prices.category(line)))
+                return true;
+        return false;
+    }
+}
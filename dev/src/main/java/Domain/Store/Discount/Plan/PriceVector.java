@@ -0,0 +1,144 @@
+package Domain.Store.Discount.Plan;
+
+import Domain.Store.Category;
+import Domain.User.IStoreBasket;
+import util.Records.StoreRecords.ProductRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The lines of a basket laid out in primitive arrays, which compiled discounts scale in place.
+ * A vector is built once per evaluation and is not shared between threads.
+ */
+public class PriceVector {
+    private final ProductRecord[] records;
+    private final int[] productIds;
+    private final Category[] categories;
+    private final int[] quantities;
+    private final double[] prices; // <price after discount per unit>
+    private final LocalDate userAge;
+    private final List<double[]> buffers = new ArrayList<>(); // two per nesting level of Max/Xor
+    private int level = 0;
+
+    public PriceVector(Collection<ProductRecord> lines, LocalDate userAge) {
+        int size = lines.size();
+        records = lines.toArray(new ProductRecord[size]);
+        productIds = new int[size];
+        categories = new Category[size];
+        quantities = new int[size];
+        prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            productIds[i] = records[i].productId();
+            categories[i] = records[i].productCategory();
+            quantities[i] = records[i].quantity();
+            prices[i] = records[i].priceAfterDiscount();
+        }
+        this.userAge = userAge;
+    }
+
+    public int size() {
+        return prices.length;
+    }
+
+    public int productId(int line) {
+        return productIds[line];
+    }
+
+    public Category category(int line) {
+        return categories[line];
+    }
+
+    public int quantity(int line) {
+        return quantities[line];
+    }
+
+    public double price(int line) {
+        return prices[line];
+    }
+
+    public void scale(int line, double factor) {
+        prices[line] *= factor;
+    }
+
+    public LocalDate getUserAge() {
+        return userAge;
+    }
+
+    public double total() {
+        double total = 0;
+        for (int i = 0; i < prices.length; i++)
+            total += prices[i] * quantities[i];
+        return total;
+    }
+
+    public int totalQuantity() {
+        int total = 0;
+        for (int quantity : quantities)
+            total += quantity;
+        return total;
+    }
+
+    public int productQuantity(int productId) {
+        int total = 0;
+        for (int i = 0; i < productIds.length; i++)
+            if (productIds[i] == productId)
+                total += quantities[i];
+        return total;
+    }
+
+    public int categoryQuantity(Category category) {
+        int total = 0;
+        for (int i = 0; i < categories.length; i++)
+            if (categories[i] == category)
+                total += quantities[i];
+        return total;
+    }
+
+    public boolean containsCategory(Category category) {
+        for (Category lineCategory : categories)
+            if (lineCategory == category)
+                return true;
+        return false;
+    }
+
+    /**
+     * Opens a nesting level and returns its index, used by discounts that try several alternatives.
+     */
+    int enterLevel() {
+        return level++;
+    }
+
+    void exitLevel() {
+        level--;
+    }
+
+    /**
+     * Returns one of the two price buffers of the given level, allocated on first use.
+     */
+    double[] buffer(int level, int which) {
+        int index = level * 2 + which;
+        while (buffers.size() <= index)
+            buffers.add(new double[prices.length]);
+        return buffers.get(index);
+    }
+
+    void saveTo(double[] buffer) {
+        System.arraycopy(prices, 0, buffer, 0, prices.length);
+    }
+
+    void restoreFrom(double[] buffer) {
+        System.arraycopy(buffer, 0, prices, 0, prices.length);
+    }
+
+    /**
+     * Writes the discounted prices of the changed lines back to the basket.
+     */
+    public void writeBack(IStoreBasket basket) {
+        for (int i = 0; i < records.length; i++)
+            if (prices[i] != records[i].priceAfterDiscount())
+                basket.updateProductRecord(records[i].updatePriceAfterDiscount(prices[i]));
+    }
+}
@@ -26,6 +26,28 @@ public interface IProduct {
 
   void addingProductQuantity(int quantity) throws DataError;
 
+  /**
+   * @return the quantity that isn't held by any reservation.
+   */
+  int getAvailableQuantity();
+
+  /**
+   * Holds the given quantity for a reservation. Doesn't change the stored quantity.
+   * @throws DataError if the available quantity is smaller than the given quantity.
+   */
+  void reserveQuantity(int quantity) throws DataError;
+
+  /**
+   * Returns a held quantity back to the available quantity.
+   */
+  void releaseReservedQuantity(int quantity);
+
+  /**
+   * Reduces the stored quantity by a quantity that was held by a reservation.
+   * @throws IllegalStateException if the given quantity isn't held.
+   */
+  void commitReservedQuantity(int quantity);
+
   double getProductRating();
 
   void setProductRating(double newRating);
@@ -11,13 +11,18 @@ import util.Exceptions.DataError;
 import util.Exceptions.DataExistentError;
 import util.Exceptions.NonExistentData;
 import util.Exceptions.PermissionError;
+import util.Records.StoreRecords.PriceCacheStats;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.StoreRecords.StoreRecord;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface IStore {
 
@@ -54,19 +59,67 @@ public interface IStore {
     void updateProductFields(String userName, ProductRecord productRecord) throws DataError, NonExistentData, PermissionError;
 
     /**
-     * Adds the products in the given store basket to the store's inventory.
+     * Holds the products of the given store basket until the reservation is committed, released or expired.
+     * Either all the products are held or none of them.
      *
-     * @param storeBasket   the store basket containing the products to add.
-     * @param productsCache
+     * @param storeBasket the store basket containing the products to hold.
+     * @param ttl         how long the hold lasts if it isn't committed or released.
+     * @return the new reservation.
+     * @throws DataError if there isn't enough available quantity of one of the products.
      */
-    void addBasketQuantity(IStoreBasket storeBasket, Map<Integer, Integer> productsCache) throws NonExistentData, DataError;
+    Reservation reserveBasketQuantity(IStoreBasket storeBasket, Duration ttl) throws NonExistentData, DataError;
 
     /**
-     * Removes the products in the given store basket from the store's inventory.
+     * Keeps the given reservation from expiring until it's committed or released.
      *
-     * @param storeBasket the store basket containing the products to remove.
+     * @param reservation a reservation of this store.
+     * @throws NonExistentData if the reservation expired, was released or was already committed.
      */
-    void removeBasketQuantity(IStoreBasket storeBasket, Map<Integer, Integer> productsCache) throws NonExistentData, DataError;
+    void pinReservation(Reservation reservation) throws NonExistentData;
+
+    /**
+     * Removes the held products of the given reservation from the store's inventory.
+     *
+     * @param reservation a reservation of this store.
+     * @throws NonExistentData if the reservation expired, was released or was already committed.
+     */
+    void commitReservation(Reservation reservation) throws NonExistentData;
+
+    /**
+     * Returns the products of a committed reservation to the store's inventory, like when another reservation
+     * of the same purchase failed to commit.
+     *
+     * @param reservation a committed reservation of this store.
+     */
+    void revertReservation(Reservation reservation);
+
+    /**
+     * Makes the held products of the given reservation available again.
+     * Does nothing if the reservation was already committed, released or expired.
+     *
+     * @param reservation a reservation of this store.
+     */
+    void releaseReservation(Reservation reservation);
+
+    /**
+     * Releases every reservation that expired before the given time and isn't pinned.
+     *
+     * @return the number of released reservations.
+     */
+    int releaseExpiredReservations(LocalDateTime now);
+
+    /**
+     * @return the number of reservations that weren't committed or released yet.
+     */
+    int getActiveReservationsCount();
+
+    /**
+     * Publishes the changes to the products of the store to the given events from now on,
+     * starting with the products the store already has.
+     *
+     * @param catalogEvents the events to publish to
+     */
+    void publishCatalogTo(CatalogEvents catalogEvents);
 
     /**
      * Returns a list of all the products in the store's inventory.
@@ -98,6 +151,13 @@ public interface IStore {
      */
     void syncBasket(IStoreBasket basket);
 
+    /**
+     * Returns the hit and miss counts of the basket price cache of the store.
+     *
+     * @return the price cache statistics
+     */
+    PriceCacheStats getPriceCacheStats();
+
     /**
      * Checks whether the store is currently active.
      *
@@ -218,6 +278,19 @@ public interface IStore {
     List<Transaction> getStoreTransactionsByDate(String userName, LocalDateTime startDateTime,
                                                  LocalDateTime endDateTime) throws PermissionError, NonExistentData;
 
+    /**
+     * Like {@link #getStoreTransactionsByDate}, passing the transactions to the consumer one by one instead of
+     * collecting them.
+     */
+    void exportStoreTransactionsByDate(String userName, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                       Consumer<Transaction> consumer) throws PermissionError, NonExistentData, DataError;
+
+    /**
+     * Reports the sales of the store between two days, both included, from the sales counters of the market.
+     * Requires the same permission as viewing the purchase history of the store.
+     */
+    SalesReport getStoreSales(String userName, LocalDate from, LocalDate to, int bestSellers) throws PermissionError, NonExistentData;
+
   int addDiscount(String userName, IDiscount discount) throws PermissionError, NonExistentData;
 
     void removeDiscount(String userName, int discountId) throws PermissionError;
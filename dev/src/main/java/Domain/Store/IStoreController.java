@@ -12,16 +12,28 @@ import util.Enums.PermissionType;
 import util.Enums.RoleType;
 import util.Exceptions.*;
 import util.Records.DateRange;
+import util.Records.StoreRecords.AutocompleteSuggestion;
+import util.Records.StoreRecords.PriceCacheStats;
 import util.Records.StoreRecords.ProductFilterAttributes;
+import util.Records.StoreRecords.ProductPage;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.StoreRecords.StoreRecord;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface IStoreController {
 
+  /**
+   * Loads the whole catalog of the persisted stores at startup, before any request needs it.
+   */
+  void warmUpCatalog();
+
   Set<Integer> getStoresAccordingToRole(String sessionId,
                                         RoleType role)
       throws MarketException;
@@ -137,21 +149,47 @@ public interface IStoreController {
                              int quantity) throws SessionError, NonExistentData, DataError, PermissionError;
 
   /**
-   * Adds the products in the given user cart to the store's inventory.
+   * Holds the products in the given user cart for a limited time, without changing the stores' inventory.
+   * Either all the baskets are held or none of them.
    *
-   * @param userCart the user cart containing the products to add.
-   *  @throws NonExistentData if one or more products in the user cart do not exist in the system.
-   * @throws DataError exception can be thrown if there is an issue with the data being removed from the store's inventory, due to rollback.
+   * @param userCart the user cart containing the products to hold.
+   * @return a reservation for every store basket of the cart.
+   * @throws NonExistentData if one or more products in the user cart do not exist in the system.
+   * @throws DataError if there isn't enough available quantity of one or more products.
    */
-  void addCartQuantity(IUserCart userCart) throws NonExistentData, DataError, PermissionError;
+  List<Reservation> reserveCartQuantity(IUserCart userCart) throws NonExistentData, DataError;
 
   /**
-   * Removes the products in the given user cart from the store's inventory.
+   * Keeps the given reservations from expiring until they're committed or released, like while the buyer is charged
+   * for them. Either all the reservations are pinned or none of them, and then all of them are released.
    *
-   * @param userCart the user cart containing the products to remove.
-   * @throws NonExistentData if one or more products in the user cart do not exist in the system.
+   * @param reservations reservations returned by reserveCartQuantity.
+   * @throws NonExistentData if one of the reservations expired or was released.
    */
-  void removeCartQuantity(IUserCart userCart) throws NonExistentData, DataError;
+  void pinCartReservations(List<Reservation> reservations) throws NonExistentData;
+
+  /**
+   * Removes the held products of the given reservations from the stores' inventory.
+   * Either all the reservations are committed or none of them, and then all of them are released.
+   *
+   * @param reservations reservations returned by reserveCartQuantity.
+   * @throws NonExistentData if one of the reservations expired or was released.
+   */
+  void commitCartReservations(List<Reservation> reservations) throws NonExistentData;
+
+  /**
+   * Makes the held products of the given reservations available again.
+   *
+   * @param reservations reservations returned by reserveCartQuantity.
+   */
+  void releaseCartReservations(List<Reservation> reservations);
+
+  /**
+   * Releases every reservation that expired. Called periodically by the reservations sweeper.
+   *
+   * @return the number of released reservations.
+   */
+  int releaseExpiredReservations();
 
   /**
    * Retrieves the store with the specified identifier.
@@ -189,6 +227,30 @@ public interface IStoreController {
    */
   List<IProduct> getFilteredProducts(ProductFilterAttributes productFilterAttributes);
 
+  /**
+   * Returns one page of the products that pass the filters, in the order of the sort key.
+   * The matching products are streamed through a bounded top-K selection and are never all sorted or held.
+   *
+   * @param productFilterAttributes the filters of the search
+   * @param sortKey                 the order of the pages
+   * @param pageSize                the maximal number of products in the page
+   * @param cursor                  the cursor of the previous page, or null for the first page
+   * @return the page and the cursor of the next one
+   * @throws DataError if the page size is not positive or the cursor is invalid
+   */
+  ProductPage getFilteredProductsPage(ProductFilterAttributes productFilterAttributes, ProductSortKey sortKey,
+                                      int pageSize, String cursor) throws DataError;
+
+  /**
+   * Returns the best rated product and store names with a word starting with the prefix, best first.
+   * Answered from an in-memory prefix index.
+   *
+   * @param prefix the typed prefix
+   * @param limit  the maximal number of suggestions, capped by the index
+   * @return the suggestions
+   */
+  List<AutocompleteSuggestion> autocomplete(String prefix, int limit);
+
   /**
    * Calculates the total price of the user's basket from the specified store.
    *
@@ -197,6 +259,13 @@ public interface IStoreController {
    */
   double calculateBasketPrice(IStoreBasket storeBasket);
 
+  /**
+   * Returns the hit and miss counts of the basket price caches of all the stores.
+   *
+   * @return the combined price cache statistics
+   */
+  PriceCacheStats getPriceCacheStats();
+
   /**
    * Retrieves a list of products belonging to the specified store.
    *
@@ -319,11 +388,11 @@ public interface IStoreController {
   List<StoreRecord> getStores();
 
   /**
-   * Returns a map of store IDs to lists of products in each store.
+   * Returns a map of active store IDs to the products in each store, read from the current catalog snapshot.
    *
-   * @return a map of store IDs to lists of products in each store
+   * @return a map of store IDs to the products in each store
    */
-  Map<Integer, Map<Integer, IProduct>> getStoresProducts();
+  Map<Integer, Map<Integer, ProductRecord>> getStoresProducts();
 
   /**
 
@@ -358,6 +427,32 @@ public interface IStoreController {
 
   List<Transaction> getStoreTransactions(String sessionId, int storeId, DateRange range);
 
+  /**
+   * Passes the transactions of the store in the given range of time to the consumer, one by one and ordered by time.
+   * Requires the same permission as viewing the purchase history of the store.
+   *
+   * @param sessionId     current sessionId
+   * @param storeId       the store whose transactions are exported
+   * @param optionalStart start of the range, or null
+   * @param optionalEnd   end of the range, or null
+   * @param consumer      receives the transactions
+   */
+  void exportStoreTransactions(String sessionId, int storeId, LocalDateTime optionalStart, LocalDateTime optionalEnd,
+                               Consumer<Transaction> consumer) throws SessionError, NonExistentData, PermissionError, DataError;
+
+  /**
+   * Reports the sales of the store between two days from pre-aggregated counters, without reading its transactions.
+   * Requires the same permission as viewing the purchase history of the store.
+   *
+   * @param sessionId   current sessionId
+   * @param storeId     the store whose sales are reported
+   * @param from        first day of the report, or null
+   * @param to          last day of the report, or null
+   * @param bestSellers number of best selling products to report
+   */
+  SalesReport getStoreSales(String sessionId, int storeId, LocalDate from, LocalDate to, int bestSellers)
+          throws SessionError, NonExistentData, PermissionError;
+
   void addDiscount(String session, int storeId, IDiscount discount) throws NonExistentData, SessionError, PermissionError;
 
   List<IDiscount> getDiscounts(String session, int storeID) throws NonExistentData;
@@ -0,0 +1,138 @@
+package Domain.Store;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable map of int keys, kept in a trie of 32 way nodes. Adding or removing a key copies only the nodes on
+ * the path to it and shares the rest with the previous map.
+ */
+public final class PersistentIntMap<V> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final int TOP_SHIFT = 30; // 7 levels cover the 32 bits of the key
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+    private final Object[] root;
+    private final int size;
+
+    private PersistentIntMap(Object[] root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Object[] node = root;
+        for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+            Object child = node[(key >>> shift) & MASK];
+            if (shift == 0)
+                return (V) child;
+            node = (Object[]) child;
+        }
+        return null;
+    }
+
+    public PersistentIntMap<V> with(int key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("null values are not supported");
+        boolean added = get(key) == null;
+        return new PersistentIntMap<>(with(root, TOP_SHIFT, key, value), added ? size + 1 : size);
+    }
+
+    public PersistentIntMap<V> without(int key) {
+        if (get(key) == null)
+            return this;
+        return size == 1 ? empty() : new PersistentIntMap<>(with(root, TOP_SHIFT, key, null), size - 1);
+    }
+
+    public void forEach(BiConsumer<Integer, V> action) {
+        forEach(root, TOP_SHIFT, 0, action);
+    }
+
+    /**
+     * Returns an unmodifiable view of this map.
+     */
+    public Map<Integer, V> asMap() {
+        return new AbstractMap<>() {
+            @Override
+            public V get(Object key) {
+                return key instanceof Integer id ? PersistentIntMap.this.get(id) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Set<Entry<Integer, V>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<Integer, V>> iterator() {
+                        List<Entry<Integer, V>> entries = new ArrayList<>(size);
+                        PersistentIntMap.this.forEach((key, value) -> entries.add(Map.entry(key, value)));
+                        return entries.iterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+        };
+    }
+
+    // copies the node and its path to the key, a null value clears the key
+    private static Object[] with(Object[] node, int shift, int key, Object value) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int slot = (key >>> shift) & MASK;
+        copy[slot] = shift == 0 ? value : with((Object[]) copy[slot], shift - BITS, key, value);
+        return value == null && isEmpty(copy) ? null : copy;
+    }
+
+    private static boolean isEmpty(Object[] node) {
+        for (Object child : node)
+            if (child != null)
+                return false;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void forEach(Object[] node, int shift, int prefix, BiConsumer<Integer, V> action) {
+        if (node == null)
+            return;
+        for (int slot = 0; slot < WIDTH; slot++) {
+            Object child = node[slot];
+            if (child == null)
+                continue;
+            int key = prefix | (slot << shift);
+            if (shift == 0)
+                action.accept(key, (V) child);
+            else
+                forEach((Object[]) child, shift - BITS, key, action);
+        }
+    }
+}
@@ -2,13 +2,19 @@ package Domain.Store;
 
 import DataLayer.Store.ORM.DataProduct;
 import DataLayer.Store.ORM.DataStore;
+import DataLayer.Store.ProductQuantityFlusher;
 import util.Enums.ErrorStatus;
 import util.Exceptions.DataError;
 import util.Records.StoreRecords.ProductRecord;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Product implements IProduct {
     private int storeId;
     private DataProduct dataProduct;
+    // stored quantity in the high 32 bits, quantity held by reservations (not persisted) in the low 32 bits.
+    // both change together with a single CAS, the stored quantity is written to the DB by the ProductQuantityFlusher
+    private final AtomicLong stock;
 
     // CTOR for data creation
     public Product(DataStore dataStore, ProductRecord productRecord) {
@@ -22,12 +28,14 @@ public class Product implements IProduct {
         );
         dataProduct = dataProduct.persist();
         storeId = dataStore.getId();
+        stock = new AtomicLong(pack(dataProduct.getQuantity(), 0));
     }
 
     // CTOR for recovery from DB
     public Product(DataProduct dataProduct, int storeId) {
         this.dataProduct = dataProduct;
         this.storeId = storeId;
+        stock = new AtomicLong(pack(dataProduct.getQuantity(), 0));
     }
 
     @Override
@@ -73,8 +81,8 @@ public class Product implements IProduct {
     }
 
     @Override
-    public synchronized int getProductQuantity() {
-        return dataProduct.getQuantity();
+    public int getProductQuantity() {
+        return quantityOf(stock.get());
     }
 
     @Override
@@ -84,30 +92,97 @@ public class Product implements IProduct {
                     "try to reduce quantity with negative value",
                     ErrorStatus.INVALID_PRODUCT_QUANTITY
             );
-        int updatedQuantity;
+        long current;
         do {
-            updatedQuantity = getProductQuantity() - quantity;
-            if (updatedQuantity < 0)
+            current = stock.get();
+            if (quantityOf(current) - reservedOf(current) < quantity)
                 throw new DataError(
                         "Quantity to remove is greater than available quantity for product with ID " + getProductId(),
                         ErrorStatus.INVALID_PRODUCT_QUANTITY
                 );
-        } while (updatedQuantity != getProductQuantity() - quantity);
-
-        dataProduct.setQuantity(updatedQuantity);
-        dataProduct = dataProduct.persist();
+        } while (!stock.compareAndSet(current, pack(quantityOf(current) - quantity, reservedOf(current))));
+        quantityChanged();
     }
 
     @Override
-    public synchronized void addingProductQuantity(int quantity) throws DataError {
+    public void addingProductQuantity(int quantity) throws DataError {
         if (quantity < 0)
             throw new DataError(
                     "try to add quantity with negative value",
                     ErrorStatus.INVALID_PRODUCT_QUANTITY
             );
+        long current;
+        do {
+            current = stock.get();
+            if ((long) quantityOf(current) + quantity > Integer.MAX_VALUE)
+                throw new DataError(
+                        "Quantity is too big for product with ID " + getProductId(),
+                        ErrorStatus.INVALID_PRODUCT_QUANTITY
+                );
+        } while (!stock.compareAndSet(current, pack(quantityOf(current) + quantity, reservedOf(current))));
+        quantityChanged();
+    }
 
-        dataProduct.setQuantity(getProductQuantity() + quantity);
-        dataProduct = dataProduct.persist();
+    @Override
+    public int getAvailableQuantity() {
+        long current = stock.get();
+        return quantityOf(current) - reservedOf(current);
+    }
+
+    @Override
+    public void reserveQuantity(int quantity) throws DataError {
+        if (quantity < 0)
+            throw new DataError(
+                    "try to reserve quantity with negative value",
+                    ErrorStatus.INVALID_PRODUCT_QUANTITY
+            );
+        long current;
+        do {
+            current = stock.get();
+            if (quantityOf(current) - reservedOf(current) < quantity)
+                throw new DataError(
+                        "Quantity to reserve is greater than available quantity for product with ID " + getProductId(),
+                        ErrorStatus.INVALID_PRODUCT_QUANTITY
+                );
+        } while (!stock.compareAndSet(current, pack(quantityOf(current), reservedOf(current) + quantity)));
+    }
+
+    @Override
+    public void releaseReservedQuantity(int quantity) {
+        long current;
+        do {
+            current = stock.get();
+        } while (!stock.compareAndSet(current,
+                pack(quantityOf(current), reservedOf(current) - Math.min(quantity, reservedOf(current)))));
+    }
+
+    @Override
+    public void commitReservedQuantity(int quantity) {
+        long current;
+        do {
+            current = stock.get();
+            if (quantity < 0 || reservedOf(current) < quantity)
+                throw new IllegalStateException("Quantity to commit is greater than reserved quantity for product with ID "
+                        + getProductId());
+        } while (!stock.compareAndSet(current,
+                pack(quantityOf(current) - quantity, reservedOf(current) - quantity)));
+        quantityChanged();
+    }
+
+    private static long pack(int quantity, int reserved) {
+        return ((long) quantity << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    private static int quantityOf(long stock) {
+        return (int) (stock >>> 32);
+    }
+
+    private static int reservedOf(long stock) {
+        return (int) stock;
+    }
+
+    private void quantityChanged() {
+        ProductQuantityFlusher.getInstance().markDirty(storeId, getProductId(), this::getProductQuantity);
     }
 
     @Override
@@ -0,0 +1,67 @@
+package Domain.Store;
+
+import util.Enums.ErrorStatus;
+import util.Exceptions.DataError;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last product of a search page in the order of a sort key.
+ * Handed to clients as an opaque string, and the next page starts right after it.
+ */
+public class ProductCursor {
+    private final ProductSortKey sortKey;
+    private final double number;
+    private final String name;
+    private final int storeId;
+    private final int productId;
+
+    private ProductCursor(ProductSortKey sortKey, double number, String name, int storeId, int productId) {
+        this.sortKey = sortKey;
+        this.number = number;
+        this.name = name;
+        this.storeId = storeId;
+        this.productId = productId;
+    }
+
+    public static ProductCursor after(ProductSortKey sortKey, IProduct product) {
+        double number = switch (sortKey) {
+            case PRICE -> product.getProductPrice();
+            case RATING -> product.getProductRating();
+            case NAME -> 0;
+        };
+        String name = sortKey == ProductSortKey.NAME ? product.getProductName() : "";
+        return new ProductCursor(sortKey, number, name, product.getStoreId(), product.getProductId());
+    }
+
+    public static ProductCursor decode(String cursor, ProductSortKey sortKey) throws DataError {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 5);
+            ProductCursor decoded = new ProductCursor(ProductSortKey.valueOf(parts[0]), Double.parseDouble(parts[1]),
+                    parts[4], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            if (decoded.sortKey != sortKey)
+                throw new DataError("The cursor belongs to a search sorted by " + decoded.sortKey, ErrorStatus.INVALID_PAGE_REQUEST);
+            return decoded;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new DataError("Invalid search cursor", ErrorStatus.INVALID_PAGE_REQUEST);
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey + ":" + number + ":" + storeId + ":" + productId + ":" + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns true if the product comes after this position in the order of the sort key.
+     */
+    public boolean isBefore(IProduct product) {
+        int compare = sortKey.compareValue(product, number, name);
+        if (compare == 0)
+            compare = Integer.compare(product.getStoreId(), storeId);
+        if (compare == 0)
+            compare = Integer.compare(product.getProductId(), productId);
+        return compare > 0;
+    }
+}
@@ -0,0 +1,276 @@
+package Domain.Store;
+
+import util.Records.StoreRecords.ProductFilterAttributes;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Market wide index of the products of the stores attached to it: name tokens and trigrams, category posting
+ * lists and sorted price and rating columns. Kept up to date through the catalog events of the stores.
+ */
+public class ProductIndex implements CatalogListener {
+    private record Entry(IProduct product, String name, Category category, double price, double rating, int trigramSlot) {
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>(); // <product key, indexed state>
+    private final Map<Integer, Set<Long>> stores = new HashMap<>(); // <store ID, product keys>
+    private final Map<String, Set<Long>> tokens = new HashMap<>(); // <name token, product keys>
+    private final Map<Category, Set<Long>> categories = new EnumMap<>(Category.class);
+    private final NavigableMap<Double, Set<Long>> prices = new TreeMap<>();
+    private final NavigableMap<Double, Set<Long>> ratings = new TreeMap<>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Splits a product name to the lower case words it is indexed by.
+     */
+    public static Set<String> tokenize(String name) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String token : name.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+            if (!token.isEmpty())
+                result.add(token);
+        return result;
+    }
+
+    /**
+     * Returns true if the products of the store are published to the index, so searches can be resolved by it.
+     */
+    public boolean isIndexed(int storeId) {
+        lock.readLock().lock();
+        try {
+            return stores.containsKey(storeId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the indexed products that pass the product filters, grouped by store and ordered by product ID.
+     * The store filters of the attributes are not applied here.
+     */
+    public Map<Integer, List<IProduct>> search(ProductFilterAttributes filter) {
+        Map<Integer, List<IProduct>> result = new HashMap<>();
+        forEachMatch(filter, product -> result.computeIfAbsent(product.getStoreId(), storeId -> new ArrayList<>()).add(product));
+        for (List<IProduct> products : result.values())
+            products.sort(Comparator.comparingInt(IProduct::getProductId));
+        return result;
+    }
+
+    /**
+     * Passes every indexed product that passes the product filters to the consumer, in no particular order,
+     * without collecting them. The consumer runs under the read lock of the index and must not change it.
+     */
+    public void forEachMatch(ProductFilterAttributes filter, Consumer<IProduct> consumer) {
+        forEachMatch(filter, (product, nameSimilarity) -> consumer.accept(product));
+    }
+
+    /**
+     * Like {@link #forEachMatch(ProductFilterAttributes, Consumer)}, and also passes the similarity of the product
+     * name to the searched one, which is 1 unless the name is matched fuzzily.
+     */
+    public void forEachMatch(ProductFilterAttributes filter, ObjDoubleConsumer<IProduct> consumer) {
+        boolean byPrice = filter.lowPrice() != null || filter.highPrice() != null;
+        double lowPrice = filter.lowPrice() == null ? Double.MIN_VALUE : filter.lowPrice();
+        double highPrice = filter.highPrice() == null ? Double.MAX_VALUE : filter.highPrice();
+        List<Category> wantedCategories = filter.productCategories() == null || filter.productCategories().isEmpty()
+                ? null : filter.productCategories();
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> similarNames = filter.isFuzzyName()
+                    ? trigrams.similar(filter.productName(), TrigramIndex.DEFAULT_THRESHOLD) : null;
+            String exactName = filter.nameMatch() == ProductFilterAttributes.NameMatch.EXACT ? filter.productName() : null;
+            String namePart = filter.nameMatch() == ProductFilterAttributes.NameMatch.SUBSTRING && filter.productName() != null
+                    ? filter.productName().toLowerCase(Locale.ROOT) : null;
+            for (Collection<Long> keys : candidates(exactName, similarNames, wantedCategories, byPrice, lowPrice, highPrice, filter.lowProductRating())) {
+                for (long key : keys) {
+                    Entry entry = entries.get(key);
+                    if (exactName != null && !entry.name().equals(exactName))
+                        continue;
+                    if (namePart != null && !entry.name().toLowerCase(Locale.ROOT).contains(namePart))
+                        continue;
+                    if (similarNames != null && !similarNames.containsKey(key))
+                        continue;
+                    if (wantedCategories != null && !wantedCategories.contains(entry.category()))
+                        continue;
+                    if (filter.lowProductRating() != null && entry.rating() < filter.lowProductRating())
+                        continue;
+                    if (byPrice && (entry.price() < lowPrice || entry.price() > highPrice))
+                        continue;
+                    consumer.accept(entry.product(), similarNames == null ? 1 : similarNames.get(key));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Picks the posting lists to scan: the rarest name token or the names similar to the searched one,
+     * else the wanted categories, else a price or rating range.
+     * Every candidate is still checked against all the filters.
+     */
+    private List<Collection<Long>> candidates(String productName, Map<Long, Double> similarNames, List<Category> wantedCategories,
+                                              boolean byPrice, double lowPrice, double highPrice, Double lowRating) {
+        List<Collection<Long>> best = null;
+        int bestSize = Integer.MAX_VALUE;
+        if (similarNames != null) {
+            best = List.of(similarNames.keySet());
+            bestSize = similarNames.size();
+        }
+        if (productName != null) {
+            for (String token : tokenize(productName)) {
+                Set<Long> posting = tokens.getOrDefault(token, Set.of());
+                if (posting.size() < bestSize) {
+                    best = List.of(posting);
+                    bestSize = posting.size();
+                }
+            }
+        }
+        if (wantedCategories != null) {
+            List<Collection<Long>> postings = new ArrayList<>();
+            int size = 0;
+            for (Category category : EnumSet.copyOf(wantedCategories)) {
+                Set<Long> posting = categories.getOrDefault(category, Set.of());
+                postings.add(posting);
+                size += posting.size();
+            }
+            if (size < bestSize) {
+                best = postings;
+                bestSize = size;
+            }
+        }
+        if (best != null)
+            return best;
+        if (byPrice)
+            return lowPrice > highPrice ? List.of() : new ArrayList<>(prices.subMap(lowPrice, true, highPrice, true).values());
+        if (lowRating != null)
+            return new ArrayList<>(ratings.tailMap(lowRating, true).values());
+        return List.of(entries.keySet());
+    }
+
+    @Override
+    public void storeAttached(IStore store) {
+        lock.writeLock().lock();
+        try {
+            stores.putIfAbsent(store.getStoreId(), new HashSet<>());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productAdded(IProduct product) {
+        lock.writeLock().lock();
+        try {
+            long key = key(product.getStoreId(), product.getProductId());
+            Entry entry = entries.get(key);
+            if (entry != null && entry.product() == product && isIndexedAs(entry, product))
+                return;
+            unindex(key);
+            index(key, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productUpdated(IProduct product) {
+        productAdded(product);
+    }
+
+    @Override
+    public void productRemoved(IProduct product) {
+        lock.writeLock().lock();
+        try {
+            unindex(key(product.getStoreId(), product.getProductId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void storeRemoved(int storeId) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> keys = stores.remove(storeId);
+            if (keys == null)
+                return;
+            for (long key : keys)
+                unindexProduct(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // true if none of the indexed fields of the product changed, like when only its stock changes
+    private static boolean isIndexedAs(Entry entry, IProduct product) {
+        return entry.name().equals(product.getProductName())
+                && entry.category() == product.getProductCategory()
+                && entry.price() == product.getProductPrice()
+                && entry.rating() == product.getProductRating();
+    }
+
+    private void index(long key, IProduct product) {
+        Entry entry = new Entry(product, product.getProductName(), product.getProductCategory(),
+                product.getProductPrice(), product.getProductRating(), trigrams.add(key, product.getProductName()));
+        entries.put(key, entry);
+        stores.computeIfAbsent(product.getStoreId(), storeId -> new HashSet<>()).add(key);
+        for (String token : tokenize(entry.name()))
+            tokens.computeIfAbsent(token, t -> new HashSet<>()).add(key);
+        if (entry.category() != null)
+            categories.computeIfAbsent(entry.category(), c -> new HashSet<>()).add(key);
+        prices.computeIfAbsent(entry.price(), p -> new HashSet<>()).add(key);
+        ratings.computeIfAbsent(entry.rating(), r -> new HashSet<>()).add(key);
+    }
+
+    private void unindex(long key) {
+        Entry entry = entries.get(key);
+        if (entry == null)
+            return;
+        Set<Long> storeKeys = stores.get(entry.product().getStoreId());
+        if (storeKeys != null)
+            storeKeys.remove(key);
+        unindexProduct(key);
+    }
+
+    // removes the product from every posting list but the one of its store
+    private void unindexProduct(long key) {
+        Entry entry = entries.remove(key);
+        if (entry == null)
+            return;
+        for (String token : tokenize(entry.name()))
+            removeFrom(tokens, token, key);
+        trigrams.remove(entry.trigramSlot());
+        if (entry.category() != null)
+            removeFrom(categories, entry.category(), key);
+        removeFrom(prices, entry.price(), key);
+        removeFrom(ratings, entry.rating(), key);
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> postings, K value, long key) {
+        Set<Long> posting = postings.get(value);
+        if (posting == null)
+            return;
+        posting.remove(key);
+        if (posting.isEmpty())
+            postings.remove(value);
+    }
+
+    private static long key(int storeId, int productId) {
+        return ((long) storeId << 32) | (productId & 0xffffffffL);
+    }
+}
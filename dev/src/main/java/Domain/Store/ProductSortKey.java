@@ -0,0 +1,42 @@
+package Domain.Store;
+
+import java.util.Comparator;
+
+/**
+ * Orders of a product search page. Price and name are ascending, rating is descending.
+ * Ties are broken by store ID and then product ID, so every order is total and pages never overlap.
+ */
+public enum ProductSortKey {
+    PRICE {
+        @Override
+        int compareValue(IProduct product, double number, String name) {
+            return Double.compare(product.getProductPrice(), number);
+        }
+    },
+    RATING {
+        @Override
+        int compareValue(IProduct product, double number, String name) {
+            return Double.compare(number, product.getProductRating());
+        }
+    },
+    NAME {
+        @Override
+        int compareValue(IProduct product, double number, String name) {
+            return product.getProductName().compareTo(name);
+        }
+    };
+
+    // compares the sort value of the product to the given value, in the order of this key
+    abstract int compareValue(IProduct product, double number, String name);
+
+    public Comparator<IProduct> comparator() {
+        Comparator<IProduct> byValue = switch (this) {
+            case PRICE -> Comparator.comparingDouble(IProduct::getProductPrice);
+            case RATING -> Comparator.comparingDouble(IProduct::getProductRating).reversed();
+            case NAME -> Comparator.comparing(IProduct::getProductName);
+        };
+        return byValue
+                .thenComparingInt(IProduct::getStoreId)
+                .thenComparingInt(IProduct::getProductId);
+    }
+}
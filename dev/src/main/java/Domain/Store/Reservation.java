@@ -0,0 +1,55 @@
+package Domain.Store;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A temporary hold on products of a single store.
+ * The reserved quantities stay in the store's stock but are not available to other buyers
+ * until the reservation is committed (the stock is reduced) or released (the stock is available again).
+ * A reservation that wasn't committed or released until it expires is released by the store, unless it was
+ * pinned, like while the buyer is charged for it.
+ */
+public class Reservation {
+    private final int id;
+    private final int storeId;
+    private final Map<Integer, Integer> quantities; // <product_id, quantity>
+    private final LocalDateTime expiresAt;
+    private volatile boolean pinned = false;
+
+    public Reservation(int id, int storeId, Map<Integer, Integer> quantities, LocalDateTime expiresAt) {
+        this.id = id;
+        this.storeId = storeId;
+        this.quantities = Map.copyOf(quantities);
+        this.expiresAt = expiresAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getStoreId() {
+        return storeId;
+    }
+
+    public Map<Integer, Integer> getQuantities() {
+        return quantities;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    // only the store pins its reservations, atomically with its sweeps
+    void pin() {
+        pinned = true;
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return !pinned && now.isAfter(expiresAt);
+    }
+}
@@ -14,6 +14,7 @@ import Domain.MarketLogger;
 import Domain.Permission;
 import Domain.Store.Discount.DiscountTypes.Simple.ProductDiscount;
 import Domain.Store.Discount.IDiscount;
+import Domain.Store.Discount.Plan.DiscountPlan;
 import util.Exceptions.PurchaseLimitation;
 import Domain.Store.Purchase.PurchaseRule;
 import Domain.User.IStoreBasket;
@@ -25,12 +26,18 @@ import util.Exceptions.DataError;
 import util.Exceptions.DataExistentError;
 import util.Exceptions.NonExistentData;
 import util.Exceptions.PermissionError;
+import util.Records.StoreRecords.PriceCacheStats;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.StoreRecords.StoreRecord;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class Store implements IStore {
@@ -40,6 +47,13 @@ public class Store implements IStore {
     private final Map<Integer, PurchaseRule> purchaseRules; // <rule_id, rule>
     private final Map<Integer, Offer> offers; // <offer_id, offer>
     private final Map<Integer, OwnerAppointmentContract> contracts; // <contract_id, contract>
+    private final Map<Integer, Reservation> reservations = new ConcurrentHashMap<>(); // <reservation_id, reservation>
+    private final AtomicInteger reservationIds = new AtomicInteger(1);
+    private final AtomicInteger discountsVersion = new AtomicInteger(0);
+    private volatile DiscountPlan discountPlan;
+    private final AtomicInteger catalogVersion = new AtomicInteger(0);
+    private final BasketPriceCache priceCache = new BasketPriceCache();
+    private volatile CatalogEvents catalogEvents = new CatalogEvents();
 
     private DataStore dataStore;
 
@@ -122,12 +136,14 @@ public class Store implements IStore {
     public void setStoreName(String storeName) {
         dataStore.setName(storeName);
         dataStore = dataStore.persist();
+        catalogEvents.storeChanged(this);
     }
 
     @Override
     public void setStoreDescription(String storeDescription) {
         dataStore.setDescription(storeDescription);
         dataStore = dataStore.persist();
+        catalogEvents.storeChanged(this);
     }
 
     @Override
@@ -137,6 +153,7 @@ public class Store implements IStore {
         dataStore.setName(updatedStore.storeName());
         dataStore.setDescription(updatedStore.storeDescription());
         dataStore = dataStore.persist();
+        catalogEvents.storeChanged(this);
     }
 
     // Actions
@@ -146,6 +163,7 @@ public class Store implements IStore {
         checkPermission(userName, "closeStore", PermissionType.MAKE_STORE_INACTIVE);
         dataStore.setActive_state(false);
         dataStore = dataStore.persist();
+        catalogEvents.storeChanged(this);
     }
 
 
@@ -292,9 +310,19 @@ public class Store implements IStore {
         validateProductFields(productRecord);
         IProduct product = new Product(dataStore, productRecord);
         products.put(product.getProductId(), product);
+        catalogVersion.incrementAndGet();
+        catalogEvents.productAdded(product);
         return product.getProductId();
     }
 
+    @Override
+    public void publishCatalogTo(CatalogEvents catalogEvents) {
+        this.catalogEvents = catalogEvents;
+        catalogEvents.storeAttached(this);
+        for (IProduct product : products.values())
+            catalogEvents.productAdded(product);
+    }
+
     @Override
     public IProduct getProduct(int productId) throws NonExistentData {
         if (!products.containsKey(productId))
@@ -319,13 +347,19 @@ public class Store implements IStore {
             throw new NonExistentData("Product with ID " + productId +
                     " does not exist in store " + getStoreName(), ErrorStatus.PRODUCT_DOES_NOT_EXIST);
         product.update(updated);
+        catalogVersion.incrementAndGet();
+        catalogEvents.productUpdated(product);
     }
 
     @Override
     public void removeProduct(String userName, int productId) throws NonExistentData, PermissionError {
         checkPermission(userName, "removeProduct", PermissionType.STORAGE_MANAGEMENT);
         IProduct product = products.remove(productId);
-        if (product != null) product.remove();
+        catalogVersion.incrementAndGet();
+        if (product != null) {
+            product.remove();
+            catalogEvents.productRemoved(product);
+        }
         List<Integer> discountsToRemove =
                 discounts.values().stream()
                         .filter(d -> d.isDependentOnProduct(productId))
@@ -336,67 +370,194 @@ public class Store implements IStore {
     }
 
     @Override
-    public void addBasketQuantity(IStoreBasket storeBasket, Map<Integer, Integer> storeBasketCache) throws DataError {
+    public Reservation reserveBasketQuantity(IStoreBasket storeBasket, Duration ttl) throws NonExistentData, DataError {
         Map<Integer, Integer> productsAndQuantity = storeBasket.getProductsAsRecords().values()
                 .stream().collect(Collectors.toMap(ProductRecord::productId, ProductRecord::quantity));
-        List<Exception> exceptions = new ArrayList<>();
+        reserveQuantities(productsAndQuantity);
+        Reservation reservation = new Reservation(reservationIds.getAndIncrement(), getStoreId(),
+                productsAndQuantity, LocalDateTime.now().plus(ttl));
+        reservations.put(reservation.getId(), reservation);
+        return reservation;
+    }
+
+    @Override
+    public void pinReservation(Reservation reservation) throws NonExistentData {
+        LocalDateTime now = LocalDateTime.now();
+        List<Reservation> expired = new ArrayList<>(1);
+        // atomic with the sweeper, which releases an expired reservation the same way
+        Reservation held = reservations.computeIfPresent(reservation.getId(), (id, current) -> {
+            if (current.isExpired(now)) {
+                expired.add(current);
+                return null;
+            }
+            current.pin();
+            return current;
+        });
+        for (Reservation released : expired)
+            releaseQuantities(released.getQuantities());
+        if (held == null)
+            throw new NonExistentData(String.format("Reservation %d of store %d expired or was released",
+                    reservation.getId(), getStoreId()), ErrorStatus.RESERVATION_DOES_NOT_EXIST);
+    }
 
-        for (Map.Entry<Integer, Integer> entry : productsAndQuantity.entrySet()) {
-            int productId = entry.getKey();
-            int quantity = entry.getValue();
+    @Override
+    public void commitReservation(Reservation reservation) throws NonExistentData {
+        Reservation held = reservations.remove(reservation.getId());
+        if (held != null && held.isExpired(LocalDateTime.now())) {
+            releaseQuantities(held.getQuantities());
+            held = null;
+        }
+        if (held == null)
+            throw new NonExistentData(String.format("Reservation %d of store %d expired or was released",
+                    reservation.getId(), getStoreId()), ErrorStatus.RESERVATION_DOES_NOT_EXIST);
+        commitQuantities(held.getQuantities());
+    }
 
+    @Override
+    public void revertReservation(Reservation reservation) {
+        for (Map.Entry<Integer, Integer> entry : reservation.getQuantities().entrySet()) {
+            IProduct product = products.get(entry.getKey());
+            if (product == null)
+                continue;
             try {
-                IProduct product = getProduct(productId);
-                product.addingProductQuantity(quantity);
-            } catch (DataError | NonExistentData e) {
-                exceptions.add(e);
+                product.addingProductQuantity(entry.getValue());
+                catalogEvents.stockChanged(product);
+            } catch (DataError e) {
+                MarketLogger.logError("Store", "revertReservation",
+                        "could not return %d units of product %d to store %d", entry.getValue(), entry.getKey(), getStoreId());
             }
         }
+    }
+
+    @Override
+    public void releaseReservation(Reservation reservation) {
+        if (reservations.remove(reservation.getId()) != null)
+            releaseQuantities(reservation.getQuantities());
+    }
 
-        if (!exceptions.isEmpty()) {
-            throw new DataError("Multiple exceptions occurred while adding basket quantity", ErrorStatus.INVALID_PRODUCT_QUANTITY);
+    @Override
+    public int releaseExpiredReservations(LocalDateTime now) {
+        int released = 0;
+        for (Reservation reservation : reservations.values()) {
+            if (!reservation.isExpired(now))
+                continue;
+            // checked again atomically, since the reservation may have been pinned meanwhile
+            boolean[] removed = new boolean[1];
+            reservations.computeIfPresent(reservation.getId(), (id, current) -> {
+                removed[0] = current.isExpired(now);
+                return removed[0] ? null : current;
+            });
+            if (removed[0]) {
+                releaseQuantities(reservation.getQuantities());
+                released++;
+            }
         }
+        return released;
     }
 
     @Override
-    public void removeBasketQuantity(IStoreBasket storeBasket, Map<Integer, Integer> productsCache) throws NonExistentData, DataError {
-        Map<Integer, Integer> productsAndQuantity = storeBasket.getProductsAsRecords().values()
-                .stream().collect(Collectors.toMap(ProductRecord::productId, ProductRecord::quantity));
+    public int getActiveReservationsCount() {
+        return reservations.size();
+    }
+
+    // holds all the given quantities or none of them
+    private void reserveQuantities(Map<Integer, Integer> quantities) throws NonExistentData, DataError {
+        Map<Integer, Integer> reserved = new HashMap<>();
+        try {
+            for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                getProduct(entry.getKey()).reserveQuantity(entry.getValue());
+                reserved.put(entry.getKey(), entry.getValue());
+            }
+        } catch (NonExistentData | DataError e) {
+            releaseQuantities(reserved);
+            throw e;
+        }
+    }
+
+    private void commitQuantities(Map<Integer, Integer> quantities) {
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            IProduct product = products.get(entry.getKey());
+            if (product != null) {
+                product.commitReservedQuantity(entry.getValue());
+                catalogEvents.stockChanged(product);
+            }
+        }
+    }
 
-        for (Map.Entry<Integer, Integer> entry : productsAndQuantity.entrySet()) {
-            int productId = entry.getKey();
-            int quantity = entry.getValue();
-            reduceProductQuantityInRepo(productId, quantity);
-            productsCache.put(productId, quantity);
+    private void releaseQuantities(Map<Integer, Integer> quantities) {
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            IProduct product = products.get(entry.getKey());
+            if (product != null)
+                product.releaseReservedQuantity(entry.getValue());
         }
     }
 
     @Override
     public double calculateBasketPrice(IStoreBasket storeBasket) {
-        syncBasket(storeBasket);
-        applyDiscountOnBasket(storeBasket);
-        return storeBasket.getBasketPriceAfterDiscount();
+        DiscountPlan plan = getDiscountPlan();
+        int catalog = catalogVersion.get();
+        boolean cacheable = !plan.isTimeDependent();
+        // the version first, so the price isn't cached under a version whose changes weren't taken
+        long basketVersion = storeBasket.getVersion();
+        Set<Integer> changedProducts = storeBasket.takeChangedProducts();
+        if (cacheable) {
+            OptionalDouble cached = priceCache.get(storeBasket, catalog, plan.getVersion());
+            if (cached.isPresent())
+                return cached.getAsDouble();
+        }
+        if (cacheable && plan.isLineLocal() && priceCache.isPricedAt(storeBasket, catalog, plan.getVersion())) {
+            repriceLines(storeBasket, changedProducts, plan);
+        } else {
+            syncBasket(storeBasket);
+            plan.applyOn(storeBasket);
+        }
+        double price = storeBasket.getBasketPriceAfterDiscount();
+        if (cacheable)
+            priceCache.put(storeBasket, basketVersion, catalog, plan.getVersion(), price);
+        return price;
+    }
+
+    @Override
+    public PriceCacheStats getPriceCacheStats() {
+        return priceCache.getStats();
     }
 
     public void syncBasket(IStoreBasket storeBasket) {
         try {
-            for (ProductRecord record : storeBasket.getProductsAsRecords().values()) {
-                IProduct product = getProduct(record.productId());
-                ProductRecord syncRecord = new ProductRecord(
-                        getStoreId(),
-                        product.getProductId(),
-                        product.getProductName(),
-                        product.getProductPrice(),
-                        product.getProductCategory(),
-                        record.quantity(),
-                        product.getProductPrice(),
-                        product.getProductRating()
-                );
-                storeBasket.updateProductRecord(syncRecord);
-            }
+            for (ProductRecord record : storeBasket.getProductsAsRecords().values())
+                syncLine(storeBasket, record);
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    // the other lines were priced with the same catalog and discounts, and a line local plan does not change them
+    private void repriceLines(IStoreBasket storeBasket, Set<Integer> productIds, DiscountPlan plan) {
+        List<ProductRecord> lines = new ArrayList<>(productIds.size());
+        try {
+            for (int productId : productIds)
+                if (storeBasket.isProductExists(productId))
+                    lines.add(syncLine(storeBasket, storeBasket.getProductRecord(productId)));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
+        plan.applyOnLines(storeBasket, lines);
+    }
+
+    private ProductRecord syncLine(IStoreBasket storeBasket, ProductRecord record) throws NonExistentData {
+        IProduct product = getProduct(record.productId());
+        ProductRecord syncRecord = new ProductRecord(
+                getStoreId(),
+                product.getProductId(),
+                product.getProductName(),
+                product.getProductPrice(),
+                product.getProductCategory(),
+                record.quantity(),
+                product.getProductPrice(),
+                product.getProductRating()
+        );
+        storeBasket.updateProductRecord(syncRecord);
+        return syncRecord;
     }
 
     @Override
@@ -404,6 +565,7 @@ public class Store implements IStore {
         checkPermission(userName, "addProductQuantity", PermissionType.STORAGE_MANAGEMENT);
         IProduct product = getProduct(productId);
         product.addingProductQuantity(quantity);
+        catalogEvents.stockChanged(product);
     }
 
     @Override
@@ -436,6 +598,7 @@ public class Store implements IStore {
     private void reduceProductQuantityInRepo(int productId, int quantity) throws NonExistentData, DataError {
         IProduct product = getProduct(productId);
         product.reduceProductQuantity(quantity);
+        catalogEvents.stockChanged(product);
     }
 
     // Permissions
@@ -561,11 +724,30 @@ public class Store implements IStore {
         return MarketImpl.getInstance().getStoreTransactionsBetween(getStoreId(), optionalStartDateTime, optionalEndDateTime);
     }
 
+    @Override
+    public void exportStoreTransactionsByDate(String userName, LocalDateTime optionalStartDateTime, LocalDateTime optionalEndDateTime,
+                                              Consumer<Transaction> consumer) throws PermissionError, NonExistentData, DataError {
+        checkPermission(userName, "getStoreTransactions", PermissionType.GET_PURCHASE_HISTORY);
+        MarketImpl.getInstance().exportStoreTransactions(getStoreId(), optionalStartDateTime, optionalEndDateTime, consumer);
+    }
+
+    @Override
+    public SalesReport getStoreSales(String userName, LocalDate from, LocalDate to, int bestSellers) throws PermissionError, NonExistentData {
+        checkPermission(userName, "getStoreSales", PermissionType.GET_PURCHASE_HISTORY);
+        return MarketImpl.getInstance().getStoreSales(getStoreId(), from, to, bestSellers);
+    }
+
     //**************************************************************Discount Function
 
-    private void applyDiscountOnBasket(IStoreBasket basket) {
-        for (IDiscount discount : discounts.values())
-            discount.applyDiscountOnBasket(basket);
+    // compiled once per change of the discounts, a plan compiled while they changed is rebuilt on next use
+    private DiscountPlan getDiscountPlan() {
+        DiscountPlan plan = discountPlan;
+        int version = discountsVersion.get();
+        if (plan == null || plan.getVersion() != version) {
+            plan = DiscountPlan.compile(version, discounts.values());
+            discountPlan = plan;
+        }
+        return plan;
     }
 
     @Override
@@ -577,6 +759,7 @@ public class Store implements IStore {
             discounts.remove(discountID);
         discount.persist(dataStore);
         discounts.put(discount.getDiscountId(), discount);
+        discountsVersion.incrementAndGet();
         return discount.getDiscountId();
     }
 
@@ -585,6 +768,7 @@ public class Store implements IStore {
     public void removeDiscount(String userName, int discountId) throws PermissionError {
         checkPermission(userName, "removeDiscount", PermissionType.CHANGE_STORE_POLICY);
         IDiscount toRemove = discounts.remove(discountId);
+        discountsVersion.incrementAndGet();
         if (toRemove != null) toRemove.remove();
     }
 
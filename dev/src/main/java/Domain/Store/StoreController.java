@@ -17,23 +17,47 @@ import util.Enums.PermissionType;
 import util.Enums.RoleType;
 import util.Exceptions.*;
 import util.Records.DateRange;
+import util.Records.StoreRecords.AutocompleteSuggestion;
+import util.Records.StoreRecords.PriceCacheStats;
 import util.Records.StoreRecords.ProductFilterAttributes;
+import util.Records.StoreRecords.ProductPage;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.StoreRecords.StoreRecord;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class StoreController implements IStoreController {
+    private static final Duration RESERVATION_TTL = Duration.ofMinutes(10);
+    private static final long RESERVATION_SWEEP_INTERVAL_SECONDS = 30;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private IStoreRepo storeRepo;
+    private final CatalogEvents catalogEvents = new CatalogEvents();
+    private final ProductIndex productIndex = new ProductIndex();
+    private final CatalogSnapshotPublisher catalogSnapshots = new CatalogSnapshotPublisher();
+    private final AutocompleteIndex autocompleteIndex = new AutocompleteIndex();
+    private volatile boolean catalogLoaded = false;
     private IUserController userController;
     private INotificationService notificationService;
+    private final Set<Integer> storesWithReservations = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService reservationSweeper;
 
     public StoreController(IUserController userController) {
         this.userController = userController;
-        storeRepo = new StoreRepo();
+        catalogEvents.subscribe(productIndex);
+        catalogEvents.subscribe(catalogSnapshots);
+        catalogEvents.subscribe(autocompleteIndex);
+        storeRepo = new StoreRepo(catalogEvents);
     }
 
     @Override
@@ -197,71 +221,114 @@ public class StoreController implements IStoreController {
     }
 
     @Override
-    public void addCartQuantity(IUserCart userCart)
-            throws NonExistentData, DataError, PermissionError {
-        Map<Integer, Map<Integer, Integer>> storeBasketCache = new HashMap<>();
-        List<IStoreBasket> storeBaskets = userCart.getStoreBaskets();
-        for (IStoreBasket storeBasket : storeBaskets) {
-            int storeId = storeBasket.getStoreId();
-            storeBasketCache.put(storeId, new HashMap<>());
+    public List<Reservation> reserveCartQuantity(IUserCart userCart) throws NonExistentData, DataError {
+        List<Reservation> reservations = new ArrayList<>();
+        for (IStoreBasket storeBasket : userCart.getStoreBaskets()) {
             try {
-                storeRepo.getStore(storeId).addBasketQuantity(
-                        storeBasket, storeBasketCache.get(storeId));
-            } catch (NonExistentData e) {
-                removeProductsFromCache(storeBasketCache);
-                MarketLogger.logError(
-                        "StoreController", "addCartQuantity",
-                        "couldn't restore products quantity from user cart",
-                        userCart.toString());
+                IStore store = storeRepo.getStore(storeBasket.getStoreId());
+                reservations.add(store.reserveBasketQuantity(storeBasket, RESERVATION_TTL));
+                // after the hold exists, so the sweeper doesn't drop the store before it sees the hold
+                storesWithReservations.add(store.getStoreId());
+            } catch (NonExistentData | DataError e) {
+                releaseCartReservations(reservations);
+                throw e;
             }
         }
+        startReservationSweeper();
+        return reservations;
     }
 
     @Override
-    public void removeCartQuantity(IUserCart userCart) throws NonExistentData, DataError{
-        Map<Integer, Map<Integer, Integer>> storeBasketCache = new HashMap<>();
-        List<IStoreBasket> storeBaskets = userCart.getStoreBaskets();
-        for (IStoreBasket storeBasket : storeBaskets) {
-            int storeId = storeBasket.getStoreId();
-            storeBasketCache.put(storeId, new HashMap<>());
+    public void pinCartReservations(List<Reservation> reservations) throws NonExistentData {
+        try {
+            for (Reservation reservation : reservations)
+                storeRepo.getStore(reservation.getStoreId()).pinReservation(reservation);
+        } catch (NonExistentData e) {
+            releaseCartReservations(reservations);
+            throw e;
+        }
+    }
+
+    @Override
+    public void commitCartReservations(List<Reservation> reservations) throws NonExistentData {
+        List<Reservation> committed = new ArrayList<>();
+        try {
+            for (Reservation reservation : reservations) {
+                storeRepo.getStore(reservation.getStoreId()).commitReservation(reservation);
+                committed.add(reservation);
+            }
+        } catch (NonExistentData e) {
+            revertCartReservations(committed);
+            releaseCartReservations(reservations);
+            throw e;
+        }
+    }
+
+    // returns the products of reservations that were committed before another one failed to commit
+    private void revertCartReservations(List<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
             try {
-                storeRepo.getStore(storeId).removeBasketQuantity(
-                        storeBasket, storeBasketCache.get(storeId));
-            } catch (DataError e) {
-                try {
-                    addProductsFromCache(storeBasketCache);
-                } catch (MarketException e2) {
-                    throw new RuntimeException(
-                            e.getMessage() + "and" + e2.getMessage() +
-                                    "Cannot remove cart quantity, store with ID " + storeId);
-                }
-                throw e;
+                storeRepo.getStore(reservation.getStoreId()).revertReservation(reservation);
+            } catch (NonExistentData e) {
+                MarketLogger.logError("StoreController", "revertCartReservations",
+                        "couldn't revert reservation %d, store %d does not exist",
+                        reservation.getId(), reservation.getStoreId());
             }
         }
     }
 
-    private void
-    addProductsFromCache(Map<Integer, Map<Integer, Integer>> storeBasketCache)
-            throws NonExistentData, DataError, PermissionError {
-        for (int storeId : storeBasketCache.keySet()) {
-            for (int productId : storeBasketCache.get(storeId).keySet()) {
-                int quantity = storeBasketCache.get(storeId).get(productId);
-                storeRepo.getStore(storeId).addProductQuantity("System", productId,
-                        quantity);
+    @Override
+    public void releaseCartReservations(List<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
+            try {
+                storeRepo.getStore(reservation.getStoreId()).releaseReservation(reservation);
+            } catch (NonExistentData e) {
+                MarketLogger.logError("StoreController", "releaseCartReservations",
+                        "couldn't release reservation %d, store %d does not exist",
+                        reservation.getId(), reservation.getStoreId());
             }
         }
     }
 
-    private void
-    removeProductsFromCache(Map<Integer, Map<Integer, Integer>> storeBasketCache)
-            throws NonExistentData, DataError, PermissionError {
-        for (int storeId : storeBasketCache.keySet()) {
-            for (int productId : storeBasketCache.get(storeId).keySet()) {
-                int quantity = storeBasketCache.get(storeId).get(productId);
-                storeRepo.getStore(storeId).reduceProductQuantity("System", productId,
-                        quantity);
+    @Override
+    public int releaseExpiredReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = 0;
+        for (int storeId : storesWithReservations) {
+            try {
+                IStore store = storeRepo.getStore(storeId);
+                released += store.releaseExpiredReservations(now);
+                // a store is added back by the next hold, which is added to the store first
+                if (store.getActiveReservationsCount() == 0) {
+                    storesWithReservations.remove(storeId);
+                    if (store.getActiveReservationsCount() > 0)
+                        storesWithReservations.add(storeId);
+                }
+            } catch (NonExistentData e) {
+                storesWithReservations.remove(storeId);
             }
         }
+        return released;
+    }
+
+    private synchronized void startReservationSweeper() {
+        if (reservationSweeper != null) return;
+        reservationSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "store-reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reservationSweeper.scheduleWithFixedDelay(() -> {
+            try {
+                int released = releaseExpiredReservations();
+                if (released > 0)
+                    MarketLogger.logEvent("StoreController", "releaseExpiredReservations",
+                            String.format("released %d expired reservations", released));
+            } catch (Exception e) {
+                MarketLogger.logError("StoreController", "releaseExpiredReservations",
+                        "Error msg: %s. could not release expired reservations", e.getMessage());
+            }
+        }, RESERVATION_SWEEP_INTERVAL_SECONDS, RESERVATION_SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     @Override
@@ -271,6 +338,9 @@ public class StoreController implements IStoreController {
 
     @Override
     public StoreRecord getStoreInfo(int storeId) throws NonExistentData {
+        StoreRecord snapshotRecord = getCatalogSnapshot().getStore(storeId);
+        if (snapshotRecord != null)
+            return snapshotRecord;
         IStore store = storeRepo.getStore(storeId);
         String storeName = store.getStoreName();
         double storeRating = store.getStoreRating();
@@ -362,32 +432,75 @@ public class StoreController implements IStoreController {
     @Override
     public List<IProduct>
     getFilteredProducts(ProductFilterAttributes productFilterAttributes) {
-        List<IStore> storeList = getActiveStores();
-        List<IStore> filteredStores = filterStoresByName(productFilterAttributes.storeName(),
-                filterStoresByRating(productFilterAttributes.lowStoreRating(), storeList));
+        if (productFilterAttributes.isFuzzyName())
+            return getFuzzyFilteredProducts(productFilterAttributes);
         List<IProduct> filteredProducts = new ArrayList<>();
+        Map<Integer, List<IProduct>> indexed = productIndex.search(productFilterAttributes);
 
-        for (IStore store : filteredStores) {
-            List<IProduct> products = new ArrayList<>();
-            try {
-                products = store.getProducts();
-            } catch (Exception e) {
-            }
-            // apply product filters
-            products = filterProductsByName(
-                    productFilterAttributes.productName(),
-                    filterProductsByCategories(
-                            productFilterAttributes.productCategories(),
-                            filterProductsByRating(
-                                    productFilterAttributes.lowProductRating(),
-                                    filterProductsByPrice(productFilterAttributes.lowPrice(),
-                                            productFilterAttributes.highPrice(),
-                                            products))));
-            filteredProducts.addAll(products);
-        }
+        for (int storeId : filterStores(productFilterAttributes))
+            filteredProducts.addAll(indexed.getOrDefault(storeId, List.of()));
         return filteredProducts;
     }
 
+    // products with a name similar to the searched one, most similar first
+    private List<IProduct> getFuzzyFilteredProducts(ProductFilterAttributes productFilterAttributes) {
+        Map<IProduct, Double> similarities = new HashMap<>();
+        Set<Integer> stores = new HashSet<>(filterStores(productFilterAttributes));
+        if (!stores.isEmpty())
+            productIndex.forEachMatch(productFilterAttributes, (product, similarity) -> {
+                if (stores.contains(product.getStoreId()))
+                    similarities.put(product, similarity);
+            });
+        return similarities.keySet().stream()
+                .sorted(Comparator.<IProduct>comparingDouble(similarities::get).reversed()
+                        .thenComparingInt(IProduct::getStoreId)
+                        .thenComparingInt(IProduct::getProductId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public ProductPage getFilteredProductsPage(ProductFilterAttributes productFilterAttributes, ProductSortKey sortKey,
+                                               int pageSize, String cursor) throws DataError {
+        if (pageSize <= 0)
+            throw new DataError("Page size must be positive", ErrorStatus.INVALID_PAGE_REQUEST);
+        int size = Math.min(pageSize, MAX_PAGE_SIZE);
+        ProductCursor after = cursor == null ? null : ProductCursor.decode(cursor, sortKey);
+        Comparator<IProduct> order = sortKey.comparator();
+
+        // max heap of the first size + 1 products after the cursor, the extra one tells if there is a next page
+        PriorityQueue<IProduct> top = new PriorityQueue<>(size + 1, order.reversed());
+        Set<Integer> stores = new HashSet<>(filterStores(productFilterAttributes));
+        Consumer<IProduct> offer = product -> {
+            if (after != null && !after.isBefore(product))
+                return;
+            if (top.size() <= size)
+                top.add(product);
+            else if (order.compare(product, top.peek()) < 0) {
+                top.poll();
+                top.add(product);
+            }
+        };
+        if (!stores.isEmpty())
+            productIndex.forEachMatch(productFilterAttributes, product -> {
+                if (stores.contains(product.getStoreId()))
+                    offer.accept(product);
+            });
+
+        boolean hasNext = top.size() > size;
+        if (hasNext)
+            top.poll();
+        List<IProduct> page = new ArrayList<>(top);
+        page.sort(order);
+        String nextCursor = hasNext ? ProductCursor.after(sortKey, page.get(page.size() - 1)).encode() : null;
+        return new ProductPage(page.stream().map(ProductRecord::new).toList(), nextCursor);
+    }
+
+    @Override
+    public List<AutocompleteSuggestion> autocomplete(String prefix, int limit) {
+        loadCatalog();
+        return autocompleteIndex.complete(prefix, Math.min(limit, AutocompleteIndex.TOP_N));
+    }
+
     @Override
     public double calculateBasketPrice(IStoreBasket storeBasket) {
         int storeId = storeBasket.getStoreId();
@@ -400,6 +513,14 @@ public class StoreController implements IStoreController {
         }
     }
 
+    @Override
+    public PriceCacheStats getPriceCacheStats() {
+        PriceCacheStats stats = new PriceCacheStats(0, 0);
+        for (IStore store : storeRepo.getStores())
+            stats = stats.add(store.getPriceCacheStats());
+        return stats;
+    }
+
     @Override
     public void checkPurchaseRules(IStoreBasket storeBasket) throws NonExistentData, PurchaseLimitation {
         int storeId = storeBasket.getStoreId();
@@ -443,19 +564,12 @@ public class StoreController implements IStoreController {
 
     @Override
     public List<StoreRecord> getStores() {
-        List<IStore> storeList = getActiveStores();
-
-        return storeList.stream()
-                .map(StoreRecord::new)
-                .collect(Collectors.toList());
+        return getCatalogSnapshot().getActiveStores();
     }
 
     @Override
-    public Map<Integer, Map<Integer, IProduct>> getStoresProducts() {
-        return getActiveStores().stream()
-                .collect(Collectors.toMap(IStore::getStoreId,
-                        s -> s.getProducts().stream()
-                                .collect(Collectors.toMap(IProduct::getProductId, Function.identity()))));
+    public Map<Integer, Map<Integer, ProductRecord>> getStoresProducts() {
+        return getCatalogSnapshot().getActiveStoresProducts();
     }
 
     @Override
@@ -467,65 +581,51 @@ public class StoreController implements IStoreController {
 
     // private methods
 
-    private List<IStore> filterStoresByRating(Double rating, List<IStore> storeList) {
-        if (rating == null) {
-            return storeList;
-        }
-        return storeList.stream()
-                .filter(store -> store.getStoreRating() >= rating)
-                .collect(Collectors.toList());
+    private CatalogSnapshot getCatalogSnapshot() {
+        loadCatalog();
+        return catalogSnapshots.getSnapshot();
     }
 
-    private List<IStore> filterStoresByName(String storeName,
-                                              List<IStore> storeList) {
-        if (storeName == null) {
-            return storeList;
-        }
-        return storeList.stream()
-                .filter(store -> store.getStoreName().equalsIgnoreCase(storeName))
-                .collect(Collectors.toList());
+    // if some stores failed to load, the first read loads them all
+    @Override
+    public void warmUpCatalog() {
+        if (storeRepo.warmUp())
+            catalogLoaded = true;
     }
 
-    private List<IProduct> filterProductsByName(String productName,
-                                                List<IProduct> products) {
-        if (productName == null)
-            return products;
-        return products.stream()
-                .filter(product -> product.getProductName().equals(productName))
-                .collect(Collectors.toList());
+    // stores publish their catalog once loaded, so the first read loads them all
+    private void loadCatalog() {
+        if (!catalogLoaded) {
+            storeRepo.getStores();
+            catalogLoaded = true;
+        }
     }
 
-    private List<IProduct> filterProductsByCategories(List<Category> categories,
-                                                      List<IProduct> products) {
-        if (categories == null || categories.size() == 0) {
-            return products;
-        }
-        return products.stream()
-                .filter(product -> categories.contains(product.getProductCategory()))
+    // the IDs of the stores to search, taken from the catalog snapshot so a search never reads the repository
+    private List<Integer> filterStores(ProductFilterAttributes productFilterAttributes) {
+        return filterStoresByName(productFilterAttributes.storeName(),
+                filterStoresByRating(productFilterAttributes.lowStoreRating(), getCatalogSnapshot().getActiveStores()))
+                .stream()
+                .map(StoreRecord::storeId)
                 .collect(Collectors.toList());
     }
 
-    private List<IProduct> filterProductsByRating(Double rating,
-                                                  List<IProduct> products) {
+    private List<StoreRecord> filterStoresByRating(Double rating, List<StoreRecord> storeList) {
         if (rating == null) {
-            return products;
+            return storeList;
         }
-        return products.stream()
-                .filter(product -> product.getProductRating() >= rating)
+        return storeList.stream()
+                .filter(store -> store.storeRating() >= rating)
                 .collect(Collectors.toList());
     }
 
-    private List<IProduct> filterProductsByPrice(Double lowPrice,
-                                                 Double highPrice,
-                                                 List<IProduct> products) {
-        if (lowPrice == null && highPrice == null)
-            return products;
-        double finalLowPrice = lowPrice == null ? Double.MIN_VALUE : lowPrice;
-        double finalHighPrice = highPrice == null ? Double.MAX_VALUE : highPrice;
-        return products.stream()
-                .filter(product
-                        -> product.getProductPrice() <= finalHighPrice &&
-                        product.getProductPrice() >= finalLowPrice)
+    private List<StoreRecord> filterStoresByName(String storeName,
+                                                 List<StoreRecord> storeList) {
+        if (storeName == null) {
+            return storeList;
+        }
+        return storeList.stream()
+                .filter(store -> store.storeName().equalsIgnoreCase(storeName))
                 .collect(Collectors.toList());
     }
 
@@ -535,6 +635,7 @@ public class StoreController implements IStoreController {
 
     // for tests
     public void addStore(IStore store) {
+        store.publishCatalogTo(catalogEvents);
         storeRepo.getStoreMap().putIfAbsent(store.getStoreId(), store);
     }
 
@@ -568,6 +669,22 @@ public class StoreController implements IStoreController {
 
     }
 
+    @Override
+    public void exportStoreTransactions(String sessionId, int storeId, LocalDateTime optionalStart, LocalDateTime optionalEnd,
+                                        Consumer<Transaction> consumer) throws SessionError, NonExistentData, PermissionError, DataError {
+        String userName = getUserName(sessionId);
+        IStore store = storeRepo.getStore(storeId);
+        store.exportStoreTransactionsByDate(userName, optionalStart, optionalEnd, consumer);
+    }
+
+    @Override
+    public SalesReport getStoreSales(String sessionId, int storeId, LocalDate from, LocalDate to, int bestSellers)
+            throws SessionError, NonExistentData, PermissionError {
+        String userName = getUserName(sessionId);
+        IStore store = storeRepo.getStore(storeId);
+        return store.getStoreSales(userName, from, to, bestSellers);
+    }
+
     public void addDiscount(String session, int storeId, IDiscount discount) throws NonExistentData, SessionError, PermissionError {
         IStore store = getStore(storeId);
         String userName = userController.getMemberUserName(session);
@@ -0,0 +1,132 @@
+package Domain.Store;
+
+import java.util.*;
+
+/**
+ * Trigram index over product names for typo tolerant matching. Each name is stored in a slot, and each
+ * trigram keeps the slots of the names that contain it in a primitive int list. Similarity is the Dice
+ * coefficient of the trigram sets, where every word is padded like "  word ".
+ * Not thread safe, {@link ProductIndex} guards it with its own lock.
+ */
+public class TrigramIndex {
+    public static final double DEFAULT_THRESHOLD = 0.3;
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        private void remove(int value) {
+            for (int i = 0; i < size; i++)
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+        }
+    }
+
+    private final Map<Long, IntList> postings = new HashMap<>(); // <trigram, slots>
+    private long[] slotKeys = new long[16]; // <slot, product key>
+    private long[][] slotTrigrams = new long[16][]; // <slot, trigrams of the name>, null for a free slot
+    private final IntList freeSlots = new IntList();
+    private int nextSlot = 0;
+
+    /**
+     * Indexes the name of the product with the given key and returns the slot it was stored in.
+     */
+    public int add(long productKey, String name) {
+        int slot;
+        if (freeSlots.size > 0) {
+            slot = freeSlots.values[--freeSlots.size];
+        } else {
+            slot = nextSlot++;
+            if (slot == slotKeys.length) {
+                slotKeys = Arrays.copyOf(slotKeys, slot * 2);
+                slotTrigrams = Arrays.copyOf(slotTrigrams, slot * 2);
+            }
+        }
+        long[] trigrams = trigrams(name);
+        slotKeys[slot] = productKey;
+        slotTrigrams[slot] = trigrams;
+        for (long trigram : trigrams)
+            postings.computeIfAbsent(trigram, t -> new IntList()).add(slot);
+        return slot;
+    }
+
+    public void remove(int slot) {
+        long[] trigrams = slotTrigrams[slot];
+        if (trigrams == null)
+            return;
+        for (long trigram : trigrams) {
+            IntList posting = postings.get(trigram);
+            posting.remove(slot);
+            if (posting.size == 0)
+                postings.remove(trigram);
+        }
+        slotTrigrams[slot] = null;
+        freeSlots.add(slot);
+    }
+
+    /**
+     * Returns the keys of the products whose name is at least as similar to the query as the threshold,
+     * with their similarity. Only the names that share a trigram with the query are visited.
+     */
+    public Map<Long, Double> similar(String query, double threshold) {
+        long[] queryTrigrams = trigrams(query);
+        Map<Integer, Integer> shared = new HashMap<>(); // <slot, trigrams shared with the query>
+        for (long trigram : queryTrigrams) {
+            IntList posting = postings.get(trigram);
+            if (posting == null)
+                continue;
+            for (int i = 0; i < posting.size; i++)
+                shared.merge(posting.values[i], 1, Integer::sum);
+        }
+        Map<Long, Double> result = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+            double similarity = dice(entry.getValue(), queryTrigrams.length, slotTrigrams[entry.getKey()].length);
+            if (similarity >= threshold)
+                result.put(slotKeys[entry.getKey()], similarity);
+        }
+        return result;
+    }
+
+    public static double similarity(String a, String b) {
+        long[] first = trigrams(a);
+        long[] second = trigrams(b);
+        int shared = 0;
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] == second[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dice(shared, first.length, second.length);
+    }
+
+    private static double dice(int shared, int first, int second) {
+        return first + second == 0 ? 0 : 2.0 * shared / (first + second);
+    }
+
+    // the distinct trigrams of the padded words of the text, sorted, each packed to a long
+    private static long[] trigrams(String text) {
+        Set<Long> result = new TreeSet<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty())
+                continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++)
+                result.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,64 @@
+package Domain.User;
+
+import Domain.Store.Category;
+import util.Records.StoreRecords.ProductRecord;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quantities of a store basket, kept up to date by the basket on every line change,
+ * so conditions and purchase rules read them without scanning the lines.
+ */
+public class BasketAggregates {
+    private int totalQuantity = 0;
+    private final int[] categoryQuantities = new int[Category.values().length];
+    private final int[] categoryLines = new int[Category.values().length]; // lines with a positive quantity
+    private final Map<Integer, Integer> productQuantities = new HashMap<>(); // <product ID, positive quantity>
+
+    public synchronized void lineAdded(ProductRecord line) {
+        apply(line, 1);
+    }
+
+    public synchronized void lineRemoved(ProductRecord line) {
+        apply(line, -1);
+    }
+
+    public synchronized void lineUpdated(ProductRecord oldLine, ProductRecord newLine) {
+        apply(oldLine, -1);
+        apply(newLine, 1);
+    }
+
+    private void apply(ProductRecord line, int sign) {
+        totalQuantity += sign * line.quantity();
+        if (line.productCategory() != null) {
+            categoryQuantities[line.productCategory().ordinal()] += sign * line.quantity();
+            if (line.quantity() > 0)
+                categoryLines[line.productCategory().ordinal()] += sign;
+        }
+        // a product whose quantity drops to 0 isn't in the basket anymore
+        if (line.quantity() != 0)
+            productQuantities.merge(line.productId(), sign * line.quantity(),
+                    (quantity, change) -> quantity + change == 0 ? null : quantity + change);
+    }
+
+    public synchronized int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public synchronized int getCategoryQuantity(Category category) {
+        return categoryQuantities[category.ordinal()];
+    }
+
+    public synchronized int getProductQuantity(int productId) {
+        return productQuantities.getOrDefault(productId, 0);
+    }
+
+    public synchronized int getDistinctProducts() {
+        return productQuantities.size();
+    }
+
+    public synchronized boolean containsCategory(Category category) {
+        return categoryLines[category.ordinal()] > 0;
+    }
+}
@@ -13,6 +13,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -22,6 +23,9 @@ public class DummyStoreBasket implements IStoreBasket{
     private AtomicDouble basketRegularPrice = new AtomicDouble(0);
     private AtomicDouble basketDiscountPrice = new AtomicDouble(0);
     private LocalDate userAge;
+    private final AtomicLong version = new AtomicLong(0);
+    private final Set<Integer> changedProducts = ConcurrentHashMap.newKeySet(); // <product ID> since last takeChangedProducts
+    private final BasketAggregates aggregates = new BasketAggregates();
 
     public DummyStoreBasket(int storeId) {
         this.storeId = storeId;
@@ -41,6 +45,7 @@ public class DummyStoreBasket implements IStoreBasket{
         this.products = products.stream()
                 .map(DummyBaskedProduct::new)
                 .collect(Collectors.toMap(IBaskedProduct::getProductId, Function.identity()));
+        this.products.values().forEach(product -> aggregates.lineAdded(product.getAsRecord()));
     }
 
     public DummyStoreBasket(IStoreBasket toCopy){
@@ -49,6 +54,7 @@ public class DummyStoreBasket implements IStoreBasket{
         this.products = toCopy.getProductsAsRecords().values().stream()
                 .map(DummyBaskedProduct::new)
                 .collect(Collectors.toMap(IBaskedProduct::getProductId, Function.identity()));
+        this.products.values().forEach(product -> aggregates.lineAdded(product.getAsRecord()));
     }
 
     @Override
@@ -77,6 +83,9 @@ public class DummyStoreBasket implements IStoreBasket{
         }
         else {
             products.put(product.productId(), new DummyBaskedProduct(product));
+            changedProducts.add(product.productId());
+            version.incrementAndGet();
+            aggregates.lineAdded(product);
             basketRegularPrice.addAndGet(product.productPrice() * product.quantity());
             basketDiscountPrice.addAndGet(product.priceAfterDiscount() * product.quantity());
         }
@@ -88,6 +97,11 @@ public class DummyStoreBasket implements IStoreBasket{
             IBaskedProduct product = products.get(newState.productId());
             ProductRecord oldState = product.getAsRecord();
             product.update(newState);
+            aggregates.lineUpdated(oldState, newState);
+            if (oldState.quantity() != newState.quantity()) {
+                changedProducts.add(newState.productId());
+                version.incrementAndGet();
+            }
 
             double priceDif = (newState.productPrice() * newState.quantity()) - (oldState.productPrice() * oldState.quantity());
             double priceDiscountDif = newState.priceAfterDiscount() * newState.quantity() - oldState.priceAfterDiscount() * oldState.quantity();
@@ -102,6 +116,9 @@ public class DummyStoreBasket implements IStoreBasket{
             throw new NonExistentData("can't remove the product because he is not in the store basket!", ErrorStatus.PRODUCT_DOES_NOT_EXIST);
 
         ProductRecord oldRecord = products.remove(productId).getAsRecord();
+        changedProducts.add(productId);
+        version.incrementAndGet();
+        aggregates.lineRemoved(oldRecord);
         basketRegularPrice.addAndGet(-oldRecord.productPrice() * oldRecord.quantity());
         basketDiscountPrice.addAndGet(-oldRecord.priceAfterDiscount() * oldRecord.quantity());
     }
@@ -119,6 +136,23 @@ public class DummyStoreBasket implements IStoreBasket{
         return new DummyStoreBasket(this);
     }
 
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public Set<Integer> takeChangedProducts() {
+        Set<Integer> changed = new HashSet<>(changedProducts);
+        changedProducts.removeAll(changed);
+        return changed;
+    }
+
+    @Override
+    public BasketAggregates getAggregates() {
+        return aggregates;
+    }
+
     @Override
     public boolean isProductExists(int productId) {
         return products.containsKey(productId);
@@ -142,6 +176,7 @@ public class DummyStoreBasket implements IStoreBasket{
     @Override
     public void setUserAge(LocalDate userAge) {
         this.userAge = userAge;
+        version.incrementAndGet();
     }
 
     @Override
@@ -5,6 +5,7 @@ import util.Records.StoreRecords.ProductRecord;
 
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.Set;
 
 public interface IStoreBasket {
 
@@ -85,6 +86,30 @@ public interface IStoreBasket {
 
   IStoreBasket clone();
 
+  /**
+   * Returns the version of the basket contents, which changes whenever a line is added, removed or changes quantity,
+   * or the user age changes. Repricing the lines does not change it.
+   *
+   * @return the basket version
+   */
+  long getVersion();
+
+  /**
+   * Returns the IDs of the products whose lines were added, removed or changed quantity since the last call,
+   * and starts tracking again. A change is tracked before it changes the version, so the IDs taken after
+   * reading the version include every change that version counts.
+   *
+   * @return the IDs of the changed products
+   */
+  Set<Integer> takeChangedProducts();
+
+  /**
+   * Returns the quantities of the basket by product and by category, kept up to date on every line change.
+   *
+   * @return the basket aggregates
+   */
+  BasketAggregates getAggregates();
+
   LocalDate getUserAge();
 
   void setUserAge(LocalDate userAge);
@@ -7,6 +7,7 @@ import Domain.Store.Offer;
 import util.Exceptions.*;
 import util.Records.AddressRecord;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.UserRecords.MemberPage;
 import util.Records.UserRecords.UserRecord;
 
 import java.time.LocalDateTime;
@@ -349,4 +350,15 @@ public interface IUserController {
   Set<String> getLoggedUsers(String session) throws PermissionError;
 
   Set<String> getDisconnectedUsers(String session) throws PermissionError;
+
+  /**
+   * Lists a page of the members of the market, ordered by username, with whether they are logged in.
+   *
+   * @param session  session of a system manager
+   * @param cursor   cursor of the previous page, null for the first page
+   * @param pageSize maximal number of members in the page
+   * @throws PermissionError if the session isn't of a system manager
+   * @throws DataError       if the page size isn't positive
+   */
+  MemberPage getMemberSummaries(String session, String cursor, int pageSize) throws PermissionError, DataError;
 }
\ No newline at end of file
@@ -14,6 +14,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class StoreBasket implements IStoreBasket {
@@ -22,6 +23,9 @@ public class StoreBasket implements IStoreBasket {
   private AtomicDouble basketRegularPrice = new AtomicDouble(0);
   private AtomicDouble basketDiscountPrice = new AtomicDouble(0);
   private LocalDate userAge;
+  private final AtomicLong version = new AtomicLong(0);
+  private final Set<Integer> changedProducts = ConcurrentHashMap.newKeySet(); // <product ID> since last takeChangedProducts
+  private final BasketAggregates aggregates = new BasketAggregates();
 
   private DataBasket dataBasket;
 
@@ -42,6 +46,7 @@ public class StoreBasket implements IStoreBasket {
     for (Map.Entry<Integer, DataBaskedProduct> entry : dataBasket.getProducts().entrySet()){
       IBaskedProduct baskedProduct = new BaskedProduct(entry.getValue());
       products.put(entry.getKey(), baskedProduct);
+      aggregates.lineAdded(baskedProduct.getAsRecord());
       basketRegularPrice.addAndGet(baskedProduct.getPrice() * baskedProduct.getQuantity());
       basketDiscountPrice.addAndGet(baskedProduct.getPriceAfterDiscount() * baskedProduct.getQuantity());
     }
@@ -74,6 +79,9 @@ public class StoreBasket implements IStoreBasket {
     }
     else {
       products.put(product.productId(), new BaskedProduct(dataBasket, product));
+      changedProducts.add(product.productId());
+      version.incrementAndGet();
+      aggregates.lineAdded(product);
       basketRegularPrice.addAndGet(product.productPrice() * product.quantity());
       basketDiscountPrice.addAndGet(product.priceAfterDiscount() * product.quantity());
     }
@@ -85,6 +93,11 @@ public class StoreBasket implements IStoreBasket {
       IBaskedProduct product = products.get(newState.productId());
       ProductRecord oldState = product.getAsRecord();
       product.update(newState);
+      aggregates.lineUpdated(oldState, newState);
+      if (oldState.quantity() != newState.quantity()) {
+        changedProducts.add(newState.productId());
+        version.incrementAndGet();
+      }
 
       double priceDif = (newState.productPrice() * newState.quantity()) - (oldState.productPrice() * oldState.quantity());
       double priceDiscountDif = newState.priceAfterDiscount() * newState.quantity() - oldState.priceAfterDiscount() * oldState.quantity();
@@ -103,6 +116,9 @@ public class StoreBasket implements IStoreBasket {
     basketRegularPrice.addAndGet(-oldRecord.productPrice() * oldRecord.quantity());
     basketDiscountPrice.addAndGet(-oldRecord.priceAfterDiscount() * oldRecord.quantity());
     products.remove(productId);
+    changedProducts.add(productId);
+    version.incrementAndGet();
+    aggregates.lineRemoved(oldRecord);
     product.remove();
   }
 
@@ -119,6 +135,23 @@ public class StoreBasket implements IStoreBasket {
     return new DummyStoreBasket(this);
   }
 
+  @Override
+  public long getVersion() {
+    return version.get();
+  }
+
+  @Override
+  public Set<Integer> takeChangedProducts() {
+    Set<Integer> changed = new HashSet<>(changedProducts);
+    changedProducts.removeAll(changed);
+    return changed;
+  }
+
+  @Override
+  public BasketAggregates getAggregates() {
+    return aggregates;
+  }
+
   @Override
   public boolean isProductExists(int productId) {
     return products.containsKey(productId);
@@ -142,6 +175,7 @@ public class StoreBasket implements IStoreBasket {
   @Override
   public void setUserAge(LocalDate userAge) {
     this.userAge = userAge;
+    version.incrementAndGet();
   }
 
   @Override
@@ -14,6 +14,7 @@ import util.Enums.ErrorStatus;
 import util.Exceptions.*;
 import util.Records.AddressRecord;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.UserRecords.MemberPage;
 import util.Records.UserRecords.UserRecord;
 
 import java.security.NoSuchAlgorithmException;
@@ -24,6 +25,8 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 public class UserController implements IUserController {
+  private static final int MAX_PAGE_SIZE = 100;
+
   private final ISystemManagerRepo systemManagerRepo;
   private final IUserRepo userRepo;
   private final ISessionRepo sessionRepo;
@@ -477,6 +480,15 @@ public class UserController implements IUserController {
         return sessionRepo.getAllLoggedMembers();
     }
 
+    @Override
+    public MemberPage getMemberSummaries(String session, String cursor, int pageSize) throws PermissionError, DataError {
+        if (!isSystemManagerSession(session))
+            throw new PermissionError("session isn't a system manager", ErrorStatus.NO_MANAGER_PERMISSION);
+        if (pageSize <= 0)
+            throw new DataError("Page size must be positive", ErrorStatus.INVALID_PAGE_REQUEST);
+        return userRepo.getMemberSummaries(cursor, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+
     @Override
     public Set<String> getDisconnectedUsers(String session) throws PermissionError {
         if (!isSystemManagerSession(session))
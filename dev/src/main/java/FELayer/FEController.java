@@ -6,6 +6,7 @@ import Domain.Store.Discount.DiscountTypes.Composite.*;
 import Domain.Store.Discount.DiscountTypes.Simple.CategoryDiscount;
 import Domain.Store.Discount.DiscountTypes.Simple.ProductDiscount;
 import Domain.Store.Discount.DiscountTypes.Simple.StoreDiscount;
+import Domain.Store.AutocompleteIndex;
 import Domain.Store.Offer;
 import Domain.Store.OwnerAppointmentContract;
 import Domain.Store.Purchase.*;
@@ -21,17 +22,22 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.stereotype.Controller;
+import util.Enums.ErrorStatus;
 import util.Enums.PermissionType;
 import util.Records.AddressRecord;
 import util.Records.PaymentDetails;
+import util.Records.StoreRecords.AutocompleteSuggestion;
 import util.Records.StoreRecords.ProductFilterAttributes;
 import util.Records.StoreRecords.ProductRecord;
 import util.Records.StoreRecords.StoreRecord;
+import util.Records.UserRecords.MemberPage;
 import util.Records.UserRecords.UserRecord;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
@@ -43,6 +49,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class FEController {
     @Autowired
     private SystemFacade apiService;
+    private static final int MEMBERS_PAGE_SIZE = 50;
     private static final Map<String, NotificationObserver> observers = new ConcurrentHashMap<>(); // <session_id, observer for that session>
 
     private void initNavigationBar(Model model, String sessionId) {
@@ -86,9 +93,10 @@ public class FEController {
     }
 
     @GetMapping("/marketManager")
-    public String showMarketManagerPage(HttpSession session, HttpServletResponse response, Model model, HttpServletRequest request) {
+    public String showMarketManagerPage(@RequestParam(name = "membersCursor", required = false) String membersCursor,
+                                        HttpSession session, HttpServletResponse response, Model model, HttpServletRequest request) {
         String sessionId = getSessionId(session, response, request);
-        return buildMarketManagerPage(sessionId, model);
+        return buildMarketManagerPage(sessionId, membersCursor, model);
     }
 
     private String getSessionId(HttpSession session, HttpServletResponse response, HttpServletRequest request) {
@@ -120,7 +128,7 @@ public class FEController {
     public String showHomePage(Model model, HttpSession session, HttpServletResponse response, HttpServletRequest request) {
         String sessionId = getSessionId(session, response, request);
         if(isManagerSession(sessionId))
-            return showMarketManagerPage(session, response, model, request);
+            return showMarketManagerPage(null, session, response, model, request);
         Result<Set<StoreRecord>> storesResult = apiService.getStores();
         if(storesResult.errorOccured()) {
             return showForbiddenPage();
@@ -202,6 +210,7 @@ public class FEController {
         if(transactionHistoryResult.errorOccured())
             return showForbiddenPage();
         model.addAttribute("transactionsHistory", transactionHistoryResult.getValue());
+        model.addAttribute("exportLink", "/exportTransactions");
         initNavigationBar(model, sessionId);
         return "PurchaseHistory";
     }
@@ -226,10 +235,39 @@ public class FEController {
         if(transactionHistoryResult.errorOccured())
             return showForbiddenPage();
         model.addAttribute("transactionsHistory", transactionHistoryResult.getValue());
+        model.addAttribute("exportLink", "/exportTransactions?storeId=" + storeId);
         initNavigationBar(model, sessionId);
         return "PurchaseHistory";
     }
 
+    @GetMapping("/exportTransactions")
+    public void exportTransactions(@RequestParam(name = "storeId", required = false) Integer storeId,
+                                   @RequestParam(name = "format", defaultValue = "csv") String format,
+                                   @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                   @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                   HttpSession session, HttpServletResponse response, HttpServletRequest request) throws IOException {
+        String sessionId = getSessionId(session, response, request);
+        TransactionExportWriter.Format exportFormat;
+        try {
+            exportFormat = TransactionExportWriter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown export format: " + format);
+            return;
+        }
+        TransactionExportWriter writer = new TransactionExportWriter(response, exportFormat,
+                storeId == null ? "transactions" : "store-" + storeId + "-transactions");
+        Result exportResult = storeId == null
+                ? apiService.exportTransactions(sessionId, from, to, writer)
+                : apiService.exportStoreTransactions(sessionId, storeId, from, to, writer);
+        if (exportResult.errorOccured()) {
+            if (!response.isCommitted())
+                response.sendError(ErrorStatus.DATA_ERROR_STATUSES.contains(exportResult.getStatus())
+                        ? HttpServletResponse.SC_BAD_REQUEST : HttpServletResponse.SC_FORBIDDEN, exportResult.getErrorMessage());
+            return;
+        }
+        writer.finish();
+    }
+
     @GetMapping("/profile")
     public String showProfilePage(HttpSession session, HttpServletResponse response, Model model, HttpServletRequest request) {
         String sessionId = getSessionId(session, response, request);
@@ -271,7 +309,7 @@ public class FEController {
     public String showContactUsPage(Model model, HttpSession session, HttpServletResponse response, HttpServletRequest request) {
         String sessionId = getSessionId(session, response, request);
         if(isManagerSession(sessionId))
-            return showMarketManagerPage(session, response, model, request);
+            return showMarketManagerPage(null, session, response, model, request);
         initNavigationBar(model, sessionId);
         return "contactus";
     }
@@ -279,7 +317,7 @@ public class FEController {
     public String showAboutPage(Model model, HttpSession session, HttpServletResponse response, HttpServletRequest request) {
         String sessionId = getSessionId(session, response, request);
         if(isManagerSession(sessionId))
-            return showMarketManagerPage(session, response, model, request);
+            return showMarketManagerPage(null, session, response, model, request);
         initNavigationBar(model, sessionId);
         return "about";
     }
@@ -297,24 +335,36 @@ public class FEController {
             @RequestParam(name = "minStoreRate", required = false) Double minStoreRate,
             @RequestParam(name = "maxStoreRate", required = false) Double maxStoreRate,
             @RequestParam(name = "minProductRate", required = false) Double minProductRate,
-            @RequestParam(name = "maxProductRate", required = false) Double maxProductRate
+            @RequestParam(name = "maxProductRate", required = false) Double maxProductRate,
+            @RequestParam(name = "nameMatch", required = false, defaultValue = "SUBSTRING") ProductFilterAttributes.NameMatch nameMatch
     ) {
         String sessionId = getSessionId(session, response, request);
         if(isManagerSession(sessionId))
-            return showMarketManagerPage(session, response, model, request);
+            return showMarketManagerPage(null, session, response, model, request);
         initNavigationBar(model, sessionId);
         List<Category> categories = new ArrayList<>();
         if(productCategories!=null)
             for(String productCategoryStr : productCategories) {
                 categories.add(Category.valueOf(productCategoryStr));
             }
-        ProductFilterAttributes productFilterAttributes = new ProductFilterAttributes(null, storeName, searchKey, minStoreRate, maxStoreRate, categories, minProductRate, maxProductRate, minPrice, maxPrice);
+        ProductFilterAttributes productFilterAttributes = new ProductFilterAttributes(null, storeName, searchKey, minStoreRate, maxStoreRate, categories, minProductRate, maxProductRate, minPrice, maxPrice,
+                nameMatch);
         Result<List<ProductRecord>> filteredProducts = apiService.getProductsBy(sessionId, productFilterAttributes);
         if(filteredProducts.isOk()) {
             model.addAttribute("products", filteredProducts.getValue());
         }
         return "search";
     }
+    @GetMapping("/autocomplete")
+    @ResponseBody
+    public List<AutocompleteSuggestion> autocomplete(
+            @RequestParam(name = "prefix") String prefix,
+            @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        Result<List<AutocompleteSuggestion>> suggestions = apiService.autocomplete(prefix, limit == null ? AutocompleteIndex.TOP_N : limit);
+        return suggestions.isOk() ? suggestions.getValue() : List.of();
+    }
+
     @GetMapping("/cart")
     public String showCartPage(Model model, HttpSession session, HttpServletResponse response, HttpServletRequest request) {
         String sessionId = getSessionId(session, response, request);
@@ -399,7 +449,7 @@ public class FEController {
         }
         else
             model.addAttribute("successMessage", "system manager added successfully!");
-        return showMarketManagerPage(session, response, model, request);
+        return showMarketManagerPage(null, session, response, model, request);
     }
 
     @PostMapping("/makeOffer")
@@ -1297,13 +1347,21 @@ public class FEController {
     }
 
     private String buildMarketManagerPage(String sessionId, Model model) {
+        return buildMarketManagerPage(sessionId, null, model);
+    }
+
+    private String buildMarketManagerPage(String sessionId, String membersCursor, Model model) {
         initNavigationBar(model, sessionId);
         Result<Set<StoreRecord>> storesResult = apiService.getStores();
         Result<Integer> conntectedMembersResult = apiService.getAmountOfConnectedMembers(sessionId);
         Result<Integer> conntectedGuestsResult = apiService.getAmountOfConnectedGuests(sessionId);
-        if(storesResult.errorOccured() || conntectedMembersResult.errorOccured() || conntectedGuestsResult.errorOccured()) {
+        Result<MemberPage> membersResult = apiService.getMemberSummaries(sessionId, membersCursor, MEMBERS_PAGE_SIZE);
+        if(storesResult.errorOccured() || conntectedMembersResult.errorOccured() || conntectedGuestsResult.errorOccured()
+                || membersResult.errorOccured()) {
             return showForbiddenPage();
         }
+        model.addAttribute("memberSummaries", membersResult.getValue().members());
+        model.addAttribute("membersNextCursor", membersResult.getValue().nextCursor());
         model.addAttribute("storeRecords", storesResult.getValue());
         model.addAttribute("membersAmount", conntectedMembersResult.getValue());
         model.addAttribute("guestsAmount", conntectedGuestsResult.getValue());
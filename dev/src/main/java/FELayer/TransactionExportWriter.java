@@ -0,0 +1,136 @@
+package FELayer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import util.Records.StoreRecords.ProductRecord;
+import util.Records.Transaction;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Writes exported transactions to the response as they arrive, as one CSV row per purchased product or one NDJSON
+ * line per transaction. The response is started on the first transaction, so an export that fails before it can
+ * still answer with an error status.
+ */
+public class TransactionExportWriter implements Consumer<Transaction> {
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "transaction_id,store_id,user_name,time,transaction_price,"
+            + "product_id,product_name,category,quantity,unit_price,price_after_discount";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServletResponse response;
+    private final Format format;
+    private final String fileName;
+    private PrintWriter writer = null;
+
+    public TransactionExportWriter(HttpServletResponse response, Format format, String fileName) {
+        this.response = response;
+        this.format = format;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public void accept(Transaction transaction) {
+        PrintWriter out = start();
+        if (format == Format.CSV)
+            writeCsv(out, transaction);
+        else
+            writeJson(out, transaction);
+        if (out.checkError())
+            throw new UncheckedIOException(new IOException("Failed writing the export, the client may have disconnected"));
+    }
+
+    /**
+     * Starts the response if no transaction was exported, and flushes it.
+     */
+    public void finish() {
+        start().flush();
+    }
+
+    private PrintWriter start() {
+        if (writer == null) {
+            response.setContentType(format.contentType);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader("Content-Disposition", String.format("attachment; filename=\"%s.%s\"", fileName, format.extension));
+            try {
+                writer = response.getWriter();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (format == Format.CSV)
+                writer.println(CSV_HEADER);
+        }
+        return writer;
+    }
+
+    private static void writeCsv(PrintWriter out, Transaction transaction) {
+        String prefix = String.join(",", String.valueOf(transaction.id()), String.valueOf(transaction.storeId()),
+                csv(transaction.userName()), csv(String.valueOf(transaction.timeStamp())), String.valueOf(transaction.price()));
+        Collection<ProductRecord> products = transaction.storeBasket().getProductsAsRecords().values();
+        if (products.isEmpty()) {
+            out.println(prefix + ",,,,,,");
+            return;
+        }
+        for (ProductRecord product : products)
+            out.println(String.join(",", prefix, String.valueOf(product.productId()), csv(product.productName()),
+                    csv(String.valueOf(product.productCategory())), String.valueOf(product.quantity()),
+                    String.valueOf(product.productPrice()), String.valueOf(product.priceAfterDiscount())));
+    }
+
+    private static void writeJson(PrintWriter out, Transaction transaction) {
+        List<Map<String, Object>> products = new ArrayList<>();
+        for (ProductRecord product : transaction.storeBasket().getProductsAsRecords().values()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("productId", product.productId());
+            line.put("productName", product.productName());
+            line.put("category", product.productCategory());
+            line.put("quantity", product.quantity());
+            line.put("unitPrice", product.productPrice());
+            line.put("priceAfterDiscount", product.priceAfterDiscount());
+            products.add(line);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", transaction.id());
+        json.put("storeId", transaction.storeId());
+        json.put("userName", transaction.userName());
+        json.put("time", String.valueOf(transaction.timeStamp()));
+        json.put("price", transaction.price());
+        json.put("products", products);
+        try {
+            out.println(MAPPER.writeValueAsString(json));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // quotes the value if it holds a separator, a quote or a line break
+    private static String csv(String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
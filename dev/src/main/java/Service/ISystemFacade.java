@@ -11,19 +11,26 @@ import util.Exceptions.SessionError;
 import util.Records.Transaction;
 import Domain.Store.Discount.IDiscount;
 import Domain.Store.Offer;
+import Domain.Store.ProductSortKey;
 import Domain.Store.Purchase.PurchaseRule;
 import util.Enums.RoleType;
 import util.Records.AddressRecord;
 import util.Records.PaymentDetails;
+import util.Records.StoreRecords.AutocompleteSuggestion;
 import util.Records.StoreRecords.ProductFilterAttributes;
+import util.Records.StoreRecords.ProductPage;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.StoreRecords.StoreRecord;
+import util.Records.UserRecords.MemberPage;
 import util.Records.UserRecords.UserRecord;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * API for system facade - should service all use-cases
@@ -133,6 +140,29 @@ public interface ISystemFacade {
     //todo to return list of products info
     Result<List<ProductRecord>> getProductsBy(String sessId, ProductFilterAttributes filters);
 
+    /**
+     * Returns the best rated product and store names with a word starting with the given prefix
+     *
+     * @param prefix prefix typed in the search box.
+     * @param limit  maximal number of suggestions.
+     * @return Suggestions, best rated first.
+     */
+    Result<List<AutocompleteSuggestion>> autocomplete(String prefix, int limit);
+
+    /**
+     * Returns one page of the products which match given filters
+     *
+     * @param sessId   session ID performing the request.
+     * @param filters  attributes to filter the wanted products by.
+     * @param sortKey  order of the pages.
+     * @param pageSize maximal number of products in the page.
+     * @param cursor   cursor of the previous page, null for the first page.
+     * @return The page and the cursor of the next page.
+     * @implNote Possible expected failure codes:
+     * <br>INVALID_PAGE_REQUEST
+     */
+    Result<ProductPage> getProductsPage(String sessId, ProductFilterAttributes filters, ProductSortKey sortKey, int pageSize, String cursor);
+
     /**
      * Information of given product
      *
@@ -472,6 +502,65 @@ public interface ISystemFacade {
      */
     Result<List<Transaction>> getStoreTransactionHistory(String sessId, int storeId, LocalDateTime startDateTime, LocalDateTime endDateTime);
 
+    /**
+     * Passes the store's transactions between dates to the consumer one by one, ordered by time,
+     * without collecting them.
+     *
+     * @param sessId        session ID performing the request - needs the purchase history permission of the store.
+     * @param storeId       store to export.
+     * @param startDateTime start of the range, or null.
+     * @param endDateTime   end of the range, or null.
+     * @param consumer      receives the transactions.
+     * @implNote Possible expected failure codes:
+     * <br>STORE_DOES_NOT_EXIST
+     * <br>NO_PERMISSION
+     * <br>INVALID_DATE_RANGE
+     */
+    Result exportStoreTransactions(String sessId, int storeId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                   Consumer<Transaction> consumer);
+
+    /**
+     * Passes all the transactions between dates to the consumer one by one, ordered by time,
+     * without collecting them.
+     *
+     * @param sessId        session ID performing the request - system manager.
+     * @param startDateTime start of the range, or null.
+     * @param endDateTime   end of the range, or null.
+     * @param consumer      receives the transactions.
+     * @implNote Possible expected failure codes:
+     * <br>NO_MANAGER_PERMISSION
+     * <br>INVALID_DATE_RANGE
+     */
+    Result exportTransactions(String sessId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                              Consumer<Transaction> consumer);
+
+    /**
+     * Returns the store's sales between days from counters kept up to date with every purchase:
+     * revenue, orders and units per day and in total, and the best selling products.
+     *
+     * @param sessId      session ID performing the request - needs the purchase history permission of the store.
+     * @param storeId     store to report.
+     * @param from        first day of the report, or null.
+     * @param to          last day of the report, or null.
+     * @param bestSellers number of best selling products to report.
+     * @implNote Possible expected failure codes:
+     * <br>STORE_DOES_NOT_EXIST
+     * <br>NO_PERMISSION
+     */
+    Result<SalesReport> getStoreSales(String sessId, int storeId, LocalDate from, LocalDate to, int bestSellers);
+
+    /**
+     * Like getStoreSales, over the sales of all the stores.
+     *
+     * @param sessId      session ID performing the request - system manager.
+     * @param from        first day of the report, or null.
+     * @param to          last day of the report, or null.
+     * @param bestSellers number of best selling products to report.
+     * @implNote Possible expected failure codes:
+     * <br>NO_MANAGER_PERMISSION
+     */
+    Result<SalesReport> getMarketSales(String sessId, LocalDate from, LocalDate to, int bestSellers);
+
     /// Logged-User Actions - System-Admin
 
     /**
@@ -568,6 +657,19 @@ public interface ISystemFacade {
 
     Result<Set<String>> getDisconnectedUsers(String session);
 
+    /**
+     * Lists a page of the members of the market, ordered by username, with whether they are logged in.
+     *
+     * @param session  session ID of a system manager.
+     * @param cursor   cursor of the previous page, null for the first page.
+     * @param pageSize maximal number of members in the page.
+     * @return The page and the cursor of the next page.
+     * @implNote Possible expected failure codes:
+     * <br>NO_MANAGER_PERMISSION
+     * <br>INVALID_PAGE_REQUEST
+     */
+    Result<MemberPage> getMemberSummaries(String session, String cursor, int pageSize);
+
     Result<Set<PermissionType>> getUserPermissionsTypes(String session, String userName,Integer storeID);
 
     //****************************************************************** Contracts
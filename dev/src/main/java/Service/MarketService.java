@@ -1,8 +1,10 @@
 package Service;
 
 import Domain.IMarket;
+import util.Exceptions.PermissionError;
 import util.Exceptions.SessionError;
 import util.Records.PaymentDetails;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.Transaction;
 import Domain.Services.PaymentService.IPaymentService;
 import Domain.User.IUser;
@@ -11,8 +13,10 @@ import util.Enums.ErrorStatus;
 import util.Exceptions.MarketException;
 import util.Records.AddressRecord;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class MarketService {
 
@@ -101,6 +105,33 @@ public class MarketService {
     }
   }
 
+  /**
+   * @implNote Possible expected failure codes:
+   * <br>NO_MANAGER_PERMISSION
+   * <br>INVALID_DATE_RANGE
+   */
+  public Result exportTransactions(String sessionId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                   Consumer<Transaction> consumer) {
+    if (!userController.isSystemManagerSession(sessionId))
+      return Result.makeBad(new PermissionError("session isn't a system manager", ErrorStatus.NO_MANAGER_PERMISSION));
+    try {
+      controller.exportTransactions(startDateTime, endDateTime, consumer);
+    } catch (MarketException e) {
+      return Result.makeBad(e);
+    }
+    return Result.makeGood();
+  }
+
+  /**
+   * @implNote Possible expected failure codes:
+   * <br>NO_MANAGER_PERMISSION
+   */
+  public Result<SalesReport> getMarketSales(String sessionId, LocalDate from, LocalDate to, int bestSellers) {
+    if (!userController.isSystemManagerSession(sessionId))
+      return Result.makeBad(new PermissionError("session isn't a system manager", ErrorStatus.NO_MANAGER_PERMISSION));
+    return Result.makeGood(controller.getMarketSales(from, to, bestSellers));
+  }
+
   public Result updatePaymentService(IPaymentService paymentService) {
     try {
       controller.updatePaymentService(paymentService);
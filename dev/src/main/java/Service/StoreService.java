@@ -6,16 +6,24 @@ import util.Exceptions.PurchaseLimitation;
 import Domain.Store.IProduct;
 import Domain.Store.IStoreController;
 import Domain.Store.Offer;
+import Domain.Store.ProductSortKey;
 import Domain.Store.Purchase.PurchaseRule;
 import util.Enums.ErrorStatus;
 import util.Enums.PermissionType;
 import util.Enums.RoleType;
 import util.Exceptions.*;
+import util.Records.StoreRecords.AutocompleteSuggestion;
 import util.Records.StoreRecords.ProductFilterAttributes;
+import util.Records.StoreRecords.ProductPage;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.StoreRecords.StoreRecord;
+import util.Records.Transaction;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class StoreService {
@@ -42,6 +50,22 @@ public class StoreService {
         return Result.makeGood(controller.getFilteredProducts(filters).stream().map(ProductRecord::new).collect(Collectors.toList()));
     }
 
+    public Result<List<AutocompleteSuggestion>> autocomplete(String prefix, int limit) {
+        return Result.makeGood(controller.autocomplete(prefix, limit));
+    }
+
+    /**
+     * @implNote Possible expected failure codes:
+     * <br>INVALID_PAGE_REQUEST
+     */
+    public Result<ProductPage> getProductsPage(ProductFilterAttributes filters, ProductSortKey sortKey, int pageSize, String cursor) {
+        try {
+            return Result.makeGood(controller.getFilteredProductsPage(filters, sortKey, pageSize, cursor));
+        } catch (DataError e) {
+            return Result.makeBad(e);
+        }
+    }
+
     /**
      * @implNote Possible expected failure codes:
      * <br>STORE_DOES_NOT_EXIST
@@ -441,6 +465,30 @@ public class StoreService {
         return Result.makeGood();
     }
 
+    /**
+     * @implNote Possible expected failure codes:
+     * <br>STORE_DOES_NOT_EXIST
+     * <br>NO_PERMISSION
+     * <br>INVALID_DATE_RANGE
+     */
+    public Result exportStoreTransactions(String session, int storeId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                          Consumer<Transaction> consumer) {
+        try {
+            controller.exportStoreTransactions(session, storeId, startDateTime, endDateTime, consumer);
+        } catch (MarketException e) {
+            return Result.makeBad(e);
+        }
+        return Result.makeGood();
+    }
+
+    public Result<SalesReport> getStoreSales(String session, int storeId, LocalDate from, LocalDate to, int bestSellers) {
+        try {
+            return Result.makeGood(controller.getStoreSales(session, storeId, from, to, bestSellers));
+        } catch (MarketException e) {
+            return Result.makeBad(e);
+        }
+    }
+
     public Result addDiscount(String session, int storeId, IDiscount discount) {
         try {
             controller.addDiscount(session, storeId, discount);
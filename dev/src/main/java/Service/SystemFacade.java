@@ -1,12 +1,14 @@
 package Service;
 
 import DataLayer.DbConfig;
+import DataLayer.UnitOfWork;
 import DataLayer.User.*;
 import Domain.*;
 import Domain.Services.NotificationService.NotificationObserver;
 import Domain.Services.SupplyService.SupplyServiceProxy;
 import util.ConfigReader;
 import Domain.Store.*;
+import util.Enums.ErrorStatus;
 import util.Enums.PermissionType;
 import util.Exceptions.DataExistentError;
 import util.Exceptions.NonExistentData;
@@ -21,20 +23,28 @@ import Domain.Store.Purchase.PurchaseRule;
 import Domain.User.IUserController;
 import Domain.User.UserController;
 import org.checkerframework.org.apache.commons.lang3.NotImplementedException;
+import jakarta.persistence.PersistenceException;
 import org.springframework.stereotype.Service;
 import util.CreateDataForTest;
 import util.Enums.RoleType;
 import util.Records.AddressRecord;
 import util.Records.PaymentDetails;
+import util.Records.StoreRecords.AutocompleteSuggestion;
 import util.Records.StoreRecords.ProductFilterAttributes;
+import util.Records.StoreRecords.ProductPage;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.StoreRecords.StoreRecord;
+import util.Records.UserRecords.MemberPage;
 import util.Records.UserRecords.UserRecord;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class SystemFacade implements ISystemFacade{
@@ -64,34 +74,42 @@ public class SystemFacade implements ISystemFacade{
         storeService = new StoreService(storeController);
         marketService = new MarketService(market, userController);
         ConfigReader.ReadConfig(this);
+        if (DbConfig.shouldPersist())
+            storeController.warmUpCatalog();
         CreateDataForTest.createData(this);
     }
     public Result updatePaymentServiceURL(String url) {
-        return marketService.updatePaymentServiceURL(url);
+        return inUnitOfWork(() -> marketService.updatePaymentServiceURL(url));
     }
 
     @Override
     public Result<Set<String>> getUsers(String session) {
         logEntry("getUsers", String.format("[sessionID=%s]", session));
-        return userService.getUsers(session);
+        return inUnitOfWork(() -> userService.getUsers(session));
     }
 
     @Override
     public Result<Set<String>> getLoggedUsers(String session) {
         logEntry("getLoggedUsers", String.format("[sessionID=%s]", session));
-        return userService.getLoggedUsers(session);
+        return inUnitOfWork(() -> userService.getLoggedUsers(session));
     }
 
     @Override
     public Result<Set<String>> getDisconnectedUsers(String session) {
         logEntry("getDisconnectedUsers", String.format("[sessionID=%s]", session));
-        return userService.getDisconnectedUsers(session);
+        return inUnitOfWork(() -> userService.getDisconnectedUsers(session));
+    }
+
+    @Override
+    public Result<MemberPage> getMemberSummaries(String session, String cursor, int pageSize) {
+        logEntry("getMemberSummaries", String.format("[sessionID=%s, cursor=%s, pageSize=%d]", session, cursor, pageSize));
+        return inUnitOfWork(() -> userService.getMemberSummaries(session, cursor, pageSize));
     }
 
     @Override
     public Result<Set<PermissionType>> getUserPermissionsTypes(String session, String userName,Integer storeID) {
         logEntry("getPermissions", String.format("[sessionID=%s]", session));
-        return storeService.getUserPermissionsTypes(session, userName, storeID);
+        return inUnitOfWork(() -> storeService.getUserPermissionsTypes(session, userName, storeID));
     }
 
     private static void initMarket(IMarket market, IUserController userController, NotificationService notificationService, IStoreController storeController) {
@@ -104,17 +122,17 @@ public class SystemFacade implements ISystemFacade{
 
     @Override
     public Result updatePaymentService(IPaymentService paymentService) {
-        return marketService.updatePaymentService(paymentService);
+        return inUnitOfWork(() -> marketService.updatePaymentService(paymentService));
     }
 
     @Override
     public Result getAllPendingMessages(String sessionId) {
-        return userService.getAllPendingMessages(sessionId);
+        return inUnitOfWork(() -> userService.getAllPendingMessages(sessionId));
     }
 
     @Override
     public Result connect(String sessionId) {
-        return userService.connect(sessionId);
+        return inUnitOfWork(() -> userService.connect(sessionId));
     }
 
     @Override
@@ -124,7 +142,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result terminate(String sessId) {
         logEntry("terminate", String.format("[sessionID=%s]", sessId));
-            return userService.terminate(sessId);
+            return inUnitOfWork(() -> userService.terminate(sessId));
     }
 
     @Override
@@ -139,7 +157,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result register(String sessId, UserRecord userDetails, String pass) {
         logEntry("register", String.format("[sessionID=%s, %s]", sessId, userDetails));
-        return userService.register(sessId, userDetails, pass);
+        return inUnitOfWork(() -> userService.register(sessId, userDetails, pass));
     }
 
     @Override
@@ -151,19 +169,19 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result login(String sessId, String uname, String pass) {
         logEntry("login", String.format("[sessionID=%s, username=%s]", sessId, uname));
-            return userService.login(sessId, uname, pass);
+            return inUnitOfWork(() -> userService.login(sessId, uname, pass));
     }
 
     @Override
     public Result subscribeToNotifications(String sessId, NotificationObserver observer) {
         logEntry("subscribeToNotifications", String.format("[sessionID=%s, observer=%s]", sessId, observer));
-        return userService.sub(sessId, observer);
+        return inUnitOfWork(() -> userService.sub(sessId, observer));
     }
 
     @Override
     public Result unsubscribeFromNotifications(String sessId, NotificationObserver observerToRemove) {
         logEntry("unsubscribeFromNotifications", String.format("[sessionID=%s, observer=%s]", sessId, observerToRemove));
-        return userService.unsub(sessId, observerToRemove);
+        return inUnitOfWork(() -> userService.unsub(sessId, observerToRemove));
     }
 
     @Override
@@ -179,14 +197,26 @@ public class SystemFacade implements ISystemFacade{
     public Result<StoreRecord> getStoreInfo(String sessId, int storeId) {
         logEntry("getStoreInfo", String.format("[sessionID=%s, storeID=%d]", sessId, storeId));
         //TODO: check session with sessId
-        return storeService.getStoreInfo(storeId);
+        return inUnitOfWork(() -> storeService.getStoreInfo(storeId));
     }
 
     @Override
     public Result<List<ProductRecord>> getProductsBy(String sessId, ProductFilterAttributes filters) {
         logEntry("getProductsBy", String.format("[sessionID=%s, %s]", sessId, filters));
         //TODO: check session with sessId
-        return storeService.getProductsBy(filters);
+        return inUnitOfWork(() -> storeService.getProductsBy(filters));
+    }
+
+    @Override
+    public Result<List<AutocompleteSuggestion>> autocomplete(String prefix, int limit) {
+        // called on every keystroke and answered from memory, so it is neither logged nor run in a unit of work
+        return storeService.autocomplete(prefix, limit);
+    }
+
+    @Override
+    public Result<ProductPage> getProductsPage(String sessId, ProductFilterAttributes filters, ProductSortKey sortKey, int pageSize, String cursor) {
+        logEntry("getProductsPage", String.format("[sessionID=%s, %s, sortKey=%s, pageSize=%d, cursor=%s]", sessId, filters, sortKey, pageSize, cursor));
+        return inUnitOfWork(() -> storeService.getProductsPage(filters, sortKey, pageSize, cursor));
     }
 
     @Override
@@ -198,7 +228,7 @@ public class SystemFacade implements ISystemFacade{
     public Result<ProductRecord> getProductInfo(String sessId, int productId, int storeId) {
         logEntry("getProductsInfo", String.format("[sessionID=%s, productID=%d, storeID=%d]", sessId, productId, storeId));
         //TODO: check session with sessId
-        return storeService.getProductInfo(sessId, productId, storeId);
+        return inUnitOfWork(() -> storeService.getProductInfo(sessId, productId, storeId));
     }
 
     @Override
@@ -210,12 +240,13 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result addProductToCart(String sessId, int productId, int storeId, int quantity) {
         logEntry("addProductToCart", String.format("[sessionID=%s, productID=%d, storeID=%d, quantity=%d]", sessId, productId, storeId, quantity));
-        Result<ProductRecord> res = storeService.getProductInfo(sessId, productId, storeId);
-        if(res.errorOccured())
-            return res;
-        ProductRecord product = res.getValue();
-        product = product.updateQuantity(quantity);
-        return userService.addProductToCart(sessId, product);
+        return inUnitOfWork(() -> {
+            Result<ProductRecord> res = storeService.getProductInfo(sessId, productId, storeId);
+            if(res.errorOccured())
+                return res;
+            ProductRecord product = res.getValue().updateQuantity(quantity);
+            return userService.addProductToCart(sessId, product);
+        });
     }
 
     @Override
@@ -225,7 +256,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result<Map<Integer, Map<Integer, ProductRecord>>> getCartContent(String sessId) {
         logEntry("getCartContent", String.format("[sessionID=%s]", sessId));
-        return userService.getCartContent(sessId);
+        return inUnitOfWork(() -> userService.getCartContent(sessId));
     }
 
     @Override
@@ -237,7 +268,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result removeProductFromCart(String sessId, int storeId, int productId, int quantity) {
         logEntry("removeProductFromCart", String.format("[sessionID=%s, storeID=%d, productID=%d]", sessId, storeId, productId));
-        return userService.removeProductFromCart(sessId, storeId, productId, quantity);
+        return inUnitOfWork(() -> userService.removeProductFromCart(sessId, storeId, productId, quantity));
     }
 
     @Override
@@ -247,7 +278,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result<Double> getCartPrice(String sessId) {
         logEntry("getCartPrice", String.format("[sessionID=%s]", sessId));
-        return userService.getCartPrice(sessId);
+        return inUnitOfWork(() -> userService.getCartPrice(sessId));
     }
 
     @Override
@@ -259,7 +290,7 @@ public class SystemFacade implements ISystemFacade{
     public Result pay(String sessId, PaymentDetails paymentDetails,
                       AddressRecord deliveryAddress) {
         logEntry("pay", String.format("[sessionID=%s]", sessId));
-        return marketService.pay(sessId, paymentDetails, deliveryAddress);
+        return inUnitOfWork(() -> marketService.pay(sessId, paymentDetails, deliveryAddress));
     }
 
     @Override
@@ -270,7 +301,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result logout(String sessId) {
         logEntry("logout", String.format("[sessionID=%s]", sessId));
-        return userService.logout(sessId);
+        return inUnitOfWork(() -> userService.logout(sessId));
     }
 
     @Override
@@ -281,7 +312,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result<Integer> openStore(String sessId, StoreRecord store) {
         logEntry("openStore", String.format("[sessionID=%s, %s]", sessId, store));
-        return storeService.openStore(sessId, store);
+        return inUnitOfWork(() -> storeService.openStore(sessId, store));
     }
 
     @Override
@@ -292,7 +323,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result updateStore(String sessId, StoreRecord updatedStore) {
         logEntry("updateStore", String.format("[sessionID=%s, %s]", sessId, updatedStore));
-        return storeService.updateStore(sessId, updatedStore);
+        return inUnitOfWork(() -> storeService.updateStore(sessId, updatedStore));
     }
 
     @Override
@@ -308,7 +339,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result<Integer> addNewProduct(String sessId, ProductRecord product) {
         logEntry("addNewProduct", String.format("[sessionID=%s, %s]", sessId, product));
-        return storeService.addNewProduct(sessId, product);
+        return inUnitOfWork(() -> storeService.addNewProduct(sessId, product));
     }
 
     @Override
@@ -321,7 +352,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result removeProduct(String sessId, int storeId, int productId) {
         logEntry("removeProduct", String.format("[sessionID=%s, storeID=%d, productID=%d]", sessId, storeId, productId));
-        return storeService.removeProduct(sessId, storeId, productId);
+        return inUnitOfWork(() -> storeService.removeProduct(sessId, storeId, productId));
     }
 
     @Override
@@ -337,7 +368,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result updateProduct(String sessId, ProductRecord updatedProduct) {
         logEntry("updateProduct", String.format("[sessionID=%s, %s]", sessId, updatedProduct));
-        return storeService.updateProduct(sessId, updatedProduct);
+        return inUnitOfWork(() -> storeService.updateProduct(sessId, updatedProduct));
     }
 
     @Override
@@ -351,7 +382,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result addProductQuantity(String sessId, int storeId, int productId, int quantity) {
         logEntry("addProductQuantity", String.format("[sessionID=%s, storeID=%d, productID=%d, quantity=%d]", sessId, storeId, productId, quantity));
-        return storeService.addProductQuantity(sessId, storeId, productId, quantity);
+        return inUnitOfWork(() -> storeService.addProductQuantity(sessId, storeId, productId, quantity));
     }
 
     @Override
@@ -365,7 +396,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result removeProductQuantity(String sessId, int storeId, int productId, int quantity){
         logEntry("removeProductQuantity", String.format("[sessionID=%s, storeID=%d, productID=%d, quantity=%d]", sessId, storeId, productId, quantity));
-        return storeService.removeProductQuantity(sessId, storeId, productId, quantity);
+        return inUnitOfWork(() -> storeService.removeProductQuantity(sessId, storeId, productId, quantity));
     }
 
     @Override
@@ -379,7 +410,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result appointOwner(String sessId, String uname, int storeId) {
         logEntry("appointOwner", String.format("[sessionID=%s, storeID=%d, new_owner=%s]", sessId, storeId, uname));
-        return storeService.appointOwner(sessId, uname, storeId);
+        return inUnitOfWork(() -> storeService.appointOwner(sessId, uname, storeId));
     }
 
     @Override
@@ -393,7 +424,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result appointManager(String sessId, String uname, int storeId) {
         logEntry("appointManager", String.format("[sessionID=%s, storeID=%d, new_manager=%s]", sessId, storeId, uname));
-        return storeService.appointManager(sessId, uname, storeId);
+        return inUnitOfWork(() -> storeService.appointManager(sessId, uname, storeId));
     }
 
     @Override
@@ -406,7 +437,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result<Integer> getManagerPermissions(String sessId, String uname, int storeId) {
         logEntry("getManagerPermissions", String.format("[sessionID=%s, storeID=%d, manager=%s]", sessId, storeId, uname));
-        return storeService.getManagerPermissions(sessId, uname, storeId);
+        return inUnitOfWork(() -> storeService.getManagerPermissions(sessId, uname, storeId));
     }
 
     @Override
@@ -419,7 +450,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result modifyPermissionsFor(String sessId, String uname, int storeId, int newPerms) {
         logEntry("modifyPermissionsFor", String.format("[sessionID=%s, storeID=%d, manager=%s, new_permissions=%d]", sessId, storeId, uname, newPerms));
-        return storeService.modifyPermissionsFor(sessId, uname, storeId, newPerms);
+        return inUnitOfWork(() -> storeService.modifyPermissionsFor(sessId, uname, storeId, newPerms));
     }
 
     @Override
@@ -431,7 +462,7 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result closeStore(String sessId, int storeId) {
         logEntry("closeStore", String.format("[sessionID=%s, storeID=%d]", sessId, storeId));
-        return storeService.closeStore(sessId, storeId);
+        return inUnitOfWork(() -> storeService.closeStore(sessId, storeId));
     }
 
     @Override
@@ -443,13 +474,13 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result<List<String>> getStoreOwners(String sessId, int storeId) {
         logEntry("getStoreOwners", String.format("[sessionID=%s, storeID=%d]", sessId, storeId));
-        return storeService.getStoreOwners(sessId, storeId);
+        return inUnitOfWork(() -> storeService.getStoreOwners(sessId, storeId));
     }
 
     @Override
     public Result<String> getStoreFounder(String sessId, int storeId) {
         logEntry("getStoreFounder", String.format("[sessionID=%s, storeID=%d]", sessId, storeId));
-        return storeService.getStoreFounder(sessId, storeId);
+        return inUnitOfWork(() -> storeService.getStoreFounder(sessId, storeId));
     }
 
     @Override
@@ -461,49 +492,76 @@ public class SystemFacade implements ISystemFacade{
      */
     public Result<List<String>> getStoreManagers(String sessId, int storeId) {
         logEntry("getStoreManagers", String.format("[sessionID=%s, storeID=%d]", sessId, storeId));
-        return storeService.getStoreManagers(sessId, storeId);
+        return inUnitOfWork(() -> storeService.getStoreManagers(sessId, storeId));
     }
 
     @Override
     public Result<List<Transaction>> getStoreTransactionHistory(String sessId, int storeId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        return marketService.getStoreTransactionHistory(sessId, storeId, startDateTime, endDateTime);
+        return inUnitOfWork(() -> marketService.getStoreTransactionHistory(sessId, storeId, startDateTime, endDateTime));
+    }
+
+    @Override
+    public Result exportStoreTransactions(String sessId, int storeId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                          Consumer<Transaction> consumer) {
+        logEntry("exportStoreTransactions", String.format("[sessionID=%s, storeId=%d, start=%s, end=%s]", sessId, storeId, startDateTime, endDateTime));
+        // streams straight from the repository, so it isn't held in a unit of work for the whole export
+        return storeService.exportStoreTransactions(sessId, storeId, startDateTime, endDateTime, consumer);
+    }
+
+    @Override
+    public Result exportTransactions(String sessId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                     Consumer<Transaction> consumer) {
+        logEntry("exportTransactions", String.format("[sessionID=%s, start=%s, end=%s]", sessId, startDateTime, endDateTime));
+        return marketService.exportTransactions(sessId, startDateTime, endDateTime, consumer);
+    }
+
+    @Override
+    public Result<SalesReport> getStoreSales(String sessId, int storeId, LocalDate from, LocalDate to, int bestSellers) {
+        logEntry("getStoreSales", String.format("[sessionID=%s, storeId=%d, from=%s, to=%s]", sessId, storeId, from, to));
+        return inUnitOfWork(() -> storeService.getStoreSales(sessId, storeId, from, to, bestSellers));
+    }
+
+    @Override
+    public Result<SalesReport> getMarketSales(String sessId, LocalDate from, LocalDate to, int bestSellers) {
+        logEntry("getMarketSales", String.format("[sessionID=%s, from=%s, to=%s]", sessId, from, to));
+        return inUnitOfWork(() -> marketService.getMarketSales(sessId, from, to, bestSellers));
     }
 
     @Override
     public Result<List<Transaction>> getUserTransactionHistory(String sessId, String uname, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        return marketService.getUserTransactionHistory(sessId, uname, startDateTime, endDateTime);
+        return inUnitOfWork(() -> marketService.getUserTransactionHistory(sessId, uname, startDateTime, endDateTime));
     }
 
     @Override
     public Result reopenStore(String sessionId, int storeId) {
-        return storeService.reopenStore(sessionId, storeId);
+        return inUnitOfWork(() -> storeService.reopenStore(sessionId, storeId));
     }
 
     public Result<Boolean> isGuestSession(String sessionId) {
-        return userService.isGuestSession(sessionId);
+        return inUnitOfWork(() -> userService.isGuestSession(sessionId));
     }
 
     public Result<Boolean> isMemberSession(String sessionId) {
-        return userService.isMemberSession(sessionId);
+        return inUnitOfWork(() -> userService.isMemberSession(sessionId));
     }
 
     public Result<Boolean> isSystemManagerSession(String sessionId) {
-        return userService.isSystemManagerSession(sessionId);
+        return inUnitOfWork(() -> userService.isSystemManagerSession(sessionId));
     }
 
     @Override
     public Result<List<StoreRecord>> getMyStores(String sessionId) {
-        return storeService.getMyStores(sessionId);
+        return inUnitOfWork(() -> storeService.getMyStores(sessionId));
     }
 
     @Override
     public Result removeStoreOwner(String sessionId, String username, Integer storeId) {
-        return storeService.removeStoreOwner(sessionId, username, storeId);
+        return inUnitOfWork(() -> storeService.removeStoreOwner(sessionId, username, storeId));
     }
 
     @Override
     public Result removeStoreManager(String sessionId, String username, Integer storeId) {
-        return storeService.removeStoreManager(sessionId, username, storeId);
+        return inUnitOfWork(() -> storeService.removeStoreManager(sessionId, username, storeId));
     }
 
     private static void logEntry(String function, String arguments){
@@ -512,179 +570,192 @@ public class SystemFacade implements ISystemFacade{
 
     @Override
     public Result closeStorePermanently(String sessionId, int storeId){
-        return storeService.closeStorePermanently(sessionId, storeId);
+        return inUnitOfWork(() -> storeService.closeStorePermanently(sessionId, storeId));
     }
 
     @Override
     public Result<Set<Integer>>
     getStoresAccordingToRole(String sessionId, RoleType role){
-        return storeService.getStoresAccordingToRole(sessionId, role);
+        return inUnitOfWork(() -> storeService.getStoresAccordingToRole(sessionId, role));
     }
 
     @Override
     public Result removeMember(String session, String username){
-        return userService.removeMember(session, username);
+        return inUnitOfWork(() -> userService.removeMember(session, username));
     }
 
     @Override
     public Result<Integer> getMemberPermissions(String sessionId, Integer storeId) {
-        return storeService.getMemberPermissions(sessionId, storeId);
+        return inUnitOfWork(() -> storeService.getMemberPermissions(sessionId, storeId));
     }
 
     @Override
     public Result changePassword(String sessionId, String oldPassword, String newPassword) {
-        return userService.changePassword(sessionId, oldPassword, newPassword);
+        return inUnitOfWork(() -> userService.changePassword(sessionId, oldPassword, newPassword));
     }
 
     @Override
     public Result<Integer> addMemberAddress(String sessionId, AddressRecord addressData) {
-        return userService.addMemberAddress(sessionId, addressData);
+        return inUnitOfWork(() -> userService.addMemberAddress(sessionId, addressData));
     }
 
     @Override
     public Result<Map<String,Integer>> getManagersPermissions(String sessionId, int storeId) {
-        return storeService.getManagersPermissions(sessionId, storeId);
+        return inUnitOfWork(() -> storeService.getManagersPermissions(sessionId, storeId));
     }
 
     @Override
     public Result<List<ProductRecord>> getStoreProducts(String sessionId, int storeId) {
-        return storeService.getStoreProducts(sessionId, storeId);
+        return inUnitOfWork(() -> storeService.getStoreProducts(sessionId, storeId));
     }
 
     @Override
-    public Result<Set<StoreRecord>> getStores() {return storeService.getStores();}
+    public Result<Set<StoreRecord>> getStores() {return inUnitOfWork(() -> storeService.getStores());}
 
     @Override
     public Result<Integer> getAmountOfConnectedMembers(String sessionId) {
-        return userService.getAmountOfConnectedMembers(sessionId);
+        return inUnitOfWork(() -> userService.getAmountOfConnectedMembers(sessionId));
     }
 
     @Override
     public Result<Integer> getAmountOfConnectedGuests(String sessionId) {
-        return userService.getAmountOfConnectedGuests(sessionId);
+        return inUnitOfWork(() -> userService.getAmountOfConnectedGuests(sessionId));
     }
 
     @Override
     public Result<UserRecord> getMemberDetails(String sessionId) {
-        return userService.getMemberDetails(sessionId);
+        return inUnitOfWork(() -> userService.getMemberDetails(sessionId));
     }
 
     @Override
     public Result<List<Transaction>> getTransactionHistory(String sessionId) {
-        return marketService.getTransactionHistory(sessionId);
+        return inUnitOfWork(() -> marketService.getTransactionHistory(sessionId));
     }
 
     public Result removeDiscount(String session, int storeID, int discountId) {
-        return storeService.removeDiscount(session, storeID, discountId);
+        return inUnitOfWork(() -> storeService.removeDiscount(session, storeID, discountId));
     }
 
     @Override
     public Result checkCartPurchaseRules(String session) {
-        return storeService.checkCartPurchaseRules(session);
+        return inUnitOfWork(() -> storeService.checkCartPurchaseRules(session));
     }
 
     @Override
     public Result removePurchaseRule(String session, int storeID, int purchaseRuleID) {
-        return storeService.removePurchaseRule(session, storeID, purchaseRuleID);
+        return inUnitOfWork(() -> storeService.removePurchaseRule(session, storeID, purchaseRuleID));
     }
 
     @Override
     public Result addDiscount(String session, int storeId, IDiscount discount){
-        return storeService.addDiscount(session, storeId, discount);
+        return inUnitOfWork(() -> storeService.addDiscount(session, storeId, discount));
     }
 
     @Override
     public Result<List<IDiscount>> getStoreDiscounts(String session, int storeID){
-        return storeService.getDiscounts(session, storeID);
+        return inUnitOfWork(() -> storeService.getDiscounts(session, storeID));
     }
 
     @Override
     public Result<IDiscount> getStoreDiscount(String sessionId, Integer storeId, Integer discountId) {
-        return storeService.getDiscount(sessionId, storeId, discountId);
+        return inUnitOfWork(() -> storeService.getDiscount(sessionId, storeId, discountId));
     }
 
     @Override
     public Result addPurchaseRule(String session, int storeId, PurchaseRule rule){
-        return storeService.addPurchaseRule(session, storeId, rule);
+        return inUnitOfWork(() -> storeService.addPurchaseRule(session, storeId, rule));
     }
 
     @Override
     public Result<List<PurchaseRule>> getStorePurchaseRules(String session, int storeID){
-        return storeService.getStorePurchaseRules(session, storeID);
+        return inUnitOfWork(() -> storeService.getStorePurchaseRules(session, storeID));
     }
 
     @Override
     public Result memberPublishOffer(String sessionId, int storeId, int productId, double offerdPrice, int quantity){
-        return marketService.memberPublishOffer(sessionId, storeId, productId, offerdPrice, quantity);
+        return inUnitOfWork(() -> marketService.memberPublishOffer(sessionId, storeId, productId, offerdPrice, quantity));
     }
 
     @Override
     public Result memberRejectOffer(String sessionId, int offerId){
-        return marketService.memberRejectOffer(sessionId, offerId);
+        return inUnitOfWork(() -> marketService.memberRejectOffer(sessionId, offerId));
     }
 
     @Override
     public Result storeRejectOffer(String sessionId, int offerId, int storeId){
-        return marketService.storeRejectOffer(sessionId, offerId, storeId);
+        return inUnitOfWork(() -> marketService.storeRejectOffer(sessionId, offerId, storeId));
     }
 
     @Override
     public Result<Map<Integer, Offer>> getMemberOffers(String sessionID){
-        return userService.getMemberOffers(sessionID);
+        return inUnitOfWork(() -> userService.getMemberOffers(sessionID));
     }
 
     @Override
     public Result consentOffer(String sessionId, int offerId, int storeId){
-        return storeService.consentOffer(sessionId, offerId, storeId);
+        return inUnitOfWork(() -> storeService.consentOffer(sessionId, offerId, storeId));
     }
 
     @Override
     public Result<Map<Integer, Offer>> getOffers(String sessionId, int storeId) {
-        return storeService.getOffers(sessionId, storeId);
+        return inUnitOfWork(() -> storeService.getOffers(sessionId, storeId));
     }
 
     @Override
     public Result createSystemManager(String sessId, String username, String password) {
-        return userService.createSystemManager(sessId, username, password);
+        return inUnitOfWork(() -> userService.createSystemManager(sessId, username, password));
     }
 
     @Override
     public Result purchaseBid(String sessionId, PaymentDetails paymentDetails, AddressRecord deliveryAddress, int storeID, int offerID){
-        return marketService.purchaseBid(sessionId, paymentDetails, deliveryAddress, storeID, offerID);
+        return inUnitOfWork(() -> marketService.purchaseBid(sessionId, paymentDetails, deliveryAddress, storeID, offerID));
     }
 
     @Override
     public Result counterOffer(String sessionId, int storeId, int offerId, int productQuantity, double productPrice) {
-        return storeService.counterOffer(sessionId, storeId, offerId, productQuantity, productPrice);
+        return inUnitOfWork(() -> storeService.counterOffer(sessionId, storeId, offerId, productQuantity, productPrice));
     }
 
     @Override
     public Result sendMessage(String sessionId, String msg, String receiver) {
-        return userService.sendMessage(sessionId, msg, receiver);
+        return inUnitOfWork(() -> userService.sendMessage(sessionId, msg, receiver));
     }
 
     //****************************************************************** Contracts
     @Override
     public Result publishMemberContract(String sessionId, int storeId, String newOwnerUserName, String contract) {
-        return storeService.publishMemberContract(sessionId, storeId, newOwnerUserName, contract);
+        return inUnitOfWork(() -> storeService.publishMemberContract(sessionId, storeId, newOwnerUserName, contract));
     }
 
     @Override
     public Result removeContract(String sessionId, int storeId, int contractId) {
-        return storeService.removeContract(sessionId, storeId, contractId);
+        return inUnitOfWork(() -> storeService.removeContract(sessionId, storeId, contractId));
     }
 
     @Override
     public Result consentContract(String sessionId, int storeId, int contractId) {
-        return storeService.consentContract(sessionId, storeId, contractId);
+        return inUnitOfWork(() -> storeService.consentContract(sessionId, storeId, contractId));
     }
 
     @Override
     public Result getContracts(String sessionId, int storeId) {
-        return storeService.getContracts(sessionId, storeId);
+        return inUnitOfWork(() -> storeService.getContracts(sessionId, storeId));
     }
 
     public Result<List<Transaction>> getMyTransactionHistory(String sessionId,  LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        return marketService.getMyTransactionHistory(sessionId, startDateTime, endDateTime);
+        return inUnitOfWork(() -> marketService.getMyTransactionHistory(sessionId, startDateTime, endDateTime));
+    }
+
+    // every entity write made while serving one call shares a single session and commits once. The writes of a
+    // call that returned a bad result are committed too, like they were before, since its changes to the domain
+    // objects in memory aren't undone either. A failed commit is returned as a bad result.
+    @SuppressWarnings("unchecked")
+    private static <T extends Result<?>> T inUnitOfWork(Supplier<T> call) {
+        try {
+            return UnitOfWork.run(call);
+        } catch (PersistenceException e) {
+            MarketLogger.logError("SystemFacade", "inUnitOfWork", "Error msg: %s. could not commit the call", e.getMessage());
+            return (T) Result.makeBad(ErrorStatus.PERSISTENCE_FAILED, "Could not save the changes: " + e.getMessage());
+        }
     }
 }
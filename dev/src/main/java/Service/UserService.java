@@ -7,6 +7,7 @@ import Domain.User.IUserController;
 import util.Exceptions.*;
 import util.Records.AddressRecord;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.UserRecords.MemberPage;
 import util.Records.UserRecords.UserRecord;
 
 import java.util.Collections;
@@ -287,6 +288,19 @@ public class UserService {
         }
     }
 
+    /**
+     * @implNote Possible expected failure codes:
+     * <br>NO_MANAGER_PERMISSION
+     * <br>INVALID_PAGE_REQUEST
+     */
+    public Result<MemberPage> getMemberSummaries(String session, String cursor, int pageSize) {
+        try {
+            return Result.makeGood(controller.getMemberSummaries(session, cursor, pageSize));
+        } catch (PermissionError | DataError e) {
+            return Result.makeBad(e);
+        }
+    }
+
     public Result<Set<String>> getDisconnectedUsers(String session) {
         try {
             return Result.makeGood(controller.getDisconnectedUsers(session));
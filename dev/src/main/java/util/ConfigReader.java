@@ -1,7 +1,9 @@
 package util;
 
 import DataLayer.DbConfig;
+import Domain.MarketImpl;
 import Service.ISystemFacade;
+import util.Enums.CheckoutMode;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -32,9 +34,19 @@ public class ConfigReader {
         //External services details
         String serviceURL = properties.getProperty("serviceURL");
 
+        //purchase details
+        String checkoutMode = properties.getProperty("checkoutMode");
+
         configDb(dbType, host, port, db, user, password, mode);
         configScenaraioNumber(scenarioNumber);
         configPaymentService(serviceURL, systemFacade);
+        configCheckoutMode(checkoutMode);
+    }
+
+    private static void configCheckoutMode(String checkoutMode) {
+        if (checkoutMode != null) {
+            MarketImpl.getInstance().setCheckoutMode(CheckoutMode.valueOf(checkoutMode.trim().toUpperCase()));
+        }
     }
 
     private static void configPaymentService(String serviceURL, ISystemFacade systemFacade) {
@@ -0,0 +1,13 @@
+package util.Enums;
+
+/**
+ * How the post-payment work of a purchase (notify, supply, transaction) is run
+ * for the baskets of a cart.
+ * SERIAL - one basket after the other on the purchasing thread.
+ * CONCURRENT - every basket on the market checkout executor, joined before the purchase returns.
+ * OUTBOX - an outbox entry is saved for every basket and the purchase returns,
+ *          the work itself is done later by the outbox dispatcher.
+ */
+public enum CheckoutMode {
+    SERIAL, CONCURRENT, OUTBOX
+}
@@ -26,6 +26,7 @@ public enum ErrorStatus {
     PRODUCT_DOES_NOT_EXIST,
     DISCOUNT_DOES_NOT_EXIST,
     TRANSACTION_DOES_NOT_EXIST,
+    RESERVATION_DOES_NOT_EXIST,
     INVALID_STORE_NAME,
     INVALID_STORE_DESCRIPTION,
     INVALID_PRODUCT_NAME,
@@ -49,6 +50,7 @@ public enum ErrorStatus {
     NO_PERMISSION,
     OFFER_NOT_FULLY_CONSENTED,
     PAYMENT_PROCESS_FAILED,
+    BASKET_CHECKOUT_FAILED,
     INVALID_STORE_FOUNDER,
     PURCHASE_LIMITATION,
     EMPTY_COLLECTION,
@@ -56,17 +58,22 @@ public enum ErrorStatus {
     OFFER_DOES_NOT_EXIST,
 
     CONTRACT_DOES_NOT_EXIST,
-    INVALID_PERCENTAGE;
+    INVALID_PERCENTAGE,
+    INVALID_PAGE_REQUEST,
+    INVALID_DATE_RANGE,
+    PERSISTENCE_FAILED;
 
     public static final Set<ErrorStatus> DATA_ERROR_STATUSES =
             EnumSet.of(INVALID_USERNAME, INVALID_PASSWORD, INVALID_EMAIL, INVALID_PHONE_NUMBER, INVALID_STORE_NAME,
                     INVALID_STORE_DESCRIPTION, INVALID_PRODUCT_NAME, INVALID_PRODUCT_PRICE, INVALID_PRODUCT_QUANTITY,
-                    INVALID_PRODUCT_CATEGORY, NEGATIVE_QUANTITY, INVALID_PERCENTAGE, EMPTY_COLLECTION);
+                    INVALID_PRODUCT_CATEGORY, NEGATIVE_QUANTITY, INVALID_PERCENTAGE, EMPTY_COLLECTION,
+                    INVALID_PAGE_REQUEST, INVALID_DATE_RANGE);
 
     public static final Set<ErrorStatus> NON_EXISTENT_DATA_ERROR_STATUSES =
             EnumSet.of(STORE_DOES_NOT_EXIST, USERNAME_DOES_NOT_EXIST, USERCART_DOES_NOT_EXISTS, MEMBER_ROLE_NOT_EXISTS,
                     INVALID_STORE_FOUNDER, PRIMARY_ADDRESS_DOES_NOT_EXISTS, ADDRESS_DOES_NOT_EXISTS, PRODUCT_DOES_NOT_EXIST,
-                    DISCOUNT_DOES_NOT_EXIST, OFFER_DOES_NOT_EXIST, CONTRACT_DOES_NOT_EXIST, TRANSACTION_DOES_NOT_EXIST);
+                    DISCOUNT_DOES_NOT_EXIST, OFFER_DOES_NOT_EXIST, CONTRACT_DOES_NOT_EXIST, TRANSACTION_DOES_NOT_EXIST,
+                    RESERVATION_DOES_NOT_EXIST);
 
     public static final Set<ErrorStatus> EXISTENT_DATA_ERROR_STATUSES =
             EnumSet.of(USERNAME_EXISTS, MEMBMER_ALREADY_HAS_ROLE, STORE_EXISTS, PRODUCT_EXISTS, MEMBMER_ALREADY_HAS_CONTRACT);
@@ -83,5 +90,5 @@ public enum ErrorStatus {
                     NO_PERMISSION_REPLY_TO_MESSAGES, NO_MANAGER_PERMISSION, NO_PERMISSION_TO_APPOINT);
 
     public static final Set<ErrorStatus> PURCHASE_ERROR_STATUSES =
-            EnumSet.of(OFFER_NOT_FULLY_CONSENTED, PAYMENT_PROCESS_FAILED, PURCHASE_LIMITATION);
+            EnumSet.of(OFFER_NOT_FULLY_CONSENTED, PAYMENT_PROCESS_FAILED, PURCHASE_LIMITATION, BASKET_CHECKOUT_FAILED);
 }
@@ -0,0 +1,16 @@
+package util.Records;
+
+public record LoadStats(long loads, long sharedLoads, long totalLoadNanos, long maxLoadNanos) {
+
+    public long requests() {
+        return loads + sharedLoads;
+    }
+
+    public double averageLoadMillis() {
+        return loads == 0 ? 0 : totalLoadNanos / 1e6 / loads;
+    }
+
+    public double maxLoadMillis() {
+        return maxLoadNanos / 1e6;
+    }
+}
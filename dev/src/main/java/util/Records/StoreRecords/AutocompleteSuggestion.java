@@ -0,0 +1,18 @@
+package util.Records.StoreRecords;
+
+/**
+ * A completion of a search prefix, either a product or a store.
+ *
+ * @param text      the product or store name
+ * @param type      whether the suggestion is a product or a store
+ * @param storeId   the store of the product, or the store itself
+ * @param productId the product ID, -1 for a store
+ * @param rating    the product or store rating, suggestions are ranked by it
+ */
+public record AutocompleteSuggestion(String text, Type type, int storeId, int productId, double rating) {
+
+    public enum Type {
+        PRODUCT,
+        STORE
+    }
+}
@@ -0,0 +1,6 @@
+package util.Records.StoreRecords;
+
+import java.time.LocalDate;
+
+public record DailySales(LocalDate day, double revenue, int orders, int units) {
+}
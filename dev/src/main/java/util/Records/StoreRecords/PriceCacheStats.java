@@ -0,0 +1,16 @@
+package util.Records.StoreRecords;
+
+public record PriceCacheStats(long hits, long misses) {
+
+    public long lookups() {
+        return hits + misses;
+    }
+
+    public double hitRate() {
+        return lookups() == 0 ? 0 : (double) hits / lookups();
+    }
+
+    public PriceCacheStats add(PriceCacheStats other) {
+        return new PriceCacheStats(hits + other.hits, misses + other.misses);
+    }
+}
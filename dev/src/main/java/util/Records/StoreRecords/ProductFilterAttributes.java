@@ -18,10 +18,36 @@ import java.util.List;
  * @param highProductRating
  * @param lowPrice
  * @param highPrice
+ * @param nameMatch how the product name is matched, EXACT if null
  * @apiNote Attribute types are non-primitive for the option of skipping certain attributes.
  * <br>null => do not filter by this attribute.
  */
 public record ProductFilterAttributes(Integer storeId, String storeName,  String productName, Double lowStoreRating, Double highStoreRating, List<Category> productCategories,
-                                      Double lowProductRating, Double highProductRating, Double lowPrice, Double highPrice) {
-}
+                                      Double lowProductRating, Double highProductRating, Double lowPrice, Double highPrice, NameMatch nameMatch) {
+
+    /**
+     * EXACT keeps the products with the given name.
+     * SUBSTRING keeps the products whose name contains the given text, ignoring case.
+     * FUZZY keeps the products with a name similar to the given one, tolerating typos, most similar first.
+     */
+    public enum NameMatch {
+        EXACT,
+        SUBSTRING,
+        FUZZY
+    }
+
+    public ProductFilterAttributes {
+        if (nameMatch == null)
+            nameMatch = NameMatch.EXACT;
+    }
 
+    public ProductFilterAttributes(Integer storeId, String storeName,  String productName, Double lowStoreRating, Double highStoreRating, List<Category> productCategories,
+                                   Double lowProductRating, Double highProductRating, Double lowPrice, Double highPrice) {
+        this(storeId, storeName, productName, lowStoreRating, highStoreRating, productCategories,
+                lowProductRating, highProductRating, lowPrice, highPrice, NameMatch.EXACT);
+    }
+
+    public boolean isFuzzyName() {
+        return productName != null && nameMatch == NameMatch.FUZZY;
+    }
+}
@@ -0,0 +1,16 @@
+package util.Records.StoreRecords;
+
+import java.util.List;
+
+/**
+ * A page of a product search.
+ *
+ * @param products   the products of the page, in the order of the search
+ * @param nextCursor cursor of the next page, or null if this is the last page
+ */
+public record ProductPage(List<ProductRecord> products, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,4 @@
+package util.Records.StoreRecords;
+
+public record ProductSales(int storeId, int productId, int units, double revenue) {
+}
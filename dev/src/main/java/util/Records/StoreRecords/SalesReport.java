@@ -0,0 +1,12 @@
+package util.Records.StoreRecords;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Sales between two days, both included, with the totals of each day and the best selling products.
+ * A null day leaves the range open on that end.
+ */
+public record SalesReport(LocalDate from, LocalDate to, double revenue, int orders, int units,
+                          List<DailySales> days, List<ProductSales> bestSellers) {
+}
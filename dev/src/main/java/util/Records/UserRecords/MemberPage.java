@@ -0,0 +1,16 @@
+package util.Records.UserRecords;
+
+import java.util.List;
+
+/**
+ * A page of the members of the market, ordered by username.
+ *
+ * @param members    the members of the page
+ * @param nextCursor cursor of the next page, or null if this is the last page
+ */
+public record MemberPage(List<MemberSummary> members, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
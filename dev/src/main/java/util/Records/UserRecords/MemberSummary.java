@@ -0,0 +1,7 @@
+package util.Records.UserRecords;
+
+/**
+ * The name and the connection state of a member, for listing the members of the market.
+ */
+public record MemberSummary(String username, boolean online) {
+}
@@ -0,0 +1,44 @@
+package UnitTests.DataLayerTests;
+
+import DataLayer.BoundedCache;
+import UnitTests.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedCacheTest extends UnitTest {
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, value -> false);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void keepsPinnedEntries() {
+        Set<Integer> pinned = Set.of(1, 2);
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, pinned::contains);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // the entry just inserted stays even though only pinned entries are left to evict
+        cache.put("c", 3);
+        assertEquals(Set.of("a", "b", "c"), Set.copyOf(cache.keys()));
+        assertEquals(3, cache.get("c"));
+
+        cache.put("d", 4);
+        cache.put("e", 5);
+        assertEquals(Set.of("a", "b", "e"), Set.copyOf(cache.keys()));
+        assertEquals(2, cache.getEvictions());
+    }
+}
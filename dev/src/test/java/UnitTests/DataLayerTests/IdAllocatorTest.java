@@ -0,0 +1,56 @@
+package UnitTests.DataLayerTests;
+
+import DataLayer.IdAllocator;
+import UnitTests.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdAllocatorTest extends UnitTest {
+
+    @Test
+    public void sequencesStartAtOneAndCountSeparately() {
+        IdAllocator first = IdAllocator.of("test:first", session -> fail("not persisting"));
+        IdAllocator second = IdAllocator.of("test:second", session -> fail("not persisting"));
+
+        assertEquals(1, first.next());
+        assertEquals(2, first.next());
+        assertEquals(1, second.next());
+        assertSame(first, IdAllocator.of("test:first", session -> fail("not persisting")));
+        assertEquals(3, first.next());
+    }
+
+    @Test
+    public void concurrentCallersGetDistinctIds() throws Exception {
+        IdAllocator allocator = IdAllocator.of("test:concurrent", session -> fail("not persisting"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Integer>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+                futures.add(executor.submit(() -> {
+                    List<Integer> ids = new ArrayList<>();
+                    for (int j = 0; j < 1000; j++)
+                        ids.add(allocator.next());
+                    return ids;
+                }));
+            Set<Integer> ids = new HashSet<>();
+            for (Future<List<Integer>> future : futures)
+                ids.addAll(future.get(5, TimeUnit.SECONDS));
+
+            assertEquals(8000, ids.size());
+            assertEquals(1, ids.stream().mapToInt(Integer::intValue).min().orElseThrow());
+            assertEquals(8000, ids.stream().mapToInt(Integer::intValue).max().orElseThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package UnitTests.DataLayerTests;
+
+import DataLayer.NegativeCache;
+import UnitTests.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NegativeCacheTest extends UnitTest {
+
+    @Test
+    public void seededFilterRulesOutAbsentKeys() {
+        NegativeCache<String> cache = new NegativeCache<>(60_000, 60_000);
+        List<String> existing = IntStream.range(0, 1000).mapToObj(i -> "user" + i).toList();
+        cache.seedIfStale(() -> existing);
+
+        for (String userName : existing)
+            assertFalse(cache.isKnownMissing(userName));
+        long ruledOut = IntStream.range(0, 1000).filter(i -> cache.isKnownMissing("guest" + i)).count();
+        assertTrue(ruledOut > 950);
+    }
+
+    @Test
+    public void addedKeysAreNotMissing() {
+        NegativeCache<Integer> cache = new NegativeCache<>(60_000, 60_000);
+        cache.added(1);
+        cache.seedIfStale(List::of);
+        assertFalse(cache.isKnownMissing(1));
+
+        cache.missed(2);
+        assertTrue(cache.isKnownMissing(2));
+        cache.added(2);
+        assertFalse(cache.isKnownMissing(2));
+    }
+
+    @Test
+    public void filterIsSeededAgainAfterItExpires() throws InterruptedException {
+        NegativeCache<String> cache = new NegativeCache<>(60_000, 20);
+        List<String> existing = new ArrayList<>(List.of("user"));
+        cache.seedIfStale(() -> existing);
+        assertTrue(cache.isKnownMissing("other"));
+
+        // added by another instance
+        existing.add("other");
+        cache.seedIfStale(() -> existing);
+        assertTrue(cache.isKnownMissing("other"));
+        Thread.sleep(40);
+        assertFalse(cache.isKnownMissing("other"));
+        cache.seedIfStale(() -> existing);
+        assertFalse(cache.isKnownMissing("other"));
+        assertTrue(cache.isKnownMissing("guest"));
+    }
+
+    @Test
+    public void missesExpire() throws InterruptedException {
+        NegativeCache<String> cache = new NegativeCache<>(20, 60_000);
+        cache.missed("user");
+        assertTrue(cache.isKnownMissing("user"));
+        Thread.sleep(40);
+        assertFalse(cache.isKnownMissing("user"));
+    }
+}
@@ -0,0 +1,35 @@
+package UnitTests.DataLayerTests;
+
+import DataLayer.OutboxRepo;
+import DataLayer.ORM.DataOutboxEntry;
+import UnitTests.UnitTest;
+import org.junit.jupiter.api.Test;
+import util.Records.AddressRecord;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboxRepoTest extends UnitTest {
+
+    @Test
+    public void claimedEntriesAreNotClaimedAgainUntilReleased() {
+        OutboxRepo repo = new OutboxRepo();
+        DataOutboxEntry entry = new DataOutboxEntry(1, "buyer", 10, Map.of(),
+                new AddressRecord("a", "a", "a", "a", "a", "a"), "bought");
+        repo.addEntries(List.of(entry));
+
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(List.of(entry), repo.claimDueEntries(now));
+        assertEquals(List.of(), repo.claimDueEntries(now));
+
+        entry.release();
+        repo.update(entry);
+        assertEquals(List.of(entry), repo.claimDueEntries(now));
+        // a claim left behind by a dispatcher that stopped runs out
+        assertEquals(List.of(entry), repo.claimDueEntries(now.plusHours(1)));
+        assertEquals(1, repo.getPendingCount());
+    }
+}
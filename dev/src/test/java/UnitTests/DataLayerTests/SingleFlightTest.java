@@ -0,0 +1,100 @@
+package UnitTests.DataLayerTests;
+
+import DataLayer.SingleFlight;
+import UnitTests.UnitTest;
+import org.junit.jupiter.api.Test;
+import util.Records.LoadStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest extends UnitTest {
+
+    @Test
+    public void concurrentMissesOnSameKeyShareOneLoad() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loaderCalls = new AtomicInteger(0);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            Future<String> first = executor.submit(() -> singleFlight.load("user", () -> {
+                loaderCalls.incrementAndGet();
+                loadStarted.countDown();
+                await(release);
+                return "loaded";
+            }));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            List<Future<String>> waiting = new ArrayList<>();
+            for (int i = 0; i < 4; i++)
+                waiting.add(executor.submit(() -> singleFlight.load("user", () -> {
+                    loaderCalls.incrementAndGet();
+                    return "loaded again";
+                })));
+            while (singleFlight.getMetrics().getStats().sharedLoads() < 4)
+                Thread.sleep(1);
+            release.countDown();
+
+            assertEquals("loaded", first.get(5, TimeUnit.SECONDS));
+            for (Future<String> future : waiting)
+                assertEquals("loaded", future.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loaderCalls.get());
+            LoadStats stats = singleFlight.getMetrics().getStats();
+            assertEquals(1, stats.loads());
+            assertEquals(4, stats.sharedLoads());
+            assertEquals(5, stats.requests());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void missesOnDifferentKeysLoadInParallel() throws Exception {
+        SingleFlight<Integer, Integer> singleFlight = new SingleFlight<>();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int key = 0; key < 2; key++) {
+                int storeId = key;
+                futures.add(executor.submit(() -> singleFlight.load(storeId, () -> {
+                    bothStarted.countDown();
+                    await(bothStarted);
+                    return storeId;
+                })));
+            }
+            assertEquals(0, futures.get(0).get(5, TimeUnit.SECONDS));
+            assertEquals(1, futures.get(1).get(5, TimeUnit.SECONDS));
+            assertEquals(2, singleFlight.getMetrics().getStats().loads());
+            assertEquals(0, singleFlight.getMetrics().getStats().sharedLoads());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedLoadIsNotCached() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        assertThrows(IllegalStateException.class, () -> singleFlight.load("user", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("loaded", singleFlight.load("user", () -> "loaded"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS))
+                throw new IllegalStateException("Timed out");
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
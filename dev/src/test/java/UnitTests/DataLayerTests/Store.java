@@ -3,7 +3,9 @@ package UnitTests.DataLayerTests;
 import DataLayer.DbConfig;
 import DataLayer.Store.IStoreRepo;
 import DataLayer.Store.ORM.*;
+import DataLayer.Store.ProductQuantityFlusher;
 import DataLayer.Store.StoreRepo;
+import DataLayer.UnitOfWork;
 import Domain.Store.Category;
 import Domain.Store.Conditions.*;
 import Domain.Store.Discount.DiscountTypes.Composite.*;
@@ -126,6 +128,39 @@ public class Store extends PersistenceTest {
         }
     }
 
+    @Test
+    void Product_Update_Keeps_Quantity(){
+        try {
+            // Data
+            int storeID = REPO.openNewStore(FOUNDER.username(), STORE_DATA);
+            int prodID = REPO.getStore(storeID).addNewProduct(FOUNDER.username(), PRODUCT_DATA);
+            closeReopen();
+
+            // The store is loaded in the unit of work, so its product entity is flushed when it commits
+            UnitOfWork.run(() -> {
+                try {
+                    IStore store = REPO.getStore(storeID);
+                    store.reduceProductQuantity(FOUNDER.username(), prodID, 3);
+                    ProductQuantityFlusher.getInstance().flush();
+                    store.updateProductFields(FOUNDER.username(),
+                            new ProductRecord(store.getProduct(prodID)).updateName("Prod2"));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                return null;
+            });
+
+            // Check the stored quantity after reopen
+            closeReopen();
+            IProduct product = REPO.getStore(storeID).getProduct(prodID);
+            assertEquals("Prod2", product.getProductName());
+            assertEquals(PRODUCT_DATA.quantity() - 3, product.getProductQuantity());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
     @Test
     void Cascade_Product(){
         try {
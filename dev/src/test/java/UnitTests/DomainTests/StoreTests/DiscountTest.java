@@ -6,6 +6,7 @@ import Domain.Store.Conditions.ConditionFactory;
 import Domain.Store.Discount.DiscountTypes.Composite.AndDiscount;
 import Domain.Store.Discount.DiscountTypes.Composite.IfThenDiscount;
 import Domain.Store.Discount.DiscountTypes.Composite.MaxDiscount;
+import Domain.Store.Discount.DiscountTypes.Composite.XorDiscount;
 import Domain.Store.Discount.DiscountTypes.Simple.CategoryDiscount;
 import Domain.Store.Discount.DiscountTypes.Simple.ProductDiscount;
 import Domain.Store.Discount.DiscountTypes.Simple.StoreDiscount;
@@ -222,4 +223,79 @@ public class DiscountTest extends UnitTest {
             fail();
         }
     }
+
+    @Test
+    public void nestedMaxXorDiscount() throws DataError {
+        IDiscount xorDiscount = new XorDiscount(new CategoryDiscount(50, Category.AUTOMOTIVE), new StoreDiscount(20));
+        IDiscount maxDiscount = new MaxDiscount(Set.of(xorDiscount, new CategoryDiscount(50, Category.HEALTH)));
+        try {
+            store.addDiscount("System", maxDiscount);
+            store.calculateBasketPrice(basket);
+            assertEquals(172, basket.getBasketPriceAfterDiscount());
+            Assertions.assertEquals( 215, basket.getBasketPrice());
+        }
+        catch (Exception e){
+            fail();
+        }
+    }
+
+    @Test
+    public void removedDiscountIsNotApplied() throws DataError {
+        IDiscount discount = new StoreDiscount(20);
+        try {
+            int discountID = store.addDiscount("System", discount);
+            store.calculateBasketPrice(basket);
+            assertEquals(172, basket.getBasketPriceAfterDiscount());
+            store.removeDiscount("System", discountID);
+            store.calculateBasketPrice(basket);
+            assertEquals(215, basket.getBasketPriceAfterDiscount());
+        }
+        catch (Exception e){
+            fail();
+        }
+    }
+
+    @Test
+    public void basketPriceIsCachedUntilSomethingChanges() throws DataError {
+        IDiscount discount = new StoreDiscount(20);
+        try {
+            store.addDiscount("System", discount);
+            assertEquals(172, store.calculateBasketPrice(basket));
+            assertEquals(172, store.calculateBasketPrice(basket));
+            assertEquals(1, store.getPriceCacheStats().hits());
+
+            basket.updateProductQuantity(product1ID, 4);
+            assertEquals(164, store.calculateBasketPrice(basket));
+            assertEquals(1, store.getPriceCacheStats().hits());
+
+            ProductRecord product7 = new ProductRecord(store.getProduct(product7ID)).updatePrice(20);
+            store.updateProductFields("System", product7);
+            assertEquals(148, store.calculateBasketPrice(basket));
+            assertEquals(1, store.getPriceCacheStats().hits());
+            assertEquals(3, store.getPriceCacheStats().misses());
+        }
+        catch (Exception e){
+            fail();
+        }
+    }
+
+    @Test
+    public void changedLineIsRepricedLikeTheWholeBasket() throws DataError {
+        try {
+            store.addDiscount("System", new CategoryDiscount(50, Category.BEAUTY));
+            store.addDiscount("System", new ProductDiscount(10, product4ID));
+            store.calculateBasketPrice(basket);
+            basket.updateProductQuantity(product1ID, 4);
+            basket.removeProduct(product7ID);
+            double repriced = store.calculateBasketPrice(basket);
+
+            IStoreBasket fresh = new DummyStoreBasket(store.getStoreId());
+            for (ProductRecord record : basket.getProductsAsRecords().values())
+                fresh.addProduct(record);
+            assertEquals(store.calculateBasketPrice(fresh), repriced, 0.0001);
+        }
+        catch (Exception e){
+            fail();
+        }
+    }
 }
@@ -2,6 +2,7 @@ package UnitTests.DomainTests.StoreTests;
 
 import Domain.Permission;
 import Domain.Store.Category;
+import Domain.Store.IProduct;
 import Domain.Store.Store;
 import UnitTests.UnitTest;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +19,7 @@ import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -98,6 +100,41 @@ public class MultiThreadedStoreTests extends UnitTest {
         assertEquals(40, store.getProduct(product2ID).getProductQuantity());
     }
 
+    @Test
+    public void flashSaleNeverOverSells() throws Exception {
+        ProductRecord productRecord = new ProductRecord("Flash Sale Product", 10.0, Category.PETS, 100);
+        int productId = store.addNewProduct(storeFounder, productRecord);
+        IProduct product = store.getProduct(productId);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger reserved = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 16; i++) {
+            boolean useReservations = i % 2 == 0;
+            executor.submit(() -> {
+                for (int j = 0; j < 20; j++) {
+                    try {
+                        if (useReservations) {
+                            product.reserveQuantity(1);
+                            product.commitReservedQuantity(1);
+                            reserved.incrementAndGet();
+                        } else {
+                            product.reduceProductQuantity(1);
+                            sold.incrementAndGet();
+                        }
+                    } catch (DataError ignored) {
+                        // sold out
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(100, sold.get() + reserved.get());
+        assertEquals(0, product.getProductQuantity());
+        assertEquals(0, product.getAvailableQuantity());
+    }
+
     @Test
     @RepeatedTest(20)
     public void assignEmployee() throws NonExistentData {
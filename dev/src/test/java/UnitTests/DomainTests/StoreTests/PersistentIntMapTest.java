@@ -0,0 +1,38 @@
+package UnitTests.DomainTests.StoreTests;
+
+import Domain.Store.PersistentIntMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentIntMapTest {
+
+    @Test
+    public void testChangesKeepThePreviousMap() {
+        PersistentIntMap<String> first = PersistentIntMap.<String>empty().with(1, "a").with(40, "b");
+        PersistentIntMap<String> second = first.with(1, "c").with(Integer.MAX_VALUE, "d");
+        PersistentIntMap<String> third = second.without(40);
+
+        assertEquals(Map.of(1, "a", 40, "b"), first.asMap());
+        assertEquals(Map.of(1, "c", 40, "b", Integer.MAX_VALUE, "d"), second.asMap());
+        assertEquals(Map.of(1, "c", Integer.MAX_VALUE, "d"), third.asMap());
+        assertEquals(2, third.size());
+        assertNull(third.get(40));
+        assertSame(third, third.without(40));
+    }
+
+    @Test
+    public void testIteratesInKeyOrder() {
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int key : List.of(1000, 3, 70, 0))
+            map = map.with(key, key);
+        assertEquals(List.of(0, 3, 70, 1000), List.copyOf(map.asMap().keySet()));
+        for (int key : List.of(1000, 3, 70, 0))
+            map = map.without(key);
+        assertEquals(0, map.size());
+        assertTrue(map.asMap().isEmpty());
+    }
+}
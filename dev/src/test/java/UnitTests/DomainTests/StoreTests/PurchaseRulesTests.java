@@ -125,4 +125,25 @@ public class PurchaseRulesTests extends UnitTest {
         // Assert
         Assertions.assertThrows(PurchaseLimitation.class, () -> store.checkPurchaseRules(basket));
     }
+
+    @Test
+    public void categoryLimitFollowsBasketChanges() {
+        Condition cond = ConditionFactory.limitQuantity(8, Category.BEAUTY);
+        PurchaseRule rule = new AndPurchaseRule(Set.of(cond));
+        try {
+            store.addPurchaseRule("System", rule);
+            store.checkPurchaseRules(basket);
+            basket.updateProductQuantity(product3ID, 2);
+        } catch (Exception e) {
+            fail();
+        }
+        Assertions.assertThrows(PurchaseLimitation.class, () -> store.checkPurchaseRules(basket));
+
+        try {
+            basket.removeProduct(product2ID);
+            store.checkPurchaseRules(basket);
+        } catch (Exception e) {
+            fail();
+        }
+    }
 }
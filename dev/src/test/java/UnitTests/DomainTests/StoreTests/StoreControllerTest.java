@@ -8,14 +8,26 @@ import Domain.User.UserController;
 import UnitTests.UnitTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import util.Exceptions.DataError;
 import util.Exceptions.NonExistentData;
+import util.Records.StoreRecords.AutocompleteSuggestion;
 import util.Records.StoreRecords.ProductFilterAttributes;
+import util.Records.StoreRecords.ProductPage;
+import util.Records.StoreRecords.ProductRecord;
 import util.Records.StoreRecords.StoreRecord;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -108,16 +120,14 @@ public class StoreControllerTest extends UnitTest {
         when(store2.getStoreId()).thenReturn(storeId2);
 
         when(userController.isUserIsMember(sessionId)).thenReturn(true);
-        storeController.addStore(store1);
-        storeController.addStore(store2);
 
-        // Create mock stores with products
+        // Create mock stores with products, published to the catalog like loaded stores
         List<IProduct> products1 = Arrays.asList(p1, p2);
         List<IProduct> products2 = Arrays.asList(p3, p4);
-        when(store1.getProducts()).thenReturn(products1);
-        when(store2.getProducts()).thenReturn(products2);
-        when(store1.isActive()).thenReturn(true);
-        when(store2.isActive()).thenReturn(true);
+        mockPublishedStore(store1, "store 1", 4.0, products1);
+        mockPublishedStore(store2, "store 2", 3.0, products2);
+        storeController.addStore(store1);
+        storeController.addStore(store2);
 
         // Test case 1: filter by product name
         ProductFilterAttributes filter1 = new ProductFilterAttributes(null, null,"Product 1", null, null, null, null, null, null, null);
@@ -140,13 +150,147 @@ public class StoreControllerTest extends UnitTest {
         assertEquals(Arrays.asList(p1, p3, p4), filteredProducts4);
 
         // Test case 5: filter by store rating
-        when(store1.getStoreRating()).thenReturn(4.0);
-        when(store2.getStoreRating()).thenReturn(3.0);
         ProductFilterAttributes filter5 = new ProductFilterAttributes(null, null,null, 4.0, null, null, null, null, null, null);
         List<IProduct> filteredProducts5 = storeController.getFilteredProducts(filter5);
         assertEquals(Arrays.asList(p1, p2), filteredProducts5);
     }
 
+    private void mockPublishedStore(IStore store, String name, double rating, List<IProduct> products) {
+        when(store.getStoreName()).thenReturn(name);
+        when(store.getStoreDescription()).thenReturn("description");
+        when(store.getStoreRating()).thenReturn(rating);
+        when(store.isActive()).thenReturn(true);
+        when(store.getProducts()).thenReturn(products);
+        int storeId = store.getStoreId();
+        for (IProduct product : products)
+            when(product.getStoreId()).thenReturn(storeId);
+        doAnswer(invocation -> {
+            CatalogEvents events = invocation.getArgument(0);
+            events.storeAttached(store);
+            products.forEach(events::productAdded);
+            return null;
+        }).when(store).publishCatalogTo(any());
+    }
+
+    @Test
+    public void filteredProductsFollowCatalogChanges() throws Exception {
+        storeController.addStore(realStore);
+        int shampooId = realStore.addNewProduct(username1, new ProductRecord("Green Shampoo", 12.0, Category.BEAUTY, 5));
+        int soapId = realStore.addNewProduct(username1, new ProductRecord("Green Soap", 4.0, Category.BEAUTY, 5));
+
+        ProductFilterAttributes byName = new ProductFilterAttributes(null, null, "Green Soap", null, null, null, null, null, null, null);
+        ProductFilterAttributes byPrice = new ProductFilterAttributes(null, null, null, null, null, List.of(Category.BEAUTY), null, null, 10.0, null);
+        assertEquals(List.of(realStore.getProduct(soapId)), storeController.getFilteredProducts(byName));
+        assertEquals(List.of(realStore.getProduct(shampooId)), storeController.getFilteredProducts(byPrice));
+
+        ProductRecord updatedSoap = new ProductRecord(realStore.getProduct(soapId)).updatePrice(20.0);
+        realStore.updateProductFields(username1, updatedSoap);
+        assertEquals(List.of(realStore.getProduct(shampooId), realStore.getProduct(soapId)), storeController.getFilteredProducts(byPrice));
+
+        realStore.removeProduct(username1, soapId);
+        assertEquals(List.of(), storeController.getFilteredProducts(byName));
+        assertEquals(List.of(realStore.getProduct(shampooId)), storeController.getFilteredProducts(byPrice));
+    }
+
+    @Test
+    public void filteredProductsPagesCoverAllMatchesInOrder() throws Exception {
+        storeController.addStore(realStore);
+        double[] prices = {30.0, 10.0, 50.0, 20.0, 40.0};
+        for (int i = 0; i < prices.length; i++)
+            realStore.addNewProduct(username1, new ProductRecord("Toy " + i, prices[i], Category.BABY, 1));
+        ProductFilterAttributes filter = new ProductFilterAttributes(null, null, null, null, null, List.of(Category.BABY), null, null, null, null);
+
+        List<Double> pagedPrices = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ProductPage page = storeController.getFilteredProductsPage(filter, ProductSortKey.PRICE, 2, cursor);
+            page.products().forEach(product -> pagedPrices.add(product.productPrice()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of(10.0, 20.0, 30.0, 40.0, 50.0), pagedPrices);
+        assertEquals(3, pages);
+        assertThrows(DataError.class, () -> storeController.getFilteredProductsPage(filter, ProductSortKey.PRICE, 2, "not a cursor"));
+        assertThrows(DataError.class, () -> storeController.getFilteredProductsPage(filter, ProductSortKey.PRICE, 0, null));
+    }
+
+    @Test
+    public void catalogSnapshotFollowsStoreChanges() throws Exception {
+        storeController.addStore(realStore);
+        int productId = realStore.addNewProduct(username1, new ProductRecord("Lamp", 30.0, Category.HOME, 2));
+        assertEquals(List.of(new StoreRecord(realStore)), storeController.getStores());
+        assertEquals(2, storeController.getStoresProducts().get(storeId3).get(productId).quantity());
+
+        realStore.addProductQuantity(username1, productId, 3);
+        assertEquals(5, storeController.getStoresProducts().get(storeId3).get(productId).quantity());
+        assertEquals(Map.of(productId, new ProductRecord(realStore.getProduct(productId))), storeController.getStoresProducts().get(storeId3));
+        assertThrows(UnsupportedOperationException.class, () -> storeController.getStoresProducts().remove(storeId3));
+
+        realStore.closeStore(username1);
+        assertEquals(List.of(), storeController.getStores());
+        assertFalse(storeController.getStoreInfo(storeId3).isActive());
+    }
+
+    @Test
+    public void autocompleteFollowsCatalogChanges() throws Exception {
+        storeController.addStore(realStore);
+        int shampooId = realStore.addNewProduct(username1, new ProductRecord("Green Shampoo", 12.0, Category.BEAUTY, 5));
+        int soapId = realStore.addNewProduct(username1, new ProductRecord("Green Soap", 4.0, Category.BEAUTY, 5));
+
+        assertEquals(Set.of(shampooId, soapId), storeController.autocomplete("gre", 10).stream()
+                .map(AutocompleteSuggestion::productId).collect(Collectors.toSet()));
+        assertEquals(List.of(shampooId), storeController.autocomplete("SHAM", 10).stream()
+                .map(AutocompleteSuggestion::productId).toList());
+        assertEquals(List.of(new AutocompleteSuggestion("store 3", AutocompleteSuggestion.Type.STORE, storeId3, -1, 0)),
+                storeController.autocomplete("store", 10));
+
+        realStore.removeProduct(username1, soapId);
+        assertEquals(List.of(shampooId), storeController.autocomplete("green", 10).stream()
+                .map(AutocompleteSuggestion::productId).toList());
+
+        realStore.closeStore(username1);
+        assertEquals(List.of(), storeController.autocomplete("green", 10));
+        assertEquals(List.of(), storeController.autocomplete("store", 10));
+    }
+
+    @Test
+    public void fuzzyNameMatchToleratesTypos() throws Exception {
+        storeController.addStore(realStore);
+        int shampooId = realStore.addNewProduct(username1, new ProductRecord("Green Shampoo", 12.0, Category.BEAUTY, 5));
+        int soapId = realStore.addNewProduct(username1, new ProductRecord("Green Soap", 4.0, Category.BEAUTY, 5));
+        realStore.addNewProduct(username1, new ProductRecord("Red Apple", 2.0, Category.FOOD, 5));
+
+        ProductFilterAttributes exact = new ProductFilterAttributes(null, null, "Grean Shampo", null, null, null, null, null, null, null);
+        ProductFilterAttributes fuzzy = new ProductFilterAttributes(null, null, "Grean Shampo", null, null, null, null, null, null, null,
+                ProductFilterAttributes.NameMatch.FUZZY);
+        assertEquals(List.of(), storeController.getFilteredProducts(exact));
+        assertEquals(List.of(shampooId, soapId), storeController.getFilteredProducts(fuzzy).stream()
+                .map(IProduct::getProductId).toList());
+
+        realStore.updateProductFields(username1, new ProductRecord(realStore.getProduct(shampooId)).updateName("Blue Conditioner"));
+        assertEquals(List.of(soapId), storeController.getFilteredProducts(fuzzy).stream()
+                .map(IProduct::getProductId).toList());
+    }
+
+    @Test
+    public void substringNameMatchIgnoresCase() throws Exception {
+        storeController.addStore(realStore);
+        int shampooId = realStore.addNewProduct(username1, new ProductRecord("Green Shampoo", 12.0, Category.BEAUTY, 5));
+        int soapId = realStore.addNewProduct(username1, new ProductRecord("Green Soap", 4.0, Category.BEAUTY, 5));
+        realStore.addNewProduct(username1, new ProductRecord("Red Apple", 2.0, Category.FOOD, 5));
+
+        ProductFilterAttributes substring = new ProductFilterAttributes(null, null, "reen s", null, null, null, null, null, null, null,
+                ProductFilterAttributes.NameMatch.SUBSTRING);
+        assertEquals(List.of(shampooId, soapId), storeController.getFilteredProducts(substring).stream()
+                .map(IProduct::getProductId).toList());
+        ProductFilterAttributes cheap = new ProductFilterAttributes(null, null, "SOA", null, null, null, null, null, null, 5.0,
+                ProductFilterAttributes.NameMatch.SUBSTRING);
+        assertEquals(List.of(soapId), storeController.getFilteredProducts(cheap).stream()
+                .map(IProduct::getProductId).toList());
+    }
+
     @Test
     public void testGetStoreInfo() throws NonExistentData {
         storeController.addStore(realStore);
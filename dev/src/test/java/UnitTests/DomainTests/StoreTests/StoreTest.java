@@ -6,6 +6,7 @@ import Domain.Services.NotificationService.NotificationService;
 import Domain.Store.Category;
 import Domain.Store.IProduct;
 import Domain.Store.Product;
+import Domain.Store.Reservation;
 import Domain.Store.Store;
 import Domain.User.DummyStoreBasket;
 import Domain.User.IStoreBasket;
@@ -23,6 +24,8 @@ import util.Exceptions.PermissionError;
 import util.Records.StoreRecords.ProductRecord;
 import util.Records.StoreRecords.StoreRecord;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -463,4 +466,104 @@ public class StoreTest extends UnitTest {
             fail(e.getMessage());
         }
     }
+
+    @Test
+    public void testReservationHoldsAvailableQuantity() throws Exception {
+        int productId = store.addNewProduct("System",
+                new ProductRecord(store.getStoreId(), 1, "Held Product", 10.0, Category.BABY, 5, 10, 0));
+        IStoreBasket basket = new DummyStoreBasket(store.getStoreId());
+        basket.addProduct(new ProductRecord(store.getStoreId(), productId, "Held Product", 10.0, Category.BABY, 3, 10, 0));
+
+        Reservation reservation = store.reserveBasketQuantity(basket, Duration.ofMinutes(1));
+        assertEquals(5, store.getProduct(productId).getProductQuantity());
+        assertEquals(2, store.getProduct(productId).getAvailableQuantity());
+        // a second buyer can't take the held products
+        assertThrows(DataError.class, () -> store.reserveBasketQuantity(basket, Duration.ofMinutes(1)));
+        assertThrows(DataError.class, () -> store.reduceProductQuantity("System", productId, 3));
+
+        store.releaseReservation(reservation);
+        assertEquals(5, store.getProduct(productId).getAvailableQuantity());
+        assertEquals(0, store.getActiveReservationsCount());
+
+        Reservation committed = store.reserveBasketQuantity(basket, Duration.ofMinutes(1));
+        store.commitReservation(committed);
+        assertEquals(2, store.getProduct(productId).getProductQuantity());
+        assertEquals(2, store.getProduct(productId).getAvailableQuantity());
+        // nothing is held anymore
+        assertThrows(IllegalStateException.class, () -> store.getProduct(productId).commitReservedQuantity(1));
+        assertEquals(2, store.getProduct(productId).getProductQuantity());
+    }
+
+    @Test
+    public void testExpiredReservationsAreReleased() throws Exception {
+        int productId = store.addNewProduct("System",
+                new ProductRecord(store.getStoreId(), 1, "Expiring Product", 10.0, Category.BABY, 4, 10, 0));
+        IStoreBasket basket = new DummyStoreBasket(store.getStoreId());
+        basket.addProduct(new ProductRecord(store.getStoreId(), productId, "Expiring Product", 10.0, Category.BABY, 4, 10, 0));
+
+        Reservation reservation = store.reserveBasketQuantity(basket, Duration.ofSeconds(30));
+        assertEquals(0, store.releaseExpiredReservations(LocalDateTime.now()));
+        assertEquals(1, store.releaseExpiredReservations(LocalDateTime.now().plusMinutes(1)));
+        assertEquals(4, store.getProduct(productId).getAvailableQuantity());
+
+        // an expired hold can't be committed, its products are free for other buyers
+        assertThrows(NonExistentData.class, () -> store.commitReservation(reservation));
+        assertEquals(4, store.getProduct(productId).getProductQuantity());
+        assertEquals(4, store.getProduct(productId).getAvailableQuantity());
+    }
+
+    @Test
+    public void testPinnedReservationsDontExpire() throws Exception {
+        int productId = store.addNewProduct("System",
+                new ProductRecord(store.getStoreId(), 1, "Pinned Product", 10.0, Category.BABY, 4, 10, 0));
+        IStoreBasket basket = new DummyStoreBasket(store.getStoreId());
+        basket.addProduct(new ProductRecord(store.getStoreId(), productId, "Pinned Product", 10.0, Category.BABY, 3, 10, 0));
+
+        Reservation pinned = store.reserveBasketQuantity(basket, Duration.ofMinutes(1));
+        store.pinReservation(pinned);
+        assertEquals(0, store.releaseExpiredReservations(LocalDateTime.now().plusMinutes(1)));
+        store.commitReservation(pinned);
+        assertEquals(1, store.getProduct(productId).getProductQuantity());
+
+        // a hold that expired before it was pinned is released instead
+        basket.updateProductRecord(new ProductRecord(store.getStoreId(), productId, "Pinned Product", 10.0, Category.BABY, 1, 10, 0));
+        Reservation expired = store.reserveBasketQuantity(basket, Duration.ZERO);
+        Thread.sleep(5);
+        assertThrows(NonExistentData.class, () -> store.pinReservation(expired));
+        assertEquals(1, store.getProduct(productId).getAvailableQuantity());
+        assertEquals(0, store.getActiveReservationsCount());
+    }
+
+    @Test
+    public void testRevertCommittedReservation() throws Exception {
+        int productId = store.addNewProduct("System",
+                new ProductRecord(store.getStoreId(), 1, "Reverted Product", 10.0, Category.BABY, 5, 10, 0));
+        IStoreBasket basket = new DummyStoreBasket(store.getStoreId());
+        basket.addProduct(new ProductRecord(store.getStoreId(), productId, "Reverted Product", 10.0, Category.BABY, 3, 10, 0));
+
+        Reservation reservation = store.reserveBasketQuantity(basket, Duration.ofMinutes(1));
+        store.commitReservation(reservation);
+        assertEquals(2, store.getProduct(productId).getProductQuantity());
+        assertThrows(NonExistentData.class, () -> store.commitReservation(reservation));
+
+        store.revertReservation(reservation);
+        assertEquals(5, store.getProduct(productId).getProductQuantity());
+        assertEquals(5, store.getProduct(productId).getAvailableQuantity());
+    }
+
+    @Test
+    public void testReservationIsAllOrNothing() throws Exception {
+        int first = store.addNewProduct("System",
+                new ProductRecord(store.getStoreId(), 1, "First", 10.0, Category.BABY, 5, 10, 0));
+        int second = store.addNewProduct("System",
+                new ProductRecord(store.getStoreId(), 2, "Second", 10.0, Category.BABY, 1, 10, 0));
+        IStoreBasket basket = new DummyStoreBasket(store.getStoreId());
+        basket.addProduct(new ProductRecord(store.getStoreId(), first, "First", 10.0, Category.BABY, 2, 10, 0));
+        basket.addProduct(new ProductRecord(store.getStoreId(), second, "Second", 10.0, Category.BABY, 2, 10, 0));
+
+        assertThrows(DataError.class, () -> store.reserveBasketQuantity(basket, Duration.ofMinutes(1)));
+        assertEquals(5, store.getProduct(first).getAvailableQuantity());
+        assertEquals(1, store.getProduct(second).getAvailableQuantity());
+        assertEquals(0, store.getActiveReservationsCount());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package UnitTests.DomainTests.UserTests;
+
+import DataLayer.User.UserRepo;
+import UnitTests.UnitTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.Records.UserRecords.MemberPage;
+import util.Records.UserRecords.MemberSummary;
+import util.Records.UserRecords.UserRecord;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemberSummariesTest extends UnitTest {
+    private UserRepo userRepo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepo = new UserRepo();
+        for (String userName : List.of("dana", "alice", "erez", "carol", "bob"))
+            userRepo.addMember("", new UserRecord(userName, "email", "phone", LocalDate.now()), "password");
+    }
+
+    @Test
+    void pagesCoverAllMembersInOrder() {
+        MemberPage first = userRepo.getMemberSummaries(null, 2);
+        assertEquals(List.of("alice", "bob"), first.members().stream().map(MemberSummary::username).toList());
+        assertTrue(first.hasNext());
+
+        MemberPage second = userRepo.getMemberSummaries(first.nextCursor(), 2);
+        assertEquals(List.of("carol", "dana"), second.members().stream().map(MemberSummary::username).toList());
+
+        MemberPage last = userRepo.getMemberSummaries(second.nextCursor(), 2);
+        assertEquals(List.of("erez"), last.members().stream().map(MemberSummary::username).toList());
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    void summariesTellLoggedInMembers() throws Exception {
+        userRepo.getMember("bob").login("1", "password");
+        userRepo.removeMember("dana");
+
+        MemberPage page = userRepo.getMemberSummaries(null, 10);
+        assertEquals(List.of(new MemberSummary("alice", false), new MemberSummary("bob", true),
+                        new MemberSummary("carol", false), new MemberSummary("erez", false)),
+                page.members());
+        assertFalse(page.hasNext());
+    }
+}
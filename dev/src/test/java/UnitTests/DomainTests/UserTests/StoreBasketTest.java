@@ -92,6 +92,18 @@ class StoreBasketTest extends UnitTest {
 
     }
 
+    @Test
+    void testAggregatesDropProductsWithoutQuantity() {
+        storeBasket.addProduct(new ProductRecord(storeId, productId2, "test", 10, Category.PETS, 2, 10, 1));
+        assertEquals(2, storeBasket.getAggregates().getDistinctProducts());
+
+        storeBasket.updateProductRecord(new ProductRecord(storeId, productId2, "test", 10, Category.PETS, 0, 10, 1));
+        assertEquals(1, storeBasket.getAggregates().getDistinctProducts());
+        assertEquals(0, storeBasket.getAggregates().getProductQuantity(productId2));
+        assertFalse(storeBasket.getAggregates().containsCategory(Category.PETS));
+        assertEquals(initialQuantity, storeBasket.getAggregates().getTotalQuantity());
+    }
+
     @Test
     void testIsProductExists() {
         assertTrue(storeBasket.isProductExists(productId1));
@@ -13,7 +13,10 @@ import Domain.Store.*;
 import Domain.User.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import util.Enums.CheckoutMode;
 import util.Enums.ErrorStatus;
 import util.Exceptions.PurchaseError;
 import util.Records.PaymentDetails;
@@ -23,8 +26,11 @@ import util.Records.DateRecord;
 import util.Records.StoreRecords.ProductRecord;
 import util.Records.StoreRecords.StoreRecord;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -137,11 +143,11 @@ public class MarketImplTest extends UnitTest {
     assertEquals(1, market.getUserTransactions("1",null,null).size());
     assertEquals(1, market.getStoreTransactions(store.getStoreId()).size());
 
-    //validate remove cart fail
+    //validate reserve cart fail
     DataMember dataMemberMock = mock(DataMember.class);
     when(dataMemberMock.getUsername()).thenReturn("user1");
     UserCart cart = new UserCart(dataMemberMock);
-    doThrow(RuntimeException.class).when(storeController).removeCartQuantity(cart);
+    doThrow(RuntimeException.class).when(storeController).reserveCartQuantity(cart);
     assertThrows(RuntimeException.class, () -> market.purchase(paymentDetails1, deliveryAddress, userController.getUser(sessionID), cart));
 
     //validate payment service fail
@@ -151,6 +157,204 @@ public class MarketImplTest extends UnitTest {
 
   }
 
+  @Test
+  public void testConcurrentCheckoutLatency() throws Exception {
+    int storesCount = 5;
+    long supplyDelay = 100;
+    PaymentDetails paymentDetails = new PaymentDetails("a", "123456", new DateRecord(1997, 11), "777");
+    AddressRecord deliveryAddress = new AddressRecord("a", "a", "a", "a", "a", "a");
+    List<IStoreBasket> baskets = new ArrayList<>();
+    for (int i = 0; i < storesCount; i++) {
+      IStore store = new Store("founder", new StoreRecord("store " + i, "desc"));
+      IStoreBasket basket = new DummyStoreBasket(store.getStoreId());
+      basket.addProduct(new ProductRecord(store.getStoreId(), 1, "product", 10, Category.BEAUTY, 1, 10, 1));
+      baskets.add(basket);
+      when(storeController.getStore(store.getStoreId())).thenReturn(store);
+    }
+    when(user.getSessionId()).thenReturn("guest");
+    when(userCart.getStoreBaskets()).thenReturn(baskets);
+    when(storeController.calculateBasketPrice(any())).thenReturn(10.0);
+    when(paymentService.processPayment(any())).thenReturn(new Response("", false, 0));
+    when(supplyService.placeOrder(any(), any(), any())).thenAnswer(invocation -> {
+      Thread.sleep(supplyDelay);
+      return new Response("", false, 0);
+    });
+
+    try {
+      market.setCheckoutMode(CheckoutMode.SERIAL);
+      long serialStart = System.nanoTime();
+      market.purchase(paymentDetails, deliveryAddress, user, userCart);
+      long serialTime = System.nanoTime() - serialStart;
+
+      market.setCheckoutMode(CheckoutMode.CONCURRENT);
+      long concurrentStart = System.nanoTime();
+      market.purchase(paymentDetails, deliveryAddress, user, userCart);
+      long concurrentTime = System.nanoTime() - concurrentStart;
+
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(serialTime) >= storesCount * supplyDelay);
+      assertTrue(concurrentTime < serialTime / 2,
+              String.format("concurrent checkout took %d ms, serial took %d ms",
+                      TimeUnit.NANOSECONDS.toMillis(concurrentTime), TimeUnit.NANOSECONDS.toMillis(serialTime)));
+      assertEquals(2 * storesCount, market.getUserTransactions("guest", null, null).size());
+      verify(user, times(2)).removeUserCart();
+    } finally {
+      market.setCheckoutMode(CheckoutMode.SERIAL);
+    }
+  }
+
+  @Test
+  public void testConcurrentCheckoutReportsFailedBaskets() throws Exception {
+    checkoutReportsFailedBaskets(CheckoutMode.CONCURRENT);
+  }
+
+  @Test
+  public void testSerialCheckoutReportsFailedBaskets() throws Exception {
+    checkoutReportsFailedBaskets(CheckoutMode.SERIAL);
+  }
+
+  private void checkoutReportsFailedBaskets(CheckoutMode checkoutMode) throws Exception {
+    PaymentDetails paymentDetails = new PaymentDetails("a", "123456", new DateRecord(1997, 11), "777");
+    AddressRecord deliveryAddress = new AddressRecord("a", "a", "a", "a", "a", "a");
+    IStore goodStore = new Store("founder", new StoreRecord("good store", "desc"));
+    IStore badStore = new Store("founder", new StoreRecord("bad store", "desc"));
+    List<IStoreBasket> baskets = new ArrayList<>();
+    for (IStore store : List.of(goodStore, badStore)) {
+      IStoreBasket basket = new DummyStoreBasket(store.getStoreId());
+      basket.addProduct(new ProductRecord(store.getStoreId(), 1, "product", 10, Category.BEAUTY, 1, 10, 1));
+      baskets.add(basket);
+      when(storeController.getStore(store.getStoreId())).thenReturn(store);
+    }
+    when(user.getSessionId()).thenReturn("guest2");
+    when(userCart.getStoreBaskets()).thenReturn(baskets);
+    when(storeController.calculateBasketPrice(any())).thenReturn(10.0);
+    when(paymentService.processPayment(any())).thenReturn(new Response("", false, 0));
+    when(supplyService.placeOrder(eq(goodStore), any(), any())).thenReturn(new Response("", false, 0));
+    when(supplyService.placeOrder(eq(badStore), any(), any())).thenReturn(new Response("no courier", true, 500));
+
+    try {
+      market.setCheckoutMode(checkoutMode);
+      PurchaseError error = assertThrows(PurchaseError.class,
+              () -> market.purchase(paymentDetails, deliveryAddress, user, userCart));
+      assertEquals(ErrorStatus.BASKET_CHECKOUT_FAILED, error.getStatus());
+      assertTrue(error.getMessage().contains("store " + badStore.getStoreId()));
+      assertFalse(error.getMessage().contains("store " + goodStore.getStoreId() + ":"));
+      verify(user, times(1)).removeUserCart();
+    } finally {
+      market.setCheckoutMode(CheckoutMode.SERIAL);
+    }
+  }
+
+  @Test
+  public void testExpiredHoldsAreNotCharged() throws Exception {
+    PaymentDetails paymentDetails = new PaymentDetails("a", "123456", new DateRecord(1997, 11), "777");
+    AddressRecord deliveryAddress = new AddressRecord("a", "a", "a", "a", "a", "a");
+    List<Reservation> reservations = List.of(new Reservation(1, 1, Map.of(1, 1), LocalDateTime.now()));
+    when(user.getSessionId()).thenReturn("late guest");
+    when(userCart.getStoreBaskets()).thenReturn(List.of());
+    when(storeController.reserveCartQuantity(userCart)).thenReturn(reservations);
+    doThrow(new NonExistentData("expired", ErrorStatus.RESERVATION_DOES_NOT_EXIST))
+            .when(storeController).pinCartReservations(reservations);
+
+    assertThrows(NonExistentData.class, () -> market.purchase(paymentDetails, deliveryAddress, user, userCart));
+    verify(paymentService, never()).processPayment(any());
+    verify(storeController, never()).commitCartReservations(any());
+    verify(user, never()).removeUserCart();
+  }
+
+  @Test
+  public void testFailedPaymentReleasesHolds() throws Exception {
+    PaymentDetails paymentDetails = new PaymentDetails("a", "123456", new DateRecord(1997, 11), "777");
+    AddressRecord deliveryAddress = new AddressRecord("a", "a", "a", "a", "a", "a");
+    List<Reservation> reservations = List.of(new Reservation(1, 1, Map.of(1, 1), LocalDateTime.now()));
+    when(user.getSessionId()).thenReturn("declined guest");
+    when(userCart.getStoreBaskets()).thenReturn(List.of());
+    when(storeController.reserveCartQuantity(userCart)).thenReturn(reservations);
+    when(paymentService.processPayment(any())).thenReturn(new Response("declined", true, 402));
+
+    PurchaseError error = assertThrows(PurchaseError.class,
+            () -> market.purchase(paymentDetails, deliveryAddress, user, userCart));
+    assertEquals(ErrorStatus.PAYMENT_PROCESS_FAILED, error.getStatus());
+    InOrder order = inOrder(storeController, paymentService);
+    order.verify(storeController).pinCartReservations(reservations);
+    order.verify(paymentService).processPayment(any());
+    order.verify(storeController).releaseCartReservations(reservations);
+    verify(storeController, never()).commitCartReservations(any());
+    verify(user, never()).removeUserCart();
+  }
+
+  @Test
+  public void testHoldsAreCommittedAfterPayment() throws Exception {
+    PaymentDetails paymentDetails = new PaymentDetails("a", "123456", new DateRecord(1997, 11), "777");
+    AddressRecord deliveryAddress = new AddressRecord("a", "a", "a", "a", "a", "a");
+    List<Reservation> reservations = List.of(new Reservation(1, 1, Map.of(1, 1), LocalDateTime.now()));
+    when(user.getSessionId()).thenReturn("paying guest");
+    when(userCart.getStoreBaskets()).thenReturn(List.of());
+    when(storeController.reserveCartQuantity(userCart)).thenReturn(reservations);
+    when(paymentService.processPayment(any())).thenReturn(new Response("", false, 12345));
+
+    market.purchase(paymentDetails, deliveryAddress, user, userCart);
+    InOrder order = inOrder(storeController, paymentService);
+    order.verify(storeController).pinCartReservations(reservations);
+    order.verify(paymentService).processPayment(any());
+    order.verify(storeController).commitCartReservations(reservations);
+    verify(storeController, never()).releaseCartReservations(any());
+
+    // a store removed while the buyer was charged
+    doThrow(new NonExistentData("removed", ErrorStatus.STORE_DOES_NOT_EXIST))
+            .when(storeController).commitCartReservations(reservations);
+    assertThrows(NonExistentData.class, () -> market.purchase(paymentDetails, deliveryAddress, user, userCart));
+    verify(paymentService).refundPayment("12345");
+  }
+
+  @Test
+  public void testOutboxCheckoutRetriesSupply() throws Exception {
+    PaymentDetails paymentDetails = new PaymentDetails("a", "123456", new DateRecord(1997, 11), "777");
+    AddressRecord deliveryAddress = new AddressRecord("a", "a", "a", "a", "a", "a");
+    IStore store = new Store("founder", new StoreRecord("outbox store", "desc"));
+    IStoreBasket basket = new DummyStoreBasket(store.getStoreId());
+    basket.addProduct(new ProductRecord(store.getStoreId(), 1, "product", 10, Category.BEAUTY, 2, 10, 1));
+    when(storeController.getStore(store.getStoreId())).thenReturn(store);
+    when(user.getSessionId()).thenReturn("outbox guest");
+    when(userCart.getStoreBaskets()).thenReturn(List.of(basket));
+    when(storeController.calculateBasketPrice(any())).thenReturn(20.0);
+    when(paymentService.processPayment(any())).thenReturn(new Response("", false, 0));
+    when(supplyService.placeOrder(any(), any(), any(), any()))
+            .thenReturn(new Response("supply is down", true, 503))
+            .thenReturn(new Response("", false, 0));
+
+    market.getOutboxDispatcher().stop();
+    try {
+      market.setCheckoutMode(CheckoutMode.OUTBOX);
+      market.purchase(paymentDetails, deliveryAddress, user, userCart);
+      LocalDateTime purchased = LocalDateTime.now();
+      verify(user, times(1)).removeUserCart();
+      verify(supplyService, never()).placeOrder(any(), any(), any(), any());
+      assertEquals(1, market.getPendingOutboxCount());
+
+      // first attempt fails and is rescheduled, the retry completes the entry
+      LocalDateTime now = LocalDateTime.now();
+      market.getOutboxDispatcher().dispatchDue(now);
+      assertEquals(1, market.getPendingOutboxCount());
+      assertEquals(0, market.getUserTransactions("outbox guest", null, null).size());
+      market.getOutboxDispatcher().dispatchDue(now.plusHours(1));
+      assertEquals(0, market.getPendingOutboxCount());
+
+      // the retry is placed with the key of the first attempt
+      ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+      verify(supplyService, times(2)).placeOrder(any(), any(), any(), keys.capture());
+      assertNotNull(keys.getAllValues().get(0));
+      assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+      List<Transaction> transactions = market.getUserTransactions("outbox guest", null, null);
+      assertEquals(1, transactions.size());
+      assertEquals(20.0, transactions.get(0).price());
+      // recorded at the time of the purchase, not of the dispatch
+      assertFalse(transactions.get(0).timeStamp().isAfter(purchased));
+    } finally {
+      market.setCheckoutMode(CheckoutMode.SERIAL);
+      market.getOutboxDispatcher().start();
+    }
+  }
+
   @Test
   public void testGetTransactions() {
     assertNotNull(market.getTransactions());
@@ -181,6 +385,14 @@ public class MarketImplTest extends UnitTest {
     assertNotNull(transactions);
   }
 
+  @Test
+  public void testExportRejectsReversedRange() {
+    LocalDateTime now = LocalDateTime.now();
+    DataError error = assertThrows(DataError.class,
+            () -> market.exportTransactions(now, now.minusDays(1), transaction -> fail()));
+    assertEquals(ErrorStatus.INVALID_DATE_RANGE, error.getStatus());
+  }
+
   @Test
   public void testCleanTransactions() {
     market.cleanTransactions();
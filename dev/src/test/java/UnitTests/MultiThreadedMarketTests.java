@@ -90,19 +90,6 @@ class MultiThreadedMarketTests extends UnitTest {
       e.printStackTrace();
     }
     when(storeController.calculateBasketPrice(any())).thenReturn(50.0);
-    // Configure the mock store controller to do nothing when removing and
-    // adding cart quantities
-    try {
-      doNothing().when(storeController).removeCartQuantity(any());
-    } catch (NonExistentData | DataError e) {
-      e.printStackTrace();
-    }
-    try {
-      doNothing().when(storeController).addCartQuantity(any());
-    } catch (NonExistentData | DataError |PermissionError e) {
-      e.printStackTrace();
-    }
-
     return storeController;
   }
 
@@ -4,7 +4,10 @@ import DataLayer.ITransactionRepo;
 import DataLayer.TransactionRepo;
 import Domain.Store.Category;
 import Domain.User.DummyStoreBasket;
+import util.Records.StoreRecords.DailySales;
 import util.Records.StoreRecords.ProductRecord;
+import util.Records.StoreRecords.ProductSales;
+import util.Records.StoreRecords.SalesReport;
 import util.Records.Transaction;
 import Domain.User.IStoreBasket;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,7 +16,9 @@ import util.Exceptions.DataError;
 import util.Exceptions.NonExistentData;
 import util.Records.DateTimeRange;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -102,6 +107,100 @@ public class TransactionHistoryTest extends UnitTest {
     assertEquals(transactionId, transactionsBetween.get(0).id());
   }
 
+  @Test
+  public void testIndexedTransactionsInRange() {
+    LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+    int first = transactionRepo.addTransaction(storeBasket, userName, price);
+    int otherUser = transactionRepo.addTransaction(storeBasket, "OtherUser", price);
+    int otherStore = transactionRepo.addTransaction(new DummyStoreBasket(storeId + 1), userName, price);
+    int last = transactionRepo.addTransaction(storeBasket, userName, price);
+    LocalDateTime after = LocalDateTime.now().plusSeconds(1);
+
+    assertEquals(List.of(first, otherUser, last),
+        transactionRepo.getStoreTransactions(storeId).stream().map(Transaction::id).toList());
+    assertEquals(List.of(first, otherStore, last),
+        transactionRepo.getUserTransactions(userName).stream().map(Transaction::id).toList());
+    assertEquals(List.of(first, otherUser, last),
+        transactionRepo.getStoreTransactionsInRange(storeId, new DateTimeRange(before, after)).stream().map(Transaction::id).toList());
+    assertEquals(List.of(first, otherStore, last),
+        transactionRepo.getUserTransactionsInRange(userName, new DateTimeRange(before, null)).stream().map(Transaction::id).toList());
+    assertEquals(4, transactionRepo.getTransactionsInRange(new DateTimeRange(null, after)).size());
+
+    assertTrue(transactionRepo.getStoreTransactionsInRange(storeId, new DateTimeRange(null, before)).isEmpty());
+    assertTrue(transactionRepo.getUserTransactionsInRange(userName, new DateTimeRange(after, null)).isEmpty());
+    assertTrue(transactionRepo.getStoreTransactions(storeId + 2).isEmpty());
+    assertTrue(transactionRepo.getUserTransactions("NoSuchUser").isEmpty());
+  }
+
+  @Test
+  public void testTransactionPages() {
+    LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+    int first = transactionRepo.addTransaction(storeBasket, userName, price);
+    int second = transactionRepo.addTransaction(storeBasket, "OtherUser", price);
+    int third = transactionRepo.addTransaction(storeBasket, userName, price);
+    DateTimeRange range = new DateTimeRange(before, null);
+
+    assertEquals(List.of(first, second),
+        transactionRepo.getStoreTransactionsPage(storeId, range, 0, 2).stream().map(Transaction::id).toList());
+    assertEquals(List.of(third),
+        transactionRepo.getStoreTransactionsPage(storeId, range, 2, 2).stream().map(Transaction::id).toList());
+    assertEquals(List.of(third),
+        transactionRepo.getUserTransactionsPage(userName, range, 1, 5).stream().map(Transaction::id).toList());
+    assertEquals(3, transactionRepo.getTransactionCount());
+  }
+
+  @Test
+  public void testExportTransactions() {
+    LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+    int first = transactionRepo.addTransaction(storeBasket, userName, price);
+    int otherStore = transactionRepo.addTransaction(new DummyStoreBasket(storeId + 1), userName, price);
+    int last = transactionRepo.addTransaction(storeBasket, "OtherUser", price);
+
+    List<Integer> storeExport = new ArrayList<>();
+    transactionRepo.forEachStoreTransaction(storeId, new DateTimeRange(before, null), t -> storeExport.add(t.id()));
+    assertEquals(List.of(first, last), storeExport);
+
+    List<Integer> export = new ArrayList<>();
+    transactionRepo.forEachTransaction(new DateTimeRange(null, null), t -> export.add(t.id()));
+    assertEquals(List.of(first, otherStore, last), export);
+
+    List<Integer> emptyExport = new ArrayList<>();
+    transactionRepo.forEachStoreTransaction(storeId, new DateTimeRange(null, before), t -> emptyExport.add(t.id()));
+    assertTrue(emptyExport.isEmpty());
+  }
+
+  @Test
+  public void testSalesRollup() {
+    storeBasket.addProduct(new ProductRecord(storeId, 1, "first", 6, Category.BEAUTY, 2, 5, 0));
+    storeBasket.addProduct(new ProductRecord(storeId, 2, "second", 10, Category.BEAUTY, 1, 10, 0));
+    transactionRepo.addTransaction(storeBasket, userName, 20);
+    IStoreBasket secondBasket = new DummyStoreBasket(storeId);
+    secondBasket.addProduct(new ProductRecord(storeId, 2, "second", 10, Category.BEAUTY, 3, 8, 0));
+    transactionRepo.addTransaction(secondBasket, "OtherUser", 24);
+    IStoreBasket otherStoreBasket = new DummyStoreBasket(storeId + 1);
+    otherStoreBasket.addProduct(new ProductRecord(storeId + 1, 1, "other", 1, Category.BEAUTY, 7, 1, 0));
+    transactionRepo.addTransaction(otherStoreBasket, userName, 7);
+    LocalDate today = LocalDate.now();
+
+    SalesReport store = transactionRepo.getStoreSales(storeId, null, null, 10);
+    assertEquals(44, store.revenue(), 0.001);
+    assertEquals(2, store.orders());
+    assertEquals(6, store.units());
+    assertEquals(List.of(new DailySales(today, 44, 2, 6)), store.days());
+    assertEquals(List.of(new ProductSales(storeId, 2, 4, 34), new ProductSales(storeId, 1, 2, 10)), store.bestSellers());
+
+    SalesReport market = transactionRepo.getMarketSales(today, today, 1);
+    assertEquals(51, market.revenue(), 0.001);
+    assertEquals(3, market.orders());
+    assertEquals(List.of(new ProductSales(storeId + 1, 1, 7, 7)), market.bestSellers());
+
+    assertTrue(transactionRepo.getStoreSales(storeId, today.plusDays(1), null, 10).days().isEmpty());
+    assertEquals(0, transactionRepo.getStoreSales(storeId + 2, null, null, 10).orders());
+
+    transactionRepo.clean();
+    assertEquals(0, transactionRepo.getMarketSales(null, null, 10).orders());
+  }
+
   @Test
   public void testCleanTransactions() {
     int transactionId =
@@ -112,5 +211,7 @@ public class TransactionHistoryTest extends UnitTest {
         transactionRepo.getTransactions();
     assertNotNull(transactions);
     assertEquals(0, transactions.size());
+    assertTrue(transactionRepo.getStoreTransactions(storeId).isEmpty());
+    assertTrue(transactionRepo.getUserTransactions(userName).isEmpty());
   }
 }